@@ -0,0 +1,82 @@
+package com.example.menuservice;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.common.Money;
+
+/**
+ * 16 threads reserving (and releasing) one unit of the same item - the "Masala Chai at 1pm"
+ * case - against an in-memory H2. writeBehind=false takes the stock with the conditional
+ * UPDATE on the item's row; writeBehind=true takes it from WriteBehindInventory's counter
+ * and leaves the row to the flusher. Both still insert and update the reservation row.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class HotItemReserveBenchmark {
+
+	@Param({ "false", "true" })
+	private boolean writeBehind;
+
+	private ConfigurableApplicationContext context;
+	private InventoryService inventory;
+	private Long hotItem;
+
+	@Setup
+	public void setUp() {
+		context = new SpringApplicationBuilder(MenuServiceApplication.class)
+				.web(WebApplicationType.NONE)
+				.properties(
+						"spring.datasource.url=jdbc:h2:mem:menu_reserve_bench;DB_CLOSE_DELAY=-1",
+						"spring.datasource.username=sa",
+						"spring.datasource.password=",
+						"spring.jpa.hibernate.ddl-auto=create-drop",
+						"spring.jpa.show-sql=false",
+						"spring.datasource.hikari.maximum-pool-size=16",
+						"menu.inventory.write-behind=" + writeBehind,
+						"menu.inventory.wal-dir=target/inventory-wal/" + System.nanoTime(),
+						"events.dir=target/events",
+						"logging.level.root=WARN")
+				.run();
+
+		MenuItem chai = new MenuItem("Masala Chai", "Drinks", Money.ofRupees(15), true, "x", "Veg", 1_000_000_000);
+		hotItem = context.getBean(MenuRepository.class).save(chai).getId();
+		inventory = context.getBean(InventoryService.class);
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public StockReservation reserve() {
+		return inventory.reserve(hotItem, 1, null);
+	}
+
+	@Benchmark
+	public StockReservation reserveAndRelease() {
+		return inventory.release(inventory.reserve(hotItem, 1, null).getId());
+	}
+}
@@ -0,0 +1,26 @@
+package com.example.menuservice;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.common.Money;
+
+// Menus of any size shaped like the seeded one (not saved, so no ids yet)
+public final class MenuFixtures {
+
+	private static final String[] CATEGORIES = { "Snacks", "Drinks", "Meals", "Desserts" };
+
+	private MenuFixtures() {
+	}
+
+	public static List<MenuItem> items(int count) {
+		List<MenuItem> items = new ArrayList<>(count);
+		for (int i = 1; i <= count; i++) {
+			String category = CATEGORIES[i % CATEGORIES.length];
+			MenuItem item = new MenuItem("Item " + i, category, Money.ofRupees(10 + (i % 50) * 5), i % 10 != 0,
+					"https://placehold.co/600x400/orange/white?text=Item+" + i, i % 3 == 0 ? "Non-Veg" : "Veg", i % 10 == 0 ? 0 : 50);
+			items.add(item);
+		}
+		return items;
+	}
+}
@@ -0,0 +1,91 @@
+package com.example.menuservice;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * GET /menu/search at menu sizes from 100 to 10,000 items, against a real menu-service
+ * context on an in-memory H2.
+ *
+ * categoryByPrice and textByName only read the index. afterStockChange marks one item
+ * changed first (what every reservation does), so it also pays for reloading and
+ * re-indexing that item.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MenuSearchBenchmark {
+
+	@Param({ "100", "1000", "10000" })
+	private int menuSize;
+
+	private ConfigurableApplicationContext context;
+	private MenuController controller;
+	private MenuSnapshotCache menuCache;
+	private Long changedItem;
+
+	@Setup
+	public void setUp() {
+		context = new SpringApplicationBuilder(MenuServiceApplication.class)
+				.web(WebApplicationType.NONE)
+				.properties(
+						"spring.datasource.url=jdbc:h2:mem:menu_search_bench;DB_CLOSE_DELAY=-1",
+						"spring.datasource.username=sa",
+						"spring.datasource.password=",
+						"spring.jpa.hibernate.ddl-auto=create-drop",
+						"spring.jpa.show-sql=false",
+						"events.dir=target/events",
+						"logging.level.root=WARN")
+				.run();
+
+		MenuRepository repository = context.getBean(MenuRepository.class);
+		repository.deleteAll();
+		List<MenuItem> items = repository.saveAll(MenuFixtures.items(menuSize));
+		changedItem = items.get(items.size() / 2).getId();
+
+		controller = context.getBean(MenuController.class);
+		menuCache = context.getBean(MenuSnapshotCache.class);
+		menuCache.invalidate();
+		controller.search(null, null, null, false, "default", 0, 20); // builds the index
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public MenuSearchIndex.Result categoryByPrice() {
+		return controller.search(null, "Snacks", "Veg", true, "price-low", 1, 20);
+	}
+
+	@Benchmark
+	public MenuSearchIndex.Result textByName() {
+		return controller.search("item 12", null, null, false, "name", 0, 20);
+	}
+
+	@Benchmark
+	public MenuSearchIndex.Result afterStockChange() {
+		menuCache.invalidate(changedItem);
+		return controller.search(null, "Snacks", null, false, "price-high", 0, 20);
+	}
+}
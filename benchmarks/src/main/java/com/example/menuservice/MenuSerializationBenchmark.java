@@ -0,0 +1,93 @@
+package com.example.menuservice;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * GET /menu at menu sizes from 10 to 10,000 items.
+ *
+ * getAllItems runs against a real menu-service context on an in-memory H2:
+ * "Cached" is the normal case (snapshot bytes reused), "AfterChange" invalidates first,
+ * so it pays for findAll plus serialization. serialize isolates the Jackson part of a rebuild.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MenuSerializationBenchmark {
+
+	@Param({ "10", "100", "1000", "10000" })
+	private int menuSize;
+
+	private ConfigurableApplicationContext context;
+	private MenuController controller;
+	private MenuSnapshotCache menuCache;
+	private ObjectMapper objectMapper;
+	private List<MenuItem> items;
+
+	@Setup
+	public void setUp() {
+		context = new SpringApplicationBuilder(MenuServiceApplication.class)
+				.web(WebApplicationType.NONE)
+				.properties(
+						"spring.datasource.url=jdbc:h2:mem:menu_bench;DB_CLOSE_DELAY=-1",
+						"spring.datasource.username=sa",
+						"spring.datasource.password=",
+						"spring.jpa.hibernate.ddl-auto=create-drop",
+						"spring.jpa.show-sql=false",
+						"events.dir=target/events",
+						"logging.level.root=WARN")
+				.run();
+
+		MenuRepository repository = context.getBean(MenuRepository.class);
+		repository.deleteAll();
+		items = repository.saveAll(MenuFixtures.items(menuSize));
+
+		controller = context.getBean(MenuController.class);
+		menuCache = context.getBean(MenuSnapshotCache.class);
+		objectMapper = context.getBean(ObjectMapper.class);
+		menuCache.invalidate();
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public ResponseEntity<byte[]> getAllItemsCached() {
+		return controller.getAllItems();
+	}
+
+	@Benchmark
+	public ResponseEntity<byte[]> getAllItemsAfterChange() {
+		menuCache.invalidate();
+		return controller.getAllItems();
+	}
+
+	@Benchmark
+	public byte[] serialize() {
+		return objectMapper.writeValueAsBytes(items);
+	}
+}
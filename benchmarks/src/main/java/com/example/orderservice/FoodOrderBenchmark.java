@@ -0,0 +1,84 @@
+package com.example.orderservice;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.common.Money;
+
+/**
+ * Building the FoodOrder that gets saved: a plain single item, and a cart with one
+ * OrderLine per reserved item (OrderPipeline.describe, also used by the saga).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FoodOrderBenchmark {
+
+	@Param({ "1", "5", "20" })
+	private int cartLines;
+
+	private List<DTOs.ReservationDTO> single;
+	private List<DTOs.ReservationDTO> cart;
+
+	@Setup
+	public void setUp() {
+		single = List.of(reservation(1, 1));
+		cart = new ArrayList<>();
+		for (int i = 1; i <= cartLines; i++) {
+			cart.add(reservation(i, 2));
+		}
+	}
+
+	// The old controllers' constructor
+	@Benchmark
+	public FoodOrder constructor() {
+		return new FoodOrder("101", 1L, "Veg Burger", Money.ofRupees(50), "CONFIRMED");
+	}
+
+	@Benchmark
+	public FoodOrder singleItem() {
+		return build(single);
+	}
+
+	@Benchmark
+	public FoodOrder cart() {
+		return build(cart);
+	}
+
+	private static FoodOrder build(List<DTOs.ReservationDTO> reservations) {
+		FoodOrder order = new FoodOrder();
+		order.setRollNumber("101");
+		order.setStatus("CONFIRMED");
+		order.setOrderTime(LocalDateTime.now());
+		OrderPipeline.describe(order, reservations);
+		return order;
+	}
+
+	private static DTOs.ReservationDTO reservation(long itemId, int quantity) {
+		DTOs.ReservationDTO r = new DTOs.ReservationDTO();
+		r.id = itemId;
+		r.itemId = itemId;
+		r.quantity = quantity;
+		r.itemName = "Item " + itemId;
+		r.unitPrice = Money.ofRupees(50);
+		r.status = "HELD";
+		return r;
+	}
+}
@@ -0,0 +1,75 @@
+package com.example.orderservice;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.common.Money;
+import com.example.menuservice.MenuFixtures;
+import com.example.menuservice.MenuItem;
+import com.example.walletservice.WalletBalance;
+
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Reading what order-service gets back from its downstream calls: the menu as
+ * DTOs.MenuItemDTO[] and a wallet as DTOs.WalletDTO. The JSON is produced by serializing
+ * the other services' own classes, so it matches the wire format.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonDeserializationBenchmark {
+
+	private final ObjectMapper objectMapper = JsonMapper.builder().build();
+
+	private byte[] walletJson;
+
+	@State(Scope.Benchmark)
+	public static class Menu {
+
+		@Param({ "10", "100", "1000", "10000" })
+		private int menuSize;
+
+		private byte[] json;
+
+		@Setup
+		public void setUp() {
+			List<MenuItem> items = MenuFixtures.items(menuSize);
+			for (int i = 0; i < items.size(); i++) {
+				items.get(i).setId((long) i + 1);
+			}
+			json = JsonMapper.builder().build().writeValueAsBytes(items);
+		}
+	}
+
+	@Setup
+	public void setUp() {
+		walletJson = objectMapper.writeValueAsBytes(new WalletBalance("101", Money.ofRupees(950)));
+	}
+
+	@Benchmark
+	public DTOs.MenuItemDTO[] menuItems(Menu menu) {
+		return objectMapper.readValue(menu.json, DTOs.MenuItemDTO[].class);
+	}
+
+	@Benchmark
+	public DTOs.WalletDTO wallet() {
+		return objectMapper.readValue(walletJson, DTOs.WalletDTO.class);
+	}
+}
@@ -0,0 +1,96 @@
+package com.example.orderservice;
+
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.common.Money;
+
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * GET /order/history pages (default and maximum page size) and the admin export,
+ * both CSV and NDJSON, for the same number of orders. Every fourth order is a cart
+ * with lines, the rest are single items.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderHistorySerializationBenchmark {
+
+	@Param({ "" + OrderHistoryService.DEFAULT_PAGE_SIZE, "" + OrderHistoryService.MAX_PAGE_SIZE })
+	private int orders;
+
+	private final ObjectMapper objectMapper = JsonMapper.builder().build();
+
+	private OrderHistoryPage page;
+	private List<OrderExportRow> rows;
+
+	@Setup
+	public void setUp() {
+		List<FoodOrder> history = new ArrayList<>();
+		rows = new ArrayList<>();
+		LocalDateTime time = LocalDateTime.of(2026, 1, 15, 12, 0);
+		for (int i = 0; i < orders; i++) {
+			FoodOrder order = new FoodOrder("101", (long) (i % 8) + 1, "Veg Burger", Money.ofRupees(50), "CONFIRMED");
+			order.setId((long) i + 1);
+			order.setOrderTime(time.minusMinutes(i));
+			if (i % 4 == 0) {
+				order.setItemId(null);
+				order.setItemName("Veg Burger x2, Masala Chai x1");
+				order.setAmount(Money.ofRupees(115));
+				order.addLine(new OrderLine(1L, "Veg Burger", 2, Money.ofRupees(50)));
+				order.addLine(new OrderLine(3L, "Masala Chai", 1, Money.ofRupees(15)));
+			}
+			history.add(order);
+			rows.add(new OrderExportRow(order.getId(), order.getRollNumber(), order.getItemId(), order.getItemName(),
+					order.getAmount(), order.getOrderTime(), order.getStatus()));
+		}
+		page = new OrderHistoryPage(history, "MjAyNi0wMS0xNVQxMjowMHwx");
+	}
+
+	@Benchmark
+	public byte[] historyPage() {
+		return objectMapper.writeValueAsBytes(page);
+	}
+
+	@Benchmark
+	public String exportCsv() {
+		StringWriter out = new StringWriter();
+		out.write(OrderExportRow.CSV_HEADER);
+		out.write('\n');
+		for (OrderExportRow row : rows) {
+			out.write(row.toCsv());
+			out.write('\n');
+		}
+		return out.toString();
+	}
+
+	@Benchmark
+	public String exportNdjson() {
+		StringWriter out = new StringWriter();
+		for (OrderExportRow row : rows) {
+			out.write(objectMapper.writeValueAsString(row));
+			out.write('\n');
+		}
+		return out.toString();
+	}
+}
@@ -0,0 +1,196 @@
+package com.example.startup;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cold start of each service in each fast-startup mode, as a fresh JVM on an in-memory H2:
+ * started is launch until "Started ...Application" is logged, firstResponse is launch until the
+ * first business request has been answered (the difference is the first request's latency).
+ *
+ * - jvm: the plain jar
+ * - aot: with Spring's build-time bean definitions (-Dspring.aot.enabled=true)
+ * - cds: with a class data sharing archive from a training run
+ * - aot-cds: both, as the cds profile ships them
+ *
+ * Runs the unpacked jars the cds profile leaves in each service's target/cds, so build those
+ * first; the archives are made here, against H2, by this JVM:
+ *		(cd menu-service && mvn -B -Pcds package -DskipTests -Dcds.training.skip=true), and so on
+ *		mvn -B compile exec:exec -Djmh.include=Startup
+ * Native images are left out: they can't take H2 from the classpath at run time.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+	@Param({ "menu-service", "wallet-service", "order-service", "notification-service" })
+	private String service;
+
+	@Param({ "jvm", "aot", "cds", "aot-cds" })
+	private String mode;
+
+	private final HttpClient http = HttpClient.newHttpClient();
+	private Path module;
+	private Path jar;
+	private String h2;
+	private List<String> jvmArgs;
+	private int port;
+	private Process process;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		module = Path.of("..", service).toAbsolutePath().normalize();
+		jar = module.resolve("target/cds/" + service + "-0.0.1-SNAPSHOT.jar");
+		if (!Files.exists(jar)) {
+			throw new IllegalStateException("Cannot find " + jar + " (build it with mvn -Pcds package -Dcds.training.skip=true in " + module + ")");
+		}
+		// H2 is on this module's runtime classpath; the services only ship the Postgres driver
+		h2 = Path.of(Class.forName("org.h2.Driver").getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+		Path archive = Path.of("target/startup", service + "-" + mode + ".jsa").toAbsolutePath();
+
+		jvmArgs = new ArrayList<>();
+		if (mode.startsWith("aot")) {
+			jvmArgs.add("-Dspring.aot.enabled=true");
+		}
+		if (mode.endsWith("cds")) {
+			Files.createDirectories(archive.getParent());
+			List<String> training = new ArrayList<>(jvmArgs);
+			training.add("-XX:ArchiveClassesAtExit=" + archive);
+			training.add("-Dspring.context.exit=onRefresh");
+			Process run = new ProcessBuilder(javaCommand(training, 0))
+					.redirectErrorStream(true)
+					.redirectOutput(ProcessBuilder.Redirect.DISCARD)
+					.start();
+			if (!run.waitFor(2, TimeUnit.MINUTES) || !Files.exists(archive)) {
+				run.destroyForcibly();
+				throw new IllegalStateException("Training run for " + service + " left no " + archive);
+			}
+			jvmArgs.add("-XX:SharedArchiveFile=" + archive);
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void pickPort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			port = socket.getLocalPort();
+		}
+	}
+
+	@TearDown(Level.Invocation)
+	public void stop() throws InterruptedException {
+		if (process != null) {
+			process.destroy();
+			if (!process.waitFor(30, TimeUnit.SECONDS)) {
+				process.destroyForcibly().waitFor();
+			}
+			process = null;
+		}
+	}
+
+	@Benchmark
+	public String started() throws IOException {
+		return launch();
+	}
+
+	@Benchmark
+	public int firstResponse() throws IOException, InterruptedException {
+		launch();
+		return http.send(firstRequest(), HttpResponse.BodyHandlers.discarding()).statusCode();
+	}
+
+	// Returns the "Started" line; the rest of the output is drained so the child never blocks on it
+	private String launch() throws IOException {
+		process = new ProcessBuilder(javaCommand(jvmArgs, port)).redirectErrorStream(true).start();
+		BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+		StringBuilder seen = new StringBuilder();
+		for (String line; (line = output.readLine()) != null; ) {
+			if (line.contains("Started ")) {
+				Thread drain = new Thread(() -> output.lines().forEach(ignored -> { }), "drain-" + service);
+				drain.setDaemon(true);
+				drain.start();
+				return line;
+			}
+			seen.append(line).append('\n');
+		}
+		throw new IllegalStateException(service + " (" + mode + ") exited before starting:\n" + seen);
+	}
+
+	// What a student's first request to a freshly scaled-out instance would be
+	private HttpRequest firstRequest() {
+		String base = "http://localhost:" + port;
+		return switch (service) {
+			case "menu-service" -> HttpRequest.newBuilder(URI.create(base + "/menu")).build();
+			case "wallet-service" -> HttpRequest.newBuilder(URI.create(base + "/wallet/101")).build();
+			case "order-service" -> HttpRequest.newBuilder(URI.create(base + "/login")).build();
+			case "notification-service" -> HttpRequest.newBuilder(URI.create(base + "/notify/send?rollNumber=101&message=ready"))
+					.POST(HttpRequest.BodyPublishers.noBody())
+					.build();
+			default -> throw new IllegalArgumentException(service);
+		};
+	}
+
+	// The same arguments loadtest's ServiceCluster uses to put a service on H2; port 0 for training runs
+	private List<String> javaCommand(List<String> jvmArgs, int port) {
+		String application = switch (service) {
+			case "menu-service" -> "com.example.menuservice.MenuServiceApplication";
+			case "wallet-service" -> "com.example.walletservice.WalletServiceApplication";
+			case "order-service" -> "com.example.orderservice.OrderServiceApplication";
+			case "notification-service" -> "com.example.notificationservice.NotificationServiceApplication";
+			default -> throw new IllegalArgumentException(service);
+		};
+		String database = service.replace("-service", "");
+		List<String> command = new ArrayList<>();
+		command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+		command.addAll(jvmArgs);
+		command.add("-Xlog:cds=off");
+		command.add("-Xlog:cds+dynamic=off");
+		command.add("-cp");
+		command.add(jar + File.pathSeparator + h2);
+		command.add(application);
+		command.add("--server.port=" + port);
+		command.add("--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1");
+		command.add("--spring.datasource.username=sa");
+		command.add("--spring.datasource.password=");
+		command.add("--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect");
+		command.add("--spring.jpa.show-sql=false");
+		command.add("--spring.main.banner-mode=off");
+		command.add("--logging.level.root=WARN");
+		command.add("--logging.level." + application + "=INFO");
+		command.add("--events.dir=" + module.resolve("target/events"));
+		if (service.equals("menu-service")) {
+			command.add("--menu.inventory.wal-dir=" + module.resolve("target/inventory-wal/" + System.nanoTime()));
+		}
+		return command;
+	}
+}
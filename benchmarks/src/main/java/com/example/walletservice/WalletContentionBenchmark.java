@@ -0,0 +1,81 @@
+package com.example.walletservice;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.common.Money;
+
+/**
+ * 32 threads debiting through WalletLedger against an in-memory H2, all on one hot wallet
+ * (hot=true) or spread over 1000 (hot=false). This is where group commit pays off: the
+ * writer folds the queued debits into one transaction per batch.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class WalletContentionBenchmark {
+
+	private static final int WALLETS = 1000;
+
+	@Param({ "true", "false" })
+	private boolean hot;
+
+	private ConfigurableApplicationContext context;
+	private WalletLedger ledger;
+
+	@Setup
+	public void setUp() {
+		context = new SpringApplicationBuilder(WalletServiceApplication.class)
+				.web(WebApplicationType.NONE)
+				.properties(
+						"spring.datasource.url=jdbc:h2:mem:wallet_contention_bench;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+						"spring.datasource.username=sa",
+						"spring.datasource.password=",
+						"spring.jpa.hibernate.ddl-auto=create-drop",
+						"spring.jpa.show-sql=false",
+						"spring.datasource.hikari.maximum-pool-size=16",
+						"auth.token.secret=bench-secret",
+						"logging.level.root=WARN")
+				.run();
+
+		List<StudentWallet> wallets = new ArrayList<>();
+		for (int i = 0; i < WALLETS; i++) {
+			wallets.add(new StudentWallet("Bench " + i, "B" + i, Money.ofRupees(1_000_000_000), "x"));
+		}
+		context.getBean(WalletRepository.class).saveAll(wallets);
+		ledger = context.getBean(WalletLedger.class);
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public WalletBalance debit() {
+		return ledger.debit(hot ? "B0" : "B" + ThreadLocalRandom.current().nextInt(WALLETS), 100);
+	}
+}
@@ -0,0 +1,94 @@
+package com.example.walletservice;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.common.Money;
+
+/**
+ * One WalletLedger debit (queued, group-committed by the ledger writer) against an in-memory
+ * H2, spread over 1000 wallets. With one caller every debit commits alone, so this is the
+ * latency floor; batching only pays off with many callers. For throughput under contention
+ * see WalletContentionBenchmark.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WalletLedgerBenchmark {
+
+	private static final int WALLETS = 1000;
+
+	private ConfigurableApplicationContext context;
+	private WalletLedger ledger;
+	private final AtomicLong references = new AtomicLong();
+
+	@Setup
+	public void setUp() {
+		context = new SpringApplicationBuilder(WalletServiceApplication.class)
+				.web(WebApplicationType.NONE)
+				.properties(
+						"spring.datasource.url=jdbc:h2:mem:wallet_jmh;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+						"spring.datasource.username=sa",
+						"spring.datasource.password=",
+						"spring.jpa.hibernate.ddl-auto=create-drop",
+						"spring.jpa.show-sql=false",
+						"auth.token.secret=bench-secret",
+						"logging.level.root=WARN")
+				.run();
+
+		List<StudentWallet> wallets = new ArrayList<>();
+		for (int i = 0; i < WALLETS; i++) {
+			wallets.add(new StudentWallet("Bench " + i, "B" + i, Money.ofRupees(1_000_000_000), "x"));
+		}
+		context.getBean(WalletRepository.class).saveAll(wallets);
+		ledger = context.getBean(WalletLedger.class);
+		ledger.debit("B0", 100, "replayed");
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public WalletBalance debit() {
+		return ledger.debit(anyWallet(), 100);
+	}
+
+	// What order-service's saga sends: the reference is recorded with the debit
+	@Benchmark
+	public WalletBalance debitWithReference() {
+		return ledger.debit(anyWallet(), 100, "bench-" + references.incrementAndGet());
+	}
+
+	// A retried debit: found by reference, nothing applied
+	@Benchmark
+	public WalletBalance replayedDebit() {
+		return ledger.debit("B0", 100, "replayed");
+	}
+
+	private static String anyWallet() {
+		return "B" + ThreadLocalRandom.current().nextInt(WALLETS);
+	}
+}
@@ -0,0 +1,298 @@
+package com.example.common;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Structured event log, written off the request thread.
+ *
+ * Callers put an event on a bounded ring buffer and return straight away: claiming a slot is
+ * one CAS, there are no locks and no I/O. A single writer thread drains the buffer in batches
+ * and appends one line per event to events.dir/&lt;application&gt;-events.log, rolling the file
+ * over at events.file-max-mb and keeping events.files-kept old ones:
+ *
+ *   2026-01-05T12:30:01.123Z WARN order.saga.step.failed trace=6ad4... orderId=42 step=DEBIT attempt=2 error="Read timed out"
+ *
+ * If the buffer is full the event is dropped and counted (events.dropped) rather than making
+ * the request wait. sample() is for per-request events: only every events.sample-every'th one
+ * of each type is written, with the running count on the line.
+ *
+ * The events.* settings default to values that suit every service (see the @Value fields); a
+ * service's application.properties only lists the ones it changes.
+ */
+@Component
+public class EventLog implements MeterBinder {
+
+    public enum Level { INFO, WARN, ERROR }
+
+    private record Event(long time, Level level, String type, String trace, Object[] fields) {}
+
+    private final AtomicReferenceArray<Event> ring;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();   // next slot a producer will take
+    private final AtomicLong consumed = new AtomicLong();  // next slot the writer will read
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong sampledOut = new AtomicLong();
+    private final Map<String, AtomicLong> sampleCounts = new ConcurrentHashMap<>();
+
+    @Value("${spring.application.name:service}")
+    private String application;
+
+    @Value("${events.dir:logs}")
+    private String directory;
+
+    @Value("${events.file-max-mb:10}")
+    private long fileMaxMb;
+
+    @Value("${events.files-kept:5}")
+    private int filesKept;
+
+    @Value("${events.batch-size:512}")
+    private int batchSize;
+
+    @Value("${events.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${events.sample-every:100}")
+    private long sampleEvery;
+
+    private Path file;
+    private Writer out;
+    private long fileBytes;
+    private volatile boolean running = true;
+    private Thread writer;
+
+    public EventLog(@Value("${events.buffer-size:8192}") int bufferSize) {
+        int capacity = Integer.highestOneBit(Math.max(2, bufferSize - 1)) << 1; // round up to a power of two
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        file = Path.of(directory).resolve(application + "-events.log");
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        open();
+        writer = new Thread(this::writeLoop, "event-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(5000);
+    }
+
+    // --- PRODUCERS (any thread) ---
+
+    /** Fields are name/value pairs: info("stock.updated", "itemId", 5, "qty", 10). */
+    public void info(String type, Object... fields) {
+        offer(Level.INFO, type, fields);
+    }
+
+    public void warn(String type, Object... fields) {
+        offer(Level.WARN, type, fields);
+    }
+
+    /** Logs the exception's class and message as the "error" field; never sampled. */
+    public void error(String type, Throwable error, Object... fields) {
+        Object[] withError = new Object[fields.length + 2];
+        System.arraycopy(fields, 0, withError, 0, fields.length);
+        withError[fields.length] = "error";
+        withError[fields.length + 1] = error == null ? null : error.getClass().getSimpleName() + ": " + error.getMessage();
+        offer(Level.ERROR, type, withError);
+    }
+
+    /** For events that happen on every request: writes one in events.sample-every, with the count so far. */
+    public void sample(String type, Object... fields) {
+        long n = sampleCounts.computeIfAbsent(type, t -> new AtomicLong()).incrementAndGet();
+        if (sampleEvery > 1 && (n - 1) % sampleEvery != 0) {
+            sampledOut.incrementAndGet();
+            return;
+        }
+        Object[] withCount = new Object[fields.length + 2];
+        System.arraycopy(fields, 0, withCount, 0, fields.length);
+        withCount[fields.length] = "seen";
+        withCount[fields.length + 1] = n;
+        offer(Level.INFO, type, withCount);
+    }
+
+    private void offer(Level level, String type, Object[] fields) {
+        Event event = new Event(System.currentTimeMillis(), level, type, MDC.get("traceId"), fields);
+        long slot;
+        do {
+            slot = claimed.get();
+            if (slot - consumed.get() >= ring.length()) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } while (!claimed.compareAndSet(slot, slot + 1));
+        ring.set((int) (slot & mask), event);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("events.written", written, AtomicLong::get).register(registry);
+        FunctionCounter.builder("events.dropped", dropped, AtomicLong::get).register(registry);
+        FunctionCounter.builder("events.sampled.out", sampledOut, AtomicLong::get).register(registry);
+        Gauge.builder("events.buffered", this, log -> log.claimed.get() - log.consumed.get()).register(registry);
+    }
+
+    // --- WRITER (one thread) ---
+
+    private void writeLoop() {
+        StringBuilder line = new StringBuilder(256);
+        while (true) {
+            boolean stopping = !running;
+            int n = 0;
+            try {
+                n = drain(line);
+            } catch (IOException e) {
+                // Nowhere better to report it; keep going so the buffer does not fill up
+                System.err.println("Event log write failed: " + e);
+            }
+            if (stopping && n == 0) {
+                break; // stopped and drained
+            }
+            if (n < batchSize && !stopping) {
+                LockSupport.parkNanos(flushIntervalMs * 1_000_000);
+            }
+        }
+        try {
+            out.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private int drain(StringBuilder line) throws IOException {
+        long next = consumed.get();
+        int n = 0;
+        while (n < batchSize) {
+            int index = (int) (next & mask);
+            Event event = ring.get(index);
+            if (event == null) {
+                break; // empty, or the producer that claimed this slot has not stored its event yet
+            }
+            ring.set(index, null);
+            consumed.set(++next);
+
+            line.setLength(0);
+            format(event, line);
+            out.write(line.toString());
+            fileBytes += utf8Length(line);
+            n++;
+        }
+        if (n > 0) {
+            out.flush();
+            written.addAndGet(n);
+            if (fileBytes >= fileMaxMb * 1024 * 1024) {
+                rotate();
+            }
+        }
+        return n;
+    }
+
+    private static void format(Event event, StringBuilder line) {
+        line.append(Instant.ofEpochMilli(event.time)).append(' ').append(event.level).append(' ').append(event.type);
+        if (event.trace != null) {
+            line.append(" trace=").append(event.trace);
+        }
+        Object[] fields = event.fields;
+        for (int i = 0; i + 1 < fields.length; i += 2) {
+            line.append(' ').append(fields[i]).append('=');
+            appendValue(line, fields[i + 1]);
+        }
+        line.append('\n');
+    }
+
+    // Bytes the line takes in the file (names and values aren't always ASCII)
+    private static int utf8Length(CharSequence text) {
+        int bytes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    // Bare when it's a single word, otherwise quoted with quotes, backslashes and line breaks escaped
+    private static void appendValue(StringBuilder line, Object value) {
+        String text = String.valueOf(value);
+        boolean plain = !text.isEmpty();
+        for (int i = 0; i < text.length() && plain; i++) {
+            char c = text.charAt(i);
+            plain = c > ' ' && c != '"' && c != '=' && c != '\\';
+        }
+        if (plain) {
+            line.append(text);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                default -> line.append(c);
+            }
+        }
+        line.append('"');
+    }
+
+    private void open() throws IOException {
+        out = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        fileBytes = Files.size(file);
+    }
+
+    // events.log -> events.log.1 -> events.log.2 ... the oldest one falls off the end
+    private void rotate() throws IOException {
+        out.close();
+        for (int i = filesKept - 1; i >= 1; i--) {
+            Path older = Path.of(file + "." + i);
+            if (Files.exists(older)) {
+                Files.move(older, Path.of(file + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (filesKept > 0) {
+            Files.move(file, Path.of(file + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.delete(file);
+        }
+        open();
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.common;
+
+import java.math.BigDecimal;
+
+/**
+ * Money is a long count of paise (1/100 of a rupee) everywhere: in entities (BIGINT columns),
+ * in arithmetic, and on the wire between the services and to the pages - "price": 4550 is
+ * ₹45.50. Sums of longs don't drift the way sums of doubles do, and adding them up
+ * allocates nothing. The pages divide by 100 only to display an amount.
+ */
+public final class Money {
+
+    private Money() { }
+
+    public static long ofRupees(long rupees) {
+        return Math.multiplyExact(rupees, 100);
+    }
+
+    // Overflow throws instead of wrapping round to a negative amount
+    public static long times(long paise, int quantity) {
+        return Math.multiplyExact(paise, (long) quantity);
+    }
+
+    // 4550 -> "45.50", for text meant for people (the CSV export)
+    public static String format(long paise) {
+        return BigDecimal.valueOf(paise, 2).toPlainString();
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.common;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * One-off move of the money columns from double rupees to BIGINT paise (see Money).
+ *
+ * ddl-auto=update adds the new *_paise columns (with a default of 0, so it works on tables
+ * that already have rows). This then copies each old value across, rounded to the nearest
+ * paisa, and drops the old column - its NOT NULL would otherwise break every new insert.
+ * Once the old columns are gone there is nothing left to do; fresh databases never had them.
+ *
+ * Each service lists its own columns in a subclass, which is the @Component and has to be
+ * @DependsOn("entityManagerFactory") so the new columns exist before it runs.
+ */
+public abstract class MoneyColumnsMigration {
+
+    // { table, old rupee column, new paise column }
+    private final String[][] columns;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    protected MoneyColumnsMigration(String[][] columns) {
+        this.columns = columns;
+    }
+
+    @PostConstruct
+    void migrate() {
+        for (String[] column : columns) {
+            String table = column[0], rupees = column[1], paise = column[2];
+            if (!exists(table, rupees)) {
+                continue;
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update("update " + table + " set " + paise + " = round(" + rupees + " * 100)");
+                jdbcTemplate.execute("alter table " + table + " drop column " + rupees);
+            });
+        }
+    }
+
+    private boolean exists(String table, String column) {
+        Integer found = jdbcTemplate.queryForObject(
+                "select count(*) from information_schema.columns where lower(table_schema) = lower(current_schema) "
+                        + "and lower(table_name) = ? and lower(column_name) = ?",
+                Integer.class, table, column);
+        return found != null && found > 0;
+    }
+}
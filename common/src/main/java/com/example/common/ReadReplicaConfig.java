@@ -0,0 +1,72 @@
+package com.example.common;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas, switched on by listing their JDBC URLs in datasource.replica.urls. Without it
+ * Boot's single pool on spring.datasource.url is used as before.
+ *
+ * The DataSource JPA gets is a LazyConnectionDataSourceProxy: it takes no real connection until
+ * the first statement, by when the transaction has said whether it is read-only. Read-only
+ * transactions (readOnly = true, which includes Spring Data's find methods run on their own) get
+ * theirs from ReplicaRoutingDataSource; everything else - writes, and reads inside a write
+ * transaction - from the primary pool, which still takes the spring.datasource.hikari.* settings.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty("datasource.replica.urls")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    // Replica pools don't fail startup when a replica is down, and give up on a connection
+    // after connect-timeout-ms so a read can move on to the next replica quickly
+    @Bean(destroyMethod = "close")
+    public ReplicaRoutingDataSource replicaDataSource(HikariDataSource primaryDataSource, DataSourceProperties properties,
+                                                     ReadYourWrites readYourWrites,
+                                                     @Value("${datasource.replica.urls}") List<String> urls,
+                                                     @Value("${datasource.replica.username:}") String username,
+                                                     @Value("${datasource.replica.password:}") String password,
+                                                     @Value("${datasource.replica.pool-size:10}") int poolSize,
+                                                     @Value("${datasource.replica.connect-timeout-ms:250}") long connectTimeoutMs,
+                                                     @Value("${datasource.replica.lag-query:}") String lagQuery,
+                                                     @Value("${datasource.replica.max-lag-ms:2000}") long maxLagMs,
+                                                     @Value("${datasource.replica.check-interval-ms:2000}") long checkIntervalMs) {
+        List<HikariDataSource> pools = new ArrayList<>();
+        for (String url : urls) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("replica-" + (pools.size() + 1));
+            pool.setJdbcUrl(url.trim());
+            pool.setUsername(username.isEmpty() ? properties.determineUsername() : username);
+            pool.setPassword(username.isEmpty() ? properties.determinePassword() : password);
+            pool.setMaximumPoolSize(poolSize);
+            pool.setConnectionTimeout(connectTimeoutMs);
+            pool.setInitializationFailTimeout(-1);
+            pool.setReadOnly(true);
+            pools.add(pool);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, pools, readYourWrites, lagQuery, maxLagMs, checkIntervalMs);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(replicaDataSource.forWrites());
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+}
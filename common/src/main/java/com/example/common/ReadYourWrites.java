@@ -0,0 +1,108 @@
+package com.example.common;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-your-writes window for read replicas (see ReadReplicaConfig): after a write to the
+ * primary, the reads that follow go to the primary too for datasource.read-your-writes-ms, so a
+ * replica that is a little behind can't hand back what was there before the write.
+ *
+ * With datasource.read-your-writes.per-student=true the window is per student, and this is also
+ * a request interceptor: the student for a request is its rollNumber path variable or parameter,
+ * and endpoints that take it in the body call use(). With per-student=false (services without
+ * students) no interceptor is registered and any write pins every read in the service, including
+ * background jobs, for the window.
+ */
+@Component
+public class ReadYourWrites implements HandlerInterceptor, WebMvcConfigurer {
+
+    private static final String SERVICE_WIDE = "*";
+    private static final int MAX_TRACKED = 100_000;
+
+    @Value("${datasource.read-your-writes-ms:5000}")
+    private long windowMs;
+
+    @Value("${datasource.read-your-writes.per-student:true}")
+    private boolean perStudent;
+
+    private final ThreadLocal<String> current = new ThreadLocal<>();
+    private final Map<String, Long> writtenUntil = new ConcurrentHashMap<>();
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (perStudent) {
+            registry.addInterceptor(this);
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        @SuppressWarnings("unchecked")
+        Map<String, String> pathVariables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String rollNumber = pathVariables != null ? pathVariables.get("rollNumber") : null;
+        use(rollNumber != null ? rollNumber : request.getParameter("rollNumber"));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        current.remove();
+    }
+
+    // The student the rest of this request acts for
+    public void use(String rollNumber) {
+        if (rollNumber != null && !rollNumber.isBlank()) {
+            current.set(rollNumber);
+        }
+    }
+
+    // A connection was taken from the primary for writing
+    void wrote() {
+        wrote(current.get());
+    }
+
+    // For writes made on another thread on the student's behalf
+    public void wrote(String rollNumber) {
+        String key = perStudent ? rollNumber : SERVICE_WIDE;
+        if (key == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        writtenUntil.put(key, now + TimeUnit.MILLISECONDS.toNanos(windowMs));
+        if (writtenUntil.size() > MAX_TRACKED) {
+            writtenUntil.values().removeIf(until -> until - now <= 0);
+        }
+    }
+
+    // True while this thread's student (or the service) wrote within the window
+    boolean pinned() {
+        String key = key();
+        Long until = key == null ? null : writtenUntil.get(key);
+        if (until == null) {
+            return false;
+        }
+        if (until - System.nanoTime() > 0) {
+            return true;
+        }
+        writtenUntil.remove(key, until);
+        return false;
+    }
+
+    int tracked() {
+        return writtenUntil.size();
+    }
+
+    private String key() {
+        return perStudent ? current.get() : SERVICE_WIDE;
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.common;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Where read-only transactions get their connection (see ReadReplicaConfig): the next healthy
+ * replica, round robin, or the primary while the caller is in its read-your-writes window.
+ *
+ * A replica that can't hand out a connection is marked down and skipped, and the read moves on
+ * to the next one - or to the primary when none is left. A background check every
+ * check-interval-ms brings replicas back (or takes them out before a read has to fail), and
+ * with a lag-query also takes out a replica more than max-lag-ms behind.
+ *
+ * Metrics: db.reads{target=replica|pinned|fallback}, db.replica.up per replica.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements MeterBinder, AutoCloseable {
+
+    private static final class Replica {
+        final HikariDataSource pool;
+        final AtomicLong reads = new AtomicLong();
+        volatile boolean up = true;
+        volatile long lagMs = -1;
+        volatile String lastError;
+
+        Replica(HikariDataSource pool) {
+            this.pool = pool;
+        }
+    }
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final ReadYourWrites readYourWrites;
+    private final String lagQuery;
+    private final long maxLagMs;
+    private final ScheduledExecutorService checker;
+
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicLong pinnedReads = new AtomicLong();
+    private final AtomicLong fallbackReads = new AtomicLong();
+    private final AtomicLong failovers = new AtomicLong();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicaPools, ReadYourWrites readYourWrites,
+                                    String lagQuery, long maxLagMs, long checkIntervalMs) {
+        this.primary = primary;
+        replicaPools.forEach(pool -> replicas.add(new Replica(pool)));
+        this.readYourWrites = readYourWrites;
+        this.lagQuery = lagQuery;
+        this.maxLagMs = maxLagMs;
+        this.checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checker.scheduleWithFixedDelay(this::check, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    // The primary as write transactions see it: taking a connection opens the read-your-writes window
+    public DataSource forWrites() {
+        return new DelegatingDataSource(primary) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                readYourWrites.wrote();
+                return super.getConnection();
+            }
+        };
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (readYourWrites.pinned()) {
+            pinnedReads.incrementAndGet();
+            return primary.getConnection();
+        }
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (!replica.up) {
+                continue;
+            }
+            try {
+                Connection connection = replica.pool.getConnection();
+                replica.reads.incrementAndGet();
+                return connection;
+            } catch (SQLException e) {
+                markDown(replica, e.getMessage());
+                failovers.incrementAndGet();
+            }
+        }
+        fallbackReads.incrementAndGet();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica connections use the pool's credentials");
+    }
+
+    public void check() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.pool.getConnection()) {
+                if (!connection.isValid(1)) {
+                    markDown(replica, "connection not valid");
+                    continue;
+                }
+                if (lagQuery.isEmpty()) {
+                    replica.up = true;
+                    continue;
+                }
+                try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(lagQuery)) {
+                    replica.lagMs = rs.next() ? rs.getLong(1) : 0;
+                }
+                if (replica.lagMs > maxLagMs) {
+                    markDown(replica, "lagging " + replica.lagMs + " ms");
+                } else {
+                    replica.up = true;
+                }
+            } catch (SQLException | RuntimeException e) {
+                markDown(replica, e.getMessage());
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        List<Map<String, Object>> replicaStats = new ArrayList<>();
+        for (Replica replica : replicas) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", replica.pool.getPoolName());
+            entry.put("up", replica.up);
+            entry.put("reads", replica.reads.get());
+            entry.put("lagMs", replica.lagMs);
+            entry.put("lastError", replica.lastError);
+            replicaStats.add(entry);
+        }
+        stats.put("replicas", replicaStats);
+        stats.put("pinnedReads", pinnedReads.get());
+        stats.put("fallbackReads", fallbackReads.get());
+        stats.put("failovers", failovers.get());
+        stats.put("readYourWritesTracked", readYourWrites.tracked());
+        return stats;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Replica replica : replicas) {
+            FunctionCounter.builder("db.reads", replica.reads, AtomicLong::get)
+                    .description("Read-only transactions by where they got their connection")
+                    .tags("target", "replica", "replica", replica.pool.getPoolName())
+                    .register(registry);
+            Gauge.builder("db.replica.up", replica, r -> r.up ? 1 : 0)
+                    .tag("replica", replica.pool.getPoolName())
+                    .register(registry);
+        }
+        FunctionCounter.builder("db.reads", pinnedReads, AtomicLong::get)
+                .description("Read-only transactions by where they got their connection")
+                .tags("target", "pinned", "replica", "primary")
+                .register(registry);
+        FunctionCounter.builder("db.reads", fallbackReads, AtomicLong::get)
+                .description("Read-only transactions by where they got their connection")
+                .tags("target", "fallback", "replica", "primary")
+                .register(registry);
+    }
+
+    @Override
+    public void close() {
+        checker.shutdownNow();
+        replicas.forEach(replica -> replica.pool.close());
+    }
+
+    // Its pooled connections are likely dead too; they are replaced as the replica comes back
+    private static void markDown(Replica replica, String reason) {
+        replica.up = false;
+        replica.lastError = reason;
+        if (replica.pool.getHikariPoolMXBean() != null) {
+            replica.pool.getHikariPoolMXBean().softEvictConnections();
+        }
+    }
+}
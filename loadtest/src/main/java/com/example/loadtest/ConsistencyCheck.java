@@ -0,0 +1,184 @@
+package com.example.loadtest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.menuservice.MenuItem;
+import com.example.menuservice.MenuRepository;
+import com.example.menuservice.StockReservation;
+import com.example.menuservice.StockReservationRepository;
+import com.example.menuservice.WriteBehindInventory;
+import com.example.orderservice.FoodOrder;
+import com.example.orderservice.OrderLine;
+import com.example.orderservice.OrderRepository;
+import com.example.orderservice.OutboxRepository;
+import com.example.walletservice.StudentWallet;
+import com.example.walletservice.WalletLedger;
+import com.example.walletservice.WalletRepository;
+
+/**
+ * Compares the three databases after the rush, straight through the services' repositories.
+ *
+ * Stock: no item below zero, nothing sold beyond what was on the shelf, every unit that left
+ * the shelf is either committed or still held, and committed units match confirmed orders.
+ * Money: no wallet below zero, and each student lost exactly what their confirmed orders cost
+ * (a double charge or a missed refund shows up here). Orders still PENDING are reported too.
+ */
+final class ConsistencyCheck {
+
+	private static final int MAX_EXAMPLES = 20;
+
+	private final MenuRepository menuRepository;
+	private final StockReservationRepository reservationRepository;
+	private final WriteBehindInventory writeBehind;
+	private final WalletRepository walletRepository;
+	private final WalletLedger walletLedger;
+	private final OrderRepository orderRepository;
+	private final OutboxRepository outboxRepository;
+	private final TransactionTemplate orderTransaction;
+
+	private final Map<Long, Integer> initialStock = new HashMap<>();
+	private final Map<String, Long> initialBalance = new HashMap<>();
+	// Orders and reservations from before recordStart (the warm-up) are not part of the check
+	private long firstOrderId;
+	private long firstReservationId;
+
+	private final Map<String, Integer> violations = new TreeMap<>();
+	private final List<String> examples = new ArrayList<>();
+
+	ConsistencyCheck(ServiceCluster cluster) {
+		menuRepository = cluster.menu.getBean(MenuRepository.class);
+		reservationRepository = cluster.menu.getBean(StockReservationRepository.class);
+		writeBehind = cluster.menu.getBean(WriteBehindInventory.class);
+		walletRepository = cluster.wallet.getBean(WalletRepository.class);
+		walletLedger = cluster.wallet.getBean(WalletLedger.class);
+		orderRepository = cluster.order.getBean(OrderRepository.class);
+		outboxRepository = cluster.order.getBean(OutboxRepository.class);
+		orderTransaction = cluster.order.getBean(TransactionTemplate.class);
+	}
+
+	void recordStart() {
+		writeBehind.flush(); // with --menu.inventory.write-behind=true the rows lag the counters until flushed
+		for (MenuItem item : menuRepository.findAll()) {
+			initialStock.put(item.getId(), item.getQuantity());
+		}
+		for (StudentWallet wallet : walletRepository.findAll()) {
+			initialBalance.put(wallet.getRollNumber(), walletLedger.balance(wallet.getRollNumber()));
+		}
+		firstOrderId = orderRepository.findAll().stream().mapToLong(FoodOrder::getId).max().orElse(0) + 1;
+		firstReservationId = reservationRepository.findAll().stream().mapToLong(StockReservation::getId).max().orElse(0) + 1;
+	}
+
+	/** Outbox entries still being worked on plus reservations still HELD; 0 once everything has settled. */
+	long unsettled() {
+		long held = reservationRepository.findAll().stream().filter(r -> "HELD".equals(r.getStatus())).count();
+		return outboxRepository.countByCompletedAtIsNull() + held;
+	}
+
+	Map<String, Object> verify() {
+		Map<Long, Integer> confirmedUnits = new HashMap<>();
+		Map<String, Long> confirmedSpend = new HashMap<>();
+		long[] pending = new long[1];
+		orderTransaction.executeWithoutResult(status -> {
+			for (FoodOrder order : orderRepository.findAll()) {
+				if (order.getId() < firstOrderId) {
+					continue;
+				}
+				if ("PENDING".equals(order.getStatus())) {
+					pending[0]++;
+				}
+				if (!"CONFIRMED".equals(order.getStatus())) {
+					continue;
+				}
+				confirmedSpend.merge(order.getRollNumber(), order.getAmount(), Long::sum);
+				if (order.getLines().isEmpty()) {
+					confirmedUnits.merge(order.getItemId(), 1, Integer::sum);
+				}
+				for (OrderLine line : order.getLines()) {
+					confirmedUnits.merge(line.getItemId(), line.getQuantity(), Integer::sum);
+				}
+			}
+		});
+		if (pending[0] > 0) {
+			violation("order stuck in PENDING", pending[0] + " orders never settled");
+		}
+
+		writeBehind.flush();
+		Map<Long, Integer> committed = new HashMap<>();
+		Map<Long, Integer> held = new HashMap<>();
+		for (StockReservation reservation : reservationRepository.findAll()) {
+			if (reservation.getId() < firstReservationId) {
+				continue;
+			}
+			if ("COMMITTED".equals(reservation.getStatus())) {
+				committed.merge(reservation.getItemId(), reservation.getQuantity(), Integer::sum);
+			} else if ("HELD".equals(reservation.getStatus())) {
+				held.merge(reservation.getItemId(), reservation.getQuantity(), Integer::sum);
+			}
+		}
+
+		long unitsSold = 0;
+		for (MenuItem item : menuRepository.findAll()) {
+			long id = item.getId();
+			int before = initialStock.getOrDefault(id, 0);
+			int after = item.getQuantity();
+			int sold = confirmedUnits.getOrDefault(id, 0);
+			int taken = committed.getOrDefault(id, 0) + held.getOrDefault(id, 0);
+			unitsSold += sold;
+			if (after < 0) {
+				violation("negative stock", item.getName() + " ended at " + after);
+			}
+			if (sold > before) {
+				violation("oversold", item.getName() + ": " + sold + " confirmed but only " + before + " in stock");
+			}
+			if (before - after != taken) {
+				violation("stock leak", item.getName() + ": " + (before - after) + " units left the shelf, "
+						+ taken + " committed or held");
+			}
+			if (committed.getOrDefault(id, 0) != sold) {
+				violation("stock/order mismatch", item.getName() + ": " + committed.getOrDefault(id, 0)
+						+ " units committed, " + sold + " in confirmed orders");
+			}
+		}
+
+		long moneyTaken = 0; // paise, so every check below is exact
+		for (StudentWallet wallet : walletRepository.findAll()) {
+			Long before = initialBalance.get(wallet.getRollNumber());
+			if (before == null) {
+				continue;
+			}
+			long spent = confirmedSpend.getOrDefault(wallet.getRollNumber(), 0L);
+			long after = walletLedger.balance(wallet.getRollNumber());
+			moneyTaken += before - after;
+			if (after < 0) {
+				violation("overdrawn", wallet.getRollNumber() + " ended at " + after);
+			}
+			if (before - after != spent) {
+				violation("money mismatch", wallet.getRollNumber() + ": charged " + (before - after)
+						+ ", confirmed orders worth " + spent);
+			}
+		}
+
+		Map<String, Object> report = new LinkedHashMap<>();
+		report.put("ok", violations.isEmpty());
+		report.put("unitsSold", unitsSold);
+		report.put("moneyTaken", moneyTaken);
+		report.put("unitsStillHeld", held.values().stream().mapToInt(Integer::intValue).sum());
+		report.put("violations", violations);
+		report.put("examples", examples);
+		return report;
+	}
+
+	private void violation(String kind, String example) {
+		violations.merge(kind, 1, Integer::sum);
+		if (examples.size() < MAX_EXAMPLES) {
+			examples.add(kind + ": " + example);
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package com.example.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Every latency sample for one endpoint, kept in full so the percentiles are exact
+ * (a lunch rush is a few hundred thousand requests at most), plus a count per HTTP status.
+ * Status 0 means the request never got a response (connect error, timeout).
+ */
+final class EndpointStats {
+
+	private final String name;
+	private long[] micros = new long[1024];
+	private int count;
+	private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+	EndpointStats(String name) {
+		this.name = name;
+	}
+
+	String name() {
+		return name;
+	}
+
+	void record(long latencyNanos, int status) {
+		synchronized (this) {
+			if (count == micros.length) {
+				micros = Arrays.copyOf(micros, count * 2);
+			}
+			micros[count++] = latencyNanos / 1000;
+		}
+		statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+	}
+
+	synchronized int count() {
+		return count;
+	}
+
+	long errors() {
+		return statuses.entrySet().stream()
+				.filter(e -> e.getKey() == 0 || e.getKey() >= 400)
+				.mapToLong(e -> e.getValue().sum())
+				.sum();
+	}
+
+	/** Summary for the report; latencies in milliseconds. */
+	Map<String, Object> summarize(double elapsedSeconds) {
+		long[] sorted;
+		synchronized (this) {
+			sorted = Arrays.copyOf(micros, count);
+		}
+		Arrays.sort(sorted);
+
+		Map<String, Object> summary = new LinkedHashMap<>();
+		summary.put("count", sorted.length);
+		summary.put("errors", errors());
+		summary.put("throughputPerSecond", round(sorted.length / elapsedSeconds));
+		summary.put("p50Ms", percentile(sorted, 0.50));
+		summary.put("p99Ms", percentile(sorted, 0.99));
+		summary.put("p999Ms", percentile(sorted, 0.999));
+		summary.put("maxMs", sorted.length == 0 ? 0.0 : sorted[sorted.length - 1] / 1000.0);
+		Map<Integer, Long> byStatus = new TreeMap<>();
+		statuses.forEach((status, n) -> byStatus.put(status, n.sum()));
+		summary.put("statuses", byStatus);
+		return summary;
+	}
+
+	// Nearest-rank percentile
+	private static double percentile(long[] sorted, double p) {
+		if (sorted.length == 0) {
+			return 0.0;
+		}
+		int rank = (int) Math.ceil(p * sorted.length);
+		return sorted[Math.max(0, rank - 1)] / 1000.0;
+	}
+
+	private static double round(double value) {
+		return Math.round(value * 10) / 10.0;
+	}
+}
@@ -0,0 +1,150 @@
+package com.example.loadtest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line options, all in {@code --name=value} form. Anything that is not an option
+ * below is handed to every service as a Spring property, so e.g.
+ * {@code --order.saga.enabled=false} or {@code --order.pipeline.max-in-flight=64} work as-is:
+ *
+ *   mvn -B compile exec:exec -Dloadtest.args="--duration=120 --peak-rps=400 --order.saga.enabled=false"
+ */
+final class LoadTestOptions {
+
+	/** Registered students; each gets a random balance between {@link #minBalance} and {@link #maxBalance}. */
+	int students = 2000;
+	long minBalance = 0; // whole rupees
+	long maxBalance = 400;
+
+	/** Menu size (the five seeded items plus generated ones) and the stock every item starts with. */
+	int items = 12;
+	int stock = 150;
+
+	/** Zipf exponent for item popularity: 0 is uniform, higher concentrates orders on a few hot items. */
+	double hotItemSkew = 1.2;
+
+	/** Unrecorded traffic at the base rate first, so the JIT and connection pools are warm when measuring starts. */
+	int warmupSeconds = 10;
+
+	/** Rush shape: ramp from base to peak arrivals per second, hold, ramp back down. */
+	int durationSeconds = 60;
+	int rampSeconds = 15;
+	double baseRps = 20;
+	double peakRps = 200;
+
+	/** Requests allowed in flight at once; arrivals beyond this are counted as shed by the client. */
+	int maxInFlight = 2000;
+
+	/** Share of order attempts that are sent twice with the same Idempotency-Key (a double click). */
+	double doubleClickRate = 0.05;
+
+	/** How often a student polls an accepted order (the home page polls every second), and for how long at most. */
+	long statusPollMs = 1000;
+	long statusTimeoutSeconds = 60;
+
+	/** How long to wait after the rush for the outbox and held reservations to settle before checking. */
+	int drainSeconds = 90;
+
+	long seed = 42;
+
+	/**
+	 * Read replica pools per service. H2 can't replicate, so they are extra pools on the same
+	 * in-memory database: this exercises the routing and read-your-writes, not replica lag.
+	 */
+	int replicas = 0;
+
+	final Map<String, String> serviceProperties = new LinkedHashMap<>();
+
+	static LoadTestOptions parse(String[] args) {
+		LoadTestOptions options = new LoadTestOptions();
+		for (String arg : args) {
+			if (!arg.startsWith("--") || !arg.contains("=")) {
+				throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+			}
+			String name = arg.substring(2, arg.indexOf('='));
+			String value = arg.substring(arg.indexOf('=') + 1);
+			switch (name) {
+				case "students" -> options.students = Integer.parseInt(value);
+				case "min-balance" -> options.minBalance = Long.parseLong(value);
+				case "max-balance" -> options.maxBalance = Long.parseLong(value);
+				case "items" -> options.items = Integer.parseInt(value);
+				case "stock" -> options.stock = Integer.parseInt(value);
+				case "hot-item-skew" -> options.hotItemSkew = Double.parseDouble(value);
+				case "warmup" -> options.warmupSeconds = Integer.parseInt(value);
+				case "duration" -> options.durationSeconds = Integer.parseInt(value);
+				case "ramp" -> options.rampSeconds = Integer.parseInt(value);
+				case "base-rps" -> options.baseRps = Double.parseDouble(value);
+				case "peak-rps" -> options.peakRps = Double.parseDouble(value);
+				case "max-in-flight" -> options.maxInFlight = Integer.parseInt(value);
+				case "double-click-rate" -> options.doubleClickRate = Double.parseDouble(value);
+				case "status-poll-ms" -> options.statusPollMs = Long.parseLong(value);
+				case "status-timeout" -> options.statusTimeoutSeconds = Long.parseLong(value);
+				case "drain" -> options.drainSeconds = Integer.parseInt(value);
+				case "seed" -> options.seed = Long.parseLong(value);
+				case "replicas" -> options.replicas = Integer.parseInt(value);
+				default -> options.serviceProperties.put(name, value);
+			}
+		}
+		if (options.rampSeconds * 2 > options.durationSeconds) {
+			throw new IllegalArgumentException("--ramp must be at most half of --duration");
+		}
+		return options;
+	}
+
+	/** The same traffic mix at a flat base rate for the warm-up. */
+	LoadTestOptions warmUp() {
+		LoadTestOptions warmUp = new LoadTestOptions();
+		warmUp.hotItemSkew = hotItemSkew;
+		warmUp.durationSeconds = warmupSeconds;
+		warmUp.rampSeconds = 0;
+		warmUp.baseRps = baseRps;
+		warmUp.peakRps = baseRps;
+		warmUp.maxInFlight = maxInFlight;
+		warmUp.doubleClickRate = doubleClickRate;
+		warmUp.statusPollMs = statusPollMs;
+		warmUp.statusTimeoutSeconds = statusTimeoutSeconds;
+		return warmUp;
+	}
+
+	/** Arrivals per second at {@code t} seconds into the rush. */
+	double rateAt(double t) {
+		double shape;
+		if (t < rampSeconds) {
+			shape = t / rampSeconds;
+		} else if (t > durationSeconds - rampSeconds) {
+			shape = Math.max(0, (durationSeconds - t) / rampSeconds);
+		} else {
+			shape = 1;
+		}
+		return baseRps + (peakRps - baseRps) * shape;
+	}
+
+	List<String> serviceArgs() {
+		List<String> args = new ArrayList<>();
+		serviceProperties.forEach((name, value) -> args.add("--" + name + "=" + value));
+		return args;
+	}
+
+	Map<String, Object> describe() {
+		Map<String, Object> description = new LinkedHashMap<>();
+		description.put("students", students);
+		description.put("balance", minBalance + ".." + maxBalance);
+		description.put("items", items);
+		description.put("stockPerItem", stock);
+		description.put("hotItemSkew", hotItemSkew);
+		description.put("warmupSeconds", warmupSeconds);
+		description.put("durationSeconds", durationSeconds);
+		description.put("rampSeconds", rampSeconds);
+		description.put("baseRps", baseRps);
+		description.put("peakRps", peakRps);
+		description.put("maxInFlight", maxInFlight);
+		description.put("doubleClickRate", doubleClickRate);
+		description.put("seed", seed);
+		description.put("replicas", replicas);
+		description.put("serviceProperties", serviceProperties);
+		return description;
+	}
+}
@@ -0,0 +1,302 @@
+package com.example.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Open-loop lunch rush: student visits arrive at {@link LoadTestOptions#rateAt} per second no
+ * matter how slowly the services answer, each on its own virtual thread, so a slow system shows
+ * up as growing latency instead of quietly fewer requests. Latency is measured from the moment
+ * a visit was due, which keeps client-side queueing in the numbers.
+ *
+ * A visit is one of: browse the menu (revalidating with If-None-Match like the UI does), check
+ * the wallet, page through history, order one item, or check out a small cart. Items are picked
+ * by a Zipf distribution, so a few of them sell out early and the rest of the rush hits sold-out
+ * and low-balance paths. Accepted orders are polled on /order/{id}/status until they settle.
+ */
+final class LunchRush {
+
+	static final String MENU = "GET /menu";
+	static final String WALLET = "GET /wallet/{roll}";
+	static final String HISTORY = "GET /order/history";
+	static final String PLACE = "GET /order/place";
+	static final String CHECKOUT = "POST /order/checkout";
+	static final String STATUS = "GET /order/{id}/status";
+	// Not an endpoint: click to final answer (CONFIRMED/FAILED), whichever way the order went
+	static final String ORDER_SETTLED = "order click -> settled";
+
+	// Visit mix, out of 100
+	private static final int BROWSE = 40;
+	private static final int CHECK_WALLET = 15;
+	private static final int BROWSE_HISTORY = 15;
+	private static final int PLACE_ORDER = 25;
+
+	private final LoadTestOptions options;
+	private final String menuUrl;
+	private final String walletUrl;
+	private final String orderUrl;
+	private final List<String> students;
+	private final Map<String, String> sessionTokens;
+	private final double[] itemWeights;
+	private final List<Long> itemsByPopularity;
+
+	private final HttpClient client = HttpClient.newBuilder()
+			.connectTimeout(Duration.ofSeconds(5))
+			.build();
+	private final ObjectMapper mapper = JsonMapper.builder().build();
+	private final Map<String, EndpointStats> stats = new LinkedHashMap<>(); // fixed after the constructor
+	private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+	private final AtomicReference<String> menuEtag = new AtomicReference<>();
+	private final LongAdder shed = new LongAdder();
+	private final AtomicLong peakInFlight = new AtomicLong();
+	private final Semaphore inFlight;
+	private final ExecutorService visitors = Executors.newVirtualThreadPerTaskExecutor();
+
+	LunchRush(LoadTestOptions options, String menuUrl, String walletUrl, String orderUrl,
+			Map<String, String> sessionTokens, List<Long> itemsByPopularity) {
+		this.options = options;
+		this.menuUrl = menuUrl;
+		this.walletUrl = walletUrl;
+		this.orderUrl = orderUrl;
+		this.students = List.copyOf(sessionTokens.keySet());
+		this.sessionTokens = sessionTokens;
+		this.itemsByPopularity = itemsByPopularity;
+		this.inFlight = new Semaphore(options.maxInFlight);
+
+		// Cumulative Zipf weights: item at rank r is picked with probability ~ 1 / r^skew
+		itemWeights = new double[itemsByPopularity.size()];
+		double total = 0;
+		for (int rank = 0; rank < itemWeights.length; rank++) {
+			total += 1.0 / Math.pow(rank + 1, options.hotItemSkew);
+			itemWeights[rank] = total;
+		}
+		for (int rank = 0; rank < itemWeights.length; rank++) {
+			itemWeights[rank] /= total;
+		}
+		for (String endpoint : List.of(MENU, WALLET, HISTORY, PLACE, CHECKOUT, STATUS, ORDER_SETTLED)) {
+			stats.put(endpoint, new EndpointStats(endpoint));
+		}
+	}
+
+	/** Runs the whole rush (once) and waits for every visit to finish; returns the rush length in seconds. */
+	double run() {
+		long start = System.nanoTime();
+		long end = start + options.durationSeconds * 1_000_000_000L;
+		double due = 0;
+		long issued = 0;
+		long last = start;
+		long nextProgress = start + 5_000_000_000L;
+
+		try (visitors) {
+			long now;
+			while ((now = System.nanoTime()) < end) {
+				double t = (now - start) / 1e9;
+				due += options.rateAt(t) * (now - last) / 1e9;
+				last = now;
+				while (issued < (long) due) {
+					// Spread this tick's arrivals over the time they were actually due
+					long dueAt = now - (long) ((due - issued - 1) / options.rateAt(t) * 1e9);
+					issued++;
+					arrive(dueAt);
+				}
+				if (now >= nextProgress) {
+					System.out.printf("  t=%3.0fs  rate=%5.0f/s  visits=%d  in flight=%d%n",
+							t, options.rateAt(t), issued, options.maxInFlight - inFlight.availablePermits());
+					nextProgress += 5_000_000_000L;
+				}
+				LockSupport.parkNanos(1_000_000);
+			}
+			System.out.println("Rush over, waiting for " + (options.maxInFlight - inFlight.availablePermits())
+					+ " visits still in flight...");
+		}
+		return (end - start) / 1e9;
+	}
+
+	private void arrive(long dueAt) {
+		if (!inFlight.tryAcquire()) {
+			shed.increment();
+			return;
+		}
+		peakInFlight.accumulateAndGet(options.maxInFlight - inFlight.availablePermits(), Math::max);
+		visitors.execute(() -> {
+			try {
+				visit(dueAt);
+			} catch (RuntimeException e) {
+				outcome("client error: " + e.getClass().getSimpleName());
+			} finally {
+				inFlight.release();
+			}
+		});
+	}
+
+	private void visit(long dueAt) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		String roll = students.get(random.nextInt(students.size()));
+		int dice = random.nextInt(100);
+		if (dice < BROWSE) {
+			browseMenu(dueAt);
+		} else if (dice < BROWSE + CHECK_WALLET) {
+			send(WALLET, get(walletUrl + "/wallet/" + roll).build(), dueAt);
+		} else if (dice < BROWSE + CHECK_WALLET + BROWSE_HISTORY) {
+			send(HISTORY, loggedIn(roll, get(orderUrl + "/order/history")).build(), dueAt);
+		} else if (dice < BROWSE + CHECK_WALLET + BROWSE_HISTORY + PLACE_ORDER) {
+			order(PLACE, loggedIn(roll, get(orderUrl + "/order/place?itemId=" + pickItem(random))), dueAt);
+		} else {
+			order(CHECKOUT, checkout(roll, random), dueAt);
+		}
+	}
+
+	private void browseMenu(long dueAt) {
+		HttpRequest.Builder request = get(menuUrl + "/menu");
+		String etag = menuEtag.get();
+		if (etag != null) {
+			request.header("If-None-Match", etag);
+		}
+		HttpResponse<String> response = send(MENU, request.build(), dueAt);
+		if (response != null && response.statusCode() == 200) {
+			response.headers().firstValue("ETag").ifPresent(menuEtag::set);
+		}
+	}
+
+	private HttpRequest.Builder checkout(String roll, ThreadLocalRandom random) {
+		Map<Long, Integer> cart = new LinkedHashMap<>();
+		int lines = 2 + random.nextInt(2);
+		for (int i = 0; i < lines; i++) {
+			cart.merge(pickItem(random), 1 + random.nextInt(2), Integer::sum);
+		}
+		List<Map<String, Object>> items = new ArrayList<>();
+		cart.forEach((itemId, qty) -> items.add(Map.of("itemId", itemId, "qty", qty)));
+		String body = mapper.writeValueAsString(Map.of("items", items));
+		return loggedIn(roll, HttpRequest.newBuilder(URI.create(orderUrl + "/order/checkout")))
+				.timeout(Duration.ofSeconds(30))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(body));
+	}
+
+	// Order-service takes the student from the session token, like the pages do
+	private HttpRequest.Builder loggedIn(String roll, HttpRequest.Builder request) {
+		return request.header("Authorization", "Bearer " + sessionTokens.get(roll));
+	}
+
+	// Places the order (sometimes twice, like a double click) and follows it until it settles
+	private void order(String endpoint, HttpRequest.Builder builder, long dueAt) {
+		HttpRequest request = builder.header("Idempotency-Key", UUID.randomUUID().toString()).build();
+		if (ThreadLocalRandom.current().nextDouble() < options.doubleClickRate) {
+			long clickedAt = System.nanoTime();
+			visitors.execute(() -> send(endpoint, request, clickedAt));
+		}
+
+		HttpResponse<String> response = send(endpoint, request, dueAt);
+		if (response == null) {
+			outcome("no response");
+		} else if (response.statusCode() == 202) {
+			String location = response.headers().firstValue("Location").orElseThrow();
+			awaitSettled(orderUrl + location, dueAt);
+		} else if (response.statusCode() == 200 && response.body().startsWith("Order Placed")) {
+			settled(dueAt, "CONFIRMED");
+		} else if (response.statusCode() == 200) {
+			settled(dueAt, "FAILED: " + response.body().replaceFirst("^Order Failed: ", ""));
+		} else {
+			outcome("HTTP " + response.statusCode());
+		}
+	}
+
+	private void awaitSettled(String statusUrl, long dueAt) {
+		long deadline = System.nanoTime() + options.statusTimeoutSeconds * 1_000_000_000L;
+		while (System.nanoTime() < deadline) {
+			LockSupport.parkNanos(options.statusPollMs * 1_000_000);
+			HttpResponse<String> response = send(STATUS, get(statusUrl).build(), System.nanoTime());
+			if (response == null || response.statusCode() != 200) {
+				continue;
+			}
+			Map<?, ?> status = mapper.readValue(response.body(), Map.class);
+			if ("CONFIRMED".equals(status.get("status"))) {
+				settled(dueAt, "CONFIRMED");
+				return;
+			}
+			if ("FAILED".equals(status.get("status"))) {
+				settled(dueAt, "FAILED: " + status.get("failureReason"));
+				return;
+			}
+		}
+		outcome("still PENDING after " + options.statusTimeoutSeconds + "s");
+	}
+
+	private void settled(long dueAt, String outcome) {
+		stats.get(ORDER_SETTLED).record(System.nanoTime() - dueAt, 200);
+		outcome(outcome);
+	}
+
+	private HttpResponse<String> send(String endpoint, HttpRequest request, long startNanos) {
+		try {
+			HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+			stats.get(endpoint).record(System.nanoTime() - startNanos, response.statusCode());
+			return response;
+		} catch (IOException e) {
+			stats.get(endpoint).record(System.nanoTime() - startNanos, 0);
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+	}
+
+	private static HttpRequest.Builder get(String url) {
+		return HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(30)).GET();
+	}
+
+	private long pickItem(ThreadLocalRandom random) {
+		double u = random.nextDouble();
+		for (int rank = 0; rank < itemWeights.length; rank++) {
+			if (u < itemWeights[rank]) {
+				return itemsByPopularity.get(rank);
+			}
+		}
+		return itemsByPopularity.get(itemWeights.length - 1);
+	}
+
+	private void outcome(String name) {
+		outcomes.computeIfAbsent(name, n -> new LongAdder()).increment();
+	}
+
+	Map<String, Object> endpointReport(double elapsedSeconds) {
+		Map<String, Object> report = new LinkedHashMap<>();
+		stats.forEach((endpoint, s) -> report.put(endpoint, s.summarize(elapsedSeconds)));
+		return report;
+	}
+
+	Map<String, Long> orderOutcomes() {
+		Map<String, Long> report = new TreeMap<>();
+		outcomes.forEach((name, n) -> report.put(name, n.sum()));
+		return report;
+	}
+
+	Map<String, Object> clientReport() {
+		Map<String, Object> report = new LinkedHashMap<>();
+		report.put("shedByClient", shed.sum());
+		report.put("peakInFlight", peakInFlight.get());
+		return report;
+	}
+}
@@ -0,0 +1,206 @@
+package com.example.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.SerializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import com.example.common.Money;
+import com.example.menuservice.MenuItem;
+import com.example.menuservice.MenuRepository;
+import com.example.walletservice.SessionTokenIssuer;
+import com.example.walletservice.StudentWallet;
+import com.example.walletservice.WalletRepository;
+
+/**
+ * Boots the services, seeds a canteen, warms up, restocks, replays a lunch rush, waits for the
+ * order saga and held reservations to settle, then prints per-endpoint latency and a consistency
+ * check and writes both to -Dloadtest.report as JSON. Exits with status 1 if stock or money went wrong.
+ *
+ * See the loadtest pom for how to run it and LoadTestOptions for the knobs.
+ */
+public class LunchRushLoadTest {
+
+	public static void main(String[] args) throws Exception {
+		LoadTestOptions options = LoadTestOptions.parse(args);
+		Path root = Path.of(System.getProperty("loadtest.root", ".."));
+		Path reportFile = Path.of(System.getProperty("loadtest.report", "target/loadtest-report.json"));
+		ObjectMapper mapper = JsonMapper.builder().enable(SerializationFeature.INDENT_OUTPUT).build();
+
+		boolean ok;
+		try (ServiceCluster cluster = new ServiceCluster(root, options.serviceArgs(), options.replicas)) {
+			cluster.start();
+			String menuUrl = cluster.baseUrl(cluster.menu);
+			String orderUrl = cluster.baseUrl(cluster.order);
+
+			String walletUrl = cluster.baseUrl(cluster.wallet);
+
+			HttpClient http = HttpClient.newHttpClient();
+			List<Long> items = seedMenu(cluster, http, mapper, menuUrl, options);
+			Map<String, String> students = seedStudents(cluster, options);
+			System.out.printf("Seeded %d students and %d items%n", students.size(), items.size());
+			ConsistencyCheck check = new ConsistencyCheck(cluster);
+
+			if (options.warmupSeconds > 0) {
+				System.out.printf("Warm-up: %ds at %.0f visits/s (not recorded)%n", options.warmupSeconds, options.baseRps);
+				new LunchRush(options.warmUp(), menuUrl, walletUrl, orderUrl, students, items).run();
+				awaitSettled(check, options);
+			}
+			restock(http, menuUrl, items, options);
+			check.recordStart();
+
+			System.out.printf("Lunch rush: %ds, %.0f -> %.0f visits/s, %d in stock per item%n",
+					options.durationSeconds, options.baseRps, options.peakRps, options.stock);
+			LunchRush rush = new LunchRush(options, menuUrl, walletUrl, orderUrl, students, items);
+			double elapsed = rush.run();
+			awaitSettled(check, options);
+
+			Map<String, Object> report = new LinkedHashMap<>();
+			report.put("options", options.describe());
+			report.put("elapsedSeconds", elapsed);
+			report.put("endpoints", rush.endpointReport(elapsed));
+			report.put("orderOutcomes", rush.orderOutcomes());
+			report.put("client", rush.clientReport());
+			report.put("saga", getJson(http, mapper, orderUrl + "/order/saga-stats"));
+			report.put("idempotency", getJson(http, mapper, orderUrl + "/order/idempotency-stats"));
+			if (options.replicas > 0) {
+				Map<String, Object> replicas = new LinkedHashMap<>();
+				replicas.put("wallet", getJson(http, mapper, walletUrl + "/wallet/db-stats"));
+				replicas.put("order", getJson(http, mapper, orderUrl + "/order/db-stats"));
+				report.put("replicas", replicas);
+			}
+			Map<String, Object> consistency = check.verify();
+			report.put("consistency", consistency);
+			ok = (Boolean) consistency.get("ok");
+
+			print(report);
+			Files.createDirectories(reportFile.toAbsolutePath().getParent());
+			mapper.writeValue(reportFile.toFile(), report);
+			System.out.println("Report written to " + reportFile.toAbsolutePath());
+		}
+		System.exit(ok ? 0 : 1);
+	}
+
+	private static void awaitSettled(ConsistencyCheck check, LoadTestOptions options) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + options.drainSeconds * 1000L;
+		long unsettled;
+		while ((unsettled = check.unsettled()) > 0 && System.currentTimeMillis() < deadline) {
+			System.out.println("Waiting for " + unsettled + " outbox entries / held reservations to settle...");
+			Thread.sleep(2000);
+		}
+	}
+
+	// The seeded menu plus generated dishes up to --items, returned in a random popularity order
+	private static List<Long> seedMenu(ServiceCluster cluster, HttpClient http, ObjectMapper mapper,
+			String menuUrl, LoadTestOptions options) throws IOException, InterruptedException {
+		MenuRepository menuRepository = cluster.menu.getBean(MenuRepository.class);
+		for (int i = (int) menuRepository.count() + 1; i <= options.items; i++) {
+			Map<String, Object> dish = new LinkedHashMap<>();
+			dish.put("name", "Special " + i);
+			dish.put("category", i % 2 == 0 ? "Meals" : "Snacks");
+			dish.put("price", Money.ofRupees(20 + (i % 8) * 10));
+			dish.put("isAvailable", true); // POST /menu binds through MenuItem's constructor
+			dish.put("imageUrl", "");
+			dish.put("type", i % 3 == 0 ? "Non-Veg" : "Veg");
+			dish.put("quantity", options.stock);
+			post(http, menuUrl + "/menu", mapper.writeValueAsString(dish));
+		}
+
+		List<Long> ids = new ArrayList<>();
+		for (MenuItem item : menuRepository.findAll()) {
+			ids.add(item.getId());
+		}
+		Collections.shuffle(ids, new Random(options.seed));
+		return ids;
+	}
+
+	// Every item back to --stock through the menu API, so the menu cache and live feed see it
+	private static void restock(HttpClient http, String menuUrl, List<Long> items, LoadTestOptions options)
+			throws IOException, InterruptedException {
+		for (Long id : items) {
+			post(http, menuUrl + "/menu/updateStock/" + id + "/" + options.stock, "");
+		}
+	}
+
+	// Balances are spread over --min-balance..--max-balance in steps of 5, so some students
+	// can afford a whole cart and some cannot even buy a chai. Returns each student's session
+	// token, issued directly rather than through a (deliberately slow) password login each
+	private static Map<String, String> seedStudents(ServiceCluster cluster, LoadTestOptions options) {
+		Random random = new Random(options.seed);
+		List<StudentWallet> wallets = new ArrayList<>();
+		int steps = (int) ((options.maxBalance - options.minBalance) / 5);
+		for (int i = 1; i <= options.students; i++) {
+			long balance = Money.ofRupees(options.minBalance + 5 * random.nextInt(steps + 1));
+			wallets.add(new StudentWallet("Load Student " + i, "LT" + i, balance, "1234"));
+		}
+		cluster.wallet.getBean(WalletRepository.class).saveAll(wallets);
+
+		SessionTokenIssuer issuer = cluster.wallet.getBean(SessionTokenIssuer.class);
+		Map<String, String> tokens = new LinkedHashMap<>();
+		for (StudentWallet wallet : wallets) {
+			tokens.put(wallet.getRollNumber(), (String) issuer.issue(wallet).get("token"));
+		}
+		return tokens;
+	}
+
+	private static void post(HttpClient http, String url, String json) throws IOException, InterruptedException {
+		HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(json))
+				.build();
+		HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+		if (response.statusCode() != 200) {
+			throw new IllegalStateException("POST " + url + " failed: " + response.statusCode() + " " + response.body());
+		}
+	}
+
+	private static Object getJson(HttpClient http, ObjectMapper mapper, String url) throws IOException, InterruptedException {
+		HttpRequest request = HttpRequest.newBuilder(URI.create(url)).GET().build();
+		return mapper.readValue(http.send(request, HttpResponse.BodyHandlers.ofString()).body(), Map.class);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void print(Map<String, Object> report) {
+		System.out.println();
+		System.out.printf("%-26s %8s %7s %8s %9s %9s %9s %9s%n",
+				"endpoint", "count", "errors", "per sec", "p50 ms", "p99 ms", "p999 ms", "max ms");
+		((Map<String, Map<String, Object>>) report.get("endpoints")).forEach((endpoint, s) ->
+				System.out.printf("%-26s %8d %7d %8.1f %9.1f %9.1f %9.1f %9.1f%n", endpoint,
+						s.get("count"), s.get("errors"), s.get("throughputPerSecond"),
+						s.get("p50Ms"), s.get("p99Ms"), s.get("p999Ms"), s.get("maxMs")));
+
+		System.out.println();
+		System.out.println("Order outcomes:");
+		((Map<String, Long>) report.get("orderOutcomes")).forEach((outcome, n) ->
+				System.out.printf("  %7d  %s%n", n, outcome));
+		System.out.println("Client: " + report.get("client"));
+		System.out.println("Saga:   " + report.get("saga"));
+		if (report.containsKey("replicas")) {
+			System.out.println("Replicas: " + report.get("replicas"));
+		}
+
+		Map<String, Object> consistency = (Map<String, Object>) report.get("consistency");
+		System.out.println();
+		System.out.printf("Sold %s units for %s; %s units still held%n",
+				consistency.get("unitsSold"), Money.format((Long) consistency.get("moneyTaken")), consistency.get("unitsStillHeld"));
+		if ((Boolean) consistency.get("ok")) {
+			System.out.println("✅ No oversell, no overdraw, every charge matches a confirmed order");
+		} else {
+			System.out.println("❌ Consistency violations: " + consistency.get("violations"));
+			((List<String>) consistency.get("examples")).forEach(example -> System.out.println("   " + example));
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package com.example.loadtest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.menuservice.MenuServiceApplication;
+import com.example.notificationservice.NotificationServiceApplication;
+import com.example.orderservice.OrderServiceApplication;
+import com.example.walletservice.WalletServiceApplication;
+
+/**
+ * The four services as separate Spring contexts in this JVM, talking to each other over
+ * localhost HTTP exactly as they do in production.
+ *
+ * Each context reads its own module's application.properties, then gets a random port and a
+ * private in-memory H2 database on top. Order service is started last, pointed at the ports
+ * the other three actually got.
+ */
+final class ServiceCluster implements AutoCloseable {
+
+	private final Path root;
+	private final List<String> extraArgs;
+	private final int replicas;
+	// Wallet signs session tokens with this and order checks them with it
+	private final String tokenSecret = UUID.randomUUID().toString();
+	private final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+
+	ConfigurableApplicationContext menu;
+	ConfigurableApplicationContext wallet;
+	ConfigurableApplicationContext notification;
+	ConfigurableApplicationContext order;
+
+	ServiceCluster(Path root, List<String> extraArgs, int replicas) {
+		this.root = root;
+		this.extraArgs = extraArgs;
+		this.replicas = replicas;
+	}
+
+	void start() {
+		// A fresh write-ahead directory per run: the in-memory database starts empty every time
+		menu = boot(MenuServiceApplication.class, "menu-service",
+				"--menu.inventory.wal-dir=target/inventory-wal/" + System.currentTimeMillis());
+		wallet = boot(WalletServiceApplication.class, "wallet-service");
+		notification = boot(NotificationServiceApplication.class, "notification-service");
+		order = boot(OrderServiceApplication.class, "order-service",
+				"--downstream.services.menu.url=" + baseUrl(menu),
+				"--downstream.services.wallet.url=" + baseUrl(wallet),
+				"--downstream.services.notification.url=" + baseUrl(notification));
+	}
+
+	String baseUrl(ConfigurableApplicationContext context) {
+		return "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+	}
+
+	private ConfigurableApplicationContext boot(Class<?> application, String module, String... moduleArgs) {
+		Path properties = root.resolve(module).resolve("src/main/resources/application.properties");
+		if (!Files.exists(properties)) {
+			throw new IllegalStateException("Cannot find " + properties + " (set -Dloadtest.root to the repository root)");
+		}
+		String database = module.replace("-service", "").replace('-', '_');
+
+		// Command line arguments beat application.properties, so these replace the Postgres settings
+		List<String> args = new ArrayList<>();
+		args.add("--spring.config.location=file:" + properties.toAbsolutePath());
+		args.add("--server.port=0");
+		args.add("--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1");
+		if (replicas > 0) {
+			args.add("--datasource.replica.urls=" + String.join(",",
+					Collections.nCopies(replicas, "jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1")));
+		}
+		args.add("--spring.datasource.username=sa");
+		args.add("--spring.datasource.password=");
+		args.add("--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect");
+		args.add("--spring.jpa.show-sql=false");
+		args.add("--spring.main.banner-mode=off");
+		args.add("--logging.level.root=WARN");
+		args.add("--logging.level.org.hibernate.orm.deprecation=ERROR");
+		args.add("--events.dir=target/events");
+		args.add("--auth.token.secret=" + tokenSecret);
+		args.addAll(List.of(moduleArgs));
+		args.addAll(extraArgs);
+
+		long start = System.nanoTime();
+		ConfigurableApplicationContext context = new SpringApplicationBuilder(application).run(args.toArray(String[]::new));
+		contexts.add(context);
+		System.out.printf("Started %s on %s in %d ms%n", module, baseUrl(context), (System.nanoTime() - start) / 1_000_000);
+		return context;
+	}
+
+	@Override
+	public void close() {
+		// Order service first so it stops calling the others while they shut down
+		for (int i = contexts.size() - 1; i >= 0; i--) {
+			contexts.get(i).close();
+		}
+	}
+}
@@ -1,34 +1,40 @@
 package com.example.menuservice;
 
+import com.example.common.EventLog;
+import com.example.common.Money;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Component
 public class DataLoader {
 
     @Bean
-    CommandLineRunner loadData(MenuRepository repository) {
-        return args -> {
+    CommandLineRunner loadData(MenuRepository repository, MenuSnapshotCache menuCache, EventLog eventLog,
+                               TransactionTemplate transactionTemplate) {
+        // One write transaction, so the emptiness check is made on the primary and not a replica
+        return args -> transactionTemplate.executeWithoutResult(status -> {
             // 1. UNCOMMENT THIS LINE FOR ONE RUN (To wipe old broken data)
 //            repository.deleteAll(); 
 
             // 2. CHECK: Only load if empty (After delete, it will be empty)
             if (repository.count() == 0) {
                 
-            	repository.save(new MenuItem("Veg Burger", "Snacks", 50.00, true, "https://placehold.co/600x400/orange/white?text=Veg+Burger", "Veg", 50));
-                repository.save(new MenuItem("Chicken Roll", "Snacks", 80.00, true, "https://placehold.co/600x400/red/white?text=Chicken+Roll", "Non-Veg", 50));
-                repository.save(new MenuItem("Masala Chai", "Drinks", 15.00, true, "https://placehold.co/600x400/brown/white?text=Masala+Chai", "Veg", 100));
-                repository.save(new MenuItem("Cold Coffee", "Drinks", 60.00, true, "https://placehold.co/600x400/black/white?text=Cold+Coffee", "Veg", 100));
+            	repository.save(new MenuItem("Veg Burger", "Snacks", Money.ofRupees(50), true, "https://placehold.co/600x400/orange/white?text=Veg+Burger", "Veg", 50));
+                repository.save(new MenuItem("Chicken Roll", "Snacks", Money.ofRupees(80), true, "https://placehold.co/600x400/red/white?text=Chicken+Roll", "Non-Veg", 50));
+                repository.save(new MenuItem("Masala Chai", "Drinks", Money.ofRupees(15), true, "https://placehold.co/600x400/brown/white?text=Masala+Chai", "Veg", 100));
+                repository.save(new MenuItem("Cold Coffee", "Drinks", Money.ofRupees(60), true, "https://placehold.co/600x400/black/white?text=Cold+Coffee", "Veg", 100));
                 
                 // This one has 0 Quantity -> Sold Out
-                repository.save(new MenuItem("Chicken Momos", "Snacks", 100.00, false, "https://placehold.co/600x400/grey/white?text=Momos", "Non-Veg", 0));
+                repository.save(new MenuItem("Chicken Momos", "Snacks", Money.ofRupees(100), false, "https://placehold.co/600x400/grey/white?text=Momos", "Non-Veg", 0));
                 
-                System.out.println("--- MENU DB RESET: Data Loaded Successfully ---");
+                menuCache.invalidate();
+                eventLog.info("menu.seeded", "items", repository.count());
             }
             else {
-            	System.out.println("--- MENU DB: Data Loaded Successfully ---");
+            	eventLog.info("menu.loaded", "items", repository.count());
             }
-        };
+        });
     }
 }
\ No newline at end of file
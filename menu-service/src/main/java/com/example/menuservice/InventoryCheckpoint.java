@@ -0,0 +1,27 @@
+package com.example.menuservice;
+
+import jakarta.persistence.*;
+
+// The last write-ahead batch whose stock changes are in menu_items (see WriteBehindInventory)
+@Entity
+@Table(name = "inventory_checkpoints")
+public class InventoryCheckpoint {
+
+    @Id
+    private String name;
+
+    private long lastBatch;
+
+    // --- CONSTRUCTORS ---
+    public InventoryCheckpoint() { }
+
+    public InventoryCheckpoint(String name) {
+        this.name = name;
+    }
+
+    // --- GETTERS & SETTERS ---
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public long getLastBatch() { return lastBatch; }
+    public void setLastBatch(long lastBatch) { this.lastBatch = lastBatch; }
+}
@@ -0,0 +1,8 @@
+package com.example.menuservice;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface InventoryCheckpointRepository extends JpaRepository<InventoryCheckpoint, String> {
+}
@@ -0,0 +1,184 @@
+package com.example.menuservice;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reserve / commit / release flow for menu stock.
+ *
+ * A reservation takes stock out of the item straight away with a single conditional
+ * UPDATE, so two concurrent orders can never both get the last unit. The caller then
+ * commits it once the order is paid for, or releases it if anything went wrong (even after
+ * the commit, if the order could not be completed).
+ * Reservations that are neither committed nor released before their TTL are swept
+ * back into stock by {@link #releaseExpired()}.
+ *
+ * Items held by {@link WriteBehindInventory} skip the UPDATE: their stock is taken from and
+ * given back to the in-memory counter instead.
+ */
+@Service
+public class InventoryService {
+
+    @Autowired
+    private MenuRepository menuRepository;
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @Autowired
+    private MenuSnapshotCache menuCache;
+
+    @Autowired
+    private WriteBehindInventory writeBehind;
+
+    @Value("${menu.reservation.ttl-seconds:30}")
+    private long defaultTtlSeconds;
+
+    // 1. Reserve N units (all or nothing)
+    @Transactional
+    public StockReservation reserve(Long itemId, int qty, Long ttlSeconds) {
+        if (qty <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Quantity must be positive");
+        }
+
+        if (!takeStock(itemId, qty)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Item is SOLD OUT!");
+        }
+
+        MenuItem item = menuRepository.findById(itemId).orElseThrow();
+        long ttl = (ttlSeconds != null && ttlSeconds > 0) ? ttlSeconds : defaultTtlSeconds;
+        return reservationRepository.save(new StockReservation(item, qty, ttl));
+    }
+
+    // 1b. Reserve several items together (a cart): either every line is reserved or none are
+    @Transactional
+    public List<StockReservation> reserveAll(List<ReservationLine> lines, Long ttlSeconds) {
+        if (lines == null || lines.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Nothing to reserve");
+        }
+
+        // Merge duplicate items and lock rows in id order so two carts can't deadlock each other
+        Map<Long, Integer> qtyByItem = new TreeMap<>();
+        for (ReservationLine line : lines) {
+            if (line.getItemId() == null || line.getQty() <= 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cart line");
+            }
+            qtyByItem.merge(line.getItemId(), line.getQty(), Integer::sum);
+        }
+
+        for (Map.Entry<Long, Integer> entry : qtyByItem.entrySet()) {
+            // Throwing rolls back the lines that were already taken
+            if (!takeStock(entry.getKey(), entry.getValue())) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Item " + entry.getKey() + " is SOLD OUT!");
+            }
+        }
+
+        long ttl = (ttlSeconds != null && ttlSeconds > 0) ? ttlSeconds : defaultTtlSeconds;
+        List<StockReservation> reservations = new ArrayList<>();
+        for (MenuItem item : menuRepository.findAllById(qtyByItem.keySet())) {
+            reservations.add(new StockReservation(item, qtyByItem.get(item.getId()), ttl));
+        }
+        return reservationRepository.saveAll(reservations);
+    }
+
+    // 2. Commit: the stock is now permanently sold
+    @Transactional
+    public StockReservation commit(Long reservationId) {
+        StockReservation reservation = findReservation(reservationId);
+
+        if (reservationRepository.transitionFromHeld(reservationId, "COMMITTED") == 0
+                && !"COMMITTED".equals(reservation.getStatus())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Reservation " + reservationId + " is no longer held");
+        }
+        reservation.setStatus("COMMITTED");
+        return reservation;
+    }
+
+    // 3. Release: give the stock back (safe to call more than once). Also undoes a commit, for an
+    // order that failed after its stock was committed (e.g. the order row could not be saved).
+    @Transactional
+    public StockReservation release(Long reservationId) {
+        StockReservation reservation = findReservation(reservationId);
+
+        if (reservationRepository.transitionFromHeld(reservationId, "RELEASED") == 1
+                || reservationRepository.releaseCommitted(reservationId) == 1) {
+            returnStock(reservation.getItemId(), reservation.getQuantity());
+            reservation.setStatus("RELEASED");
+        }
+        return reservation;
+    }
+
+    // 3b. Batch versions of commit/release for cart orders
+    @Transactional
+    public List<StockReservation> commitAll(List<Long> reservationIds) {
+        List<StockReservation> result = new ArrayList<>();
+        for (Long id : reservationIds) {
+            result.add(commit(id));
+        }
+        return result;
+    }
+
+    @Transactional
+    public List<StockReservation> releaseAll(List<Long> reservationIds) {
+        List<StockReservation> result = new ArrayList<>();
+        for (Long id : reservationIds) {
+            result.add(release(id));
+        }
+        return result;
+    }
+
+    // 4. Background sweep for orders that died between reserve and commit
+    @Scheduled(fixedDelayString = "${menu.reservation.sweep-interval-ms:5000}")
+    @Transactional
+    public void releaseExpired() {
+        List<StockReservation> expired =
+                reservationRepository.findTop200ByStatusAndExpiresAtBefore("HELD", LocalDateTime.now());
+
+        for (StockReservation reservation : expired) {
+            if (reservationRepository.transitionFromHeld(reservation.getId(), "EXPIRED") == 1) {
+                returnStock(reservation.getItemId(), reservation.getQuantity());
+            }
+        }
+    }
+
+    // false when there isn't enough left; 404 if the item doesn't exist
+    private boolean takeStock(Long itemId, int qty) {
+        if (writeBehind.manages(itemId)) {
+            return writeBehind.take(itemId, qty);
+        }
+        if (menuRepository.decrementStock(itemId, qty) == 0) {
+            if (!menuRepository.existsById(itemId)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Item not found with id: " + itemId);
+            }
+            return false;
+        }
+        menuCache.invalidate(itemId);
+        return true;
+    }
+
+    private void returnStock(Long itemId, int qty) {
+        if (writeBehind.manages(itemId)) {
+            writeBehind.giveBack(itemId, qty);
+            return;
+        }
+        menuRepository.incrementStock(itemId, qty);
+        menuCache.invalidate(itemId);
+    }
+
+    private StockReservation findReservation(Long reservationId) {
+        return reservationRepository.findById(reservationId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Reservation not found with id: " + reservationId));
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.menuservice;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * The write-ahead file behind {@link WriteBehindInventory}: one 12-byte record (item id,
+ * signed quantity change) per stock change, appended before the change is acknowledged.
+ *
+ * Records go to inventory-&lt;batch&gt;.wal. rotate() closes the current file and starts the next
+ * batch; a closed file is deleted once its changes are in the database. Each append is a
+ * plain write(), so it survives the process dying; a file is only forced to disk when it is
+ * rotated, so a power cut can lose at most one flush interval of changes.
+ */
+public class InventoryWal {
+
+    private static final int RECORD_BYTES = Long.BYTES + Integer.BYTES;
+    private static final String PREFIX = "inventory-";
+    private static final String SUFFIX = ".wal";
+
+    private final Path directory;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+    private FileChannel channel;
+    private Path file;
+    private long batch;
+    private long records;
+
+    public InventoryWal(Path directory, long firstBatch) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        open(firstBatch);
+    }
+
+    public synchronized void append(long itemId, int delta) {
+        record.clear();
+        record.putLong(itemId).putInt(delta).flip();
+        try {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        records++;
+    }
+
+    // Closes the current batch and starts the next one; does nothing while the current one is empty
+    public synchronized void rotate() throws IOException {
+        if (records == 0) {
+            return;
+        }
+        channel.force(false);
+        channel.close();
+        open(batch + 1);
+    }
+
+    public synchronized long unflushedRecords() {
+        return records;
+    }
+
+    public synchronized long currentBatch() {
+        return batch;
+    }
+
+    public synchronized void close() throws IOException {
+        channel.force(false);
+        channel.close();
+        if (records == 0) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // Batches that are no longer being written to, oldest first
+    public synchronized List<Path> closedFiles() throws IOException {
+        List<Path> closed = new ArrayList<>();
+        for (Path existing : list(directory)) {
+            if (!existing.equals(file)) {
+                closed.add(existing);
+            }
+        }
+        return closed;
+    }
+
+    private void open(long newBatch) throws IOException {
+        batch = newBatch;
+        records = 0;
+        file = directory.resolve(PREFIX + newBatch + SUFFIX);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    // Every batch file in the directory, oldest first
+    public static List<Path> list(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.getFileName().toString().startsWith(PREFIX) && p.getFileName().toString().endsWith(SUFFIX))
+                    .sorted(Comparator.comparingLong(InventoryWal::batchOf))
+                    .toList();
+        }
+    }
+
+    public static long batchOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    // Net change per item; a record cut short by a crash mid-write is ignored (it was never acknowledged)
+    public static Map<Long, Integer> read(Path file) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+        Map<Long, Integer> deltas = new TreeMap<>();
+        while (bytes.remaining() >= RECORD_BYTES) {
+            deltas.merge(bytes.getLong(), bytes.getInt(), Integer::sum);
+        }
+        return deltas;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.menuservice;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Server-Sent Events feed behind GET /menu/stream.
+ *
+ * A new subscriber first gets one "snapshot" event (the full menu and its version), then a
+ * "stock" event with (itemId, quantity, available, version) deltas after every committed stock
+ * change. Clients drop any delta whose version is not newer than what they already have.
+ * Everything is sent from a single thread, so events go out in version order and a slow
+ * client never holds up an order request.
+ */
+@Component
+public class MenuChangeFeed {
+
+    @Autowired
+    private MenuRepository menuRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+
+    private final ExecutorService sender = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "menu-feed");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public SseEmitter subscribe(Supplier<MenuSnapshotCache.Snapshot> snapshots) {
+        SseEmitter emitter = new SseEmitter(0L); // no timeout, heartbeats keep the connection alive
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(e -> subscribers.remove(emitter));
+        subscribers.add(emitter);
+
+        // Taken on the sender thread, so every delta queued before it is already part of the snapshot
+        sender.execute(() -> {
+            MenuSnapshotCache.Snapshot snapshot = snapshots.get();
+            String data = "{\"version\":" + snapshot.version
+                    + ",\"items\":" + new String(snapshot.json, StandardCharsets.UTF_8) + "}";
+            send(emitter, SseEmitter.event().name("snapshot").id(Long.toString(snapshot.version)).data(data));
+        });
+        return emitter;
+    }
+
+    // Called once the change is committed; version is the menu version it produced
+    public void publish(long version, Collection<Long> itemIds) {
+        if (subscribers.isEmpty() || itemIds.isEmpty()) {
+            return;
+        }
+        sender.execute(() -> {
+            List<StockDelta> deltas = new ArrayList<>();
+            for (MenuItem item : menuRepository.findAllById(itemIds)) {
+                deltas.add(new StockDelta(item, version));
+            }
+            String data = objectMapper.writeValueAsString(deltas);
+            broadcast(SseEmitter.event().name("stock").id(Long.toString(version)).data(data));
+        });
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    // Keeps idle connections open through proxies and clears out clients that went away
+    @Scheduled(fixedDelayString = "${menu.feed.heartbeat-ms:15000}")
+    public void heartbeat() {
+        if (!subscribers.isEmpty()) {
+            sender.execute(() -> broadcast(SseEmitter.event().comment("ping")));
+        }
+    }
+
+    private void broadcast(SseEmitter.SseEventBuilder event) {
+        for (SseEmitter emitter : subscribers) {
+            send(emitter, event);
+        }
+    }
+
+    private void send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(emitter);
+            emitter.completeWithError(e);
+        }
+    }
+}
@@ -1,8 +1,19 @@
 package com.example.menuservice;
 
+import com.example.common.EventLog;
+import com.example.common.ReplicaRoutingDataSource;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/menu")
@@ -12,10 +23,66 @@ public class MenuController {
     @Autowired
     private MenuRepository menuRepository;
 
-    // 1. Get all items
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private MenuSnapshotCache menuCache;
+
+    @Autowired
+    private MenuChangeFeed changeFeed;
+
+    @Autowired
+    private MenuSearchIndex searchIndex;
+
+    @Autowired
+    private WriteBehindInventory writeBehind;
+
+    @Autowired
+    private EventLog eventLog;
+
+    @Autowired(required = false)
+    private ReplicaRoutingDataSource replicas;
+
+    @Value("${menu.search.max-page-size:100}")
+    private int maxPageSize;
+
+    // 1. Get all items (pre-serialized; Spring answers 304 itself when If-None-Match matches the ETag)
     @GetMapping
-    public List<MenuItem> getAllItems() {
-        return menuRepository.findAll();
+    public ResponseEntity<byte[]> getAllItems() {
+        MenuSnapshotCache.Snapshot snapshot = menuCache.current();
+        return ResponseEntity.ok()
+                .eTag(snapshot.etag)
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.json);
+    }
+
+    // 1b. Live stock changes (SSE): a full "snapshot" event, then "stock" deltas as orders come in
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges() {
+        return changeFeed.subscribe(menuCache::current);
+    }
+
+    // 1c. Filtered, sorted, paged menu from the in-memory index,
+    // e.g. /menu/search?q=chi&category=Snacks&type=Non-Veg&inStock=true&sort=price-low&page=0&size=20
+    @GetMapping("/search")
+    public MenuSearchIndex.Result search(@RequestParam(required = false) String q,
+                                         @RequestParam(required = false) String category,
+                                         @RequestParam(required = false) String type,
+                                         @RequestParam(defaultValue = "false") boolean inStock,
+                                         @RequestParam(defaultValue = "default") String sort,
+                                         @RequestParam(defaultValue = "0") int page,
+                                         @RequestParam(defaultValue = "20") int size) {
+        if (page < 0 || size <= 0 || size > maxPageSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "page must be >= 0 and size between 1 and " + maxPageSize);
+        }
+        return searchIndex.search(q, blankToNull(category), blankToNull(type), inStock, parseSort(sort), page, size);
+    }
+
+    @GetMapping("/search/stats")
+    public Map<String, Object> searchStats() {
+        return searchIndex.stats();
     }
 
     // 2. Add a new item
@@ -26,7 +93,9 @@ public class MenuController {
         } else {
             item.setAvailable(true);
         }
-        return menuRepository.save(item);
+        MenuItem saved = menuRepository.save(item);
+        menuCache.invalidate(saved.getId());
+        return saved;
     }
 
     // 3. Get specific item by ID
@@ -39,11 +108,18 @@ public class MenuController {
     // 4. Update Stock Endpoint (FIXED)
     @PostMapping("/updateStock/{id}/{newQty}")
     public MenuItem updateStock(@PathVariable("id") Long id, @PathVariable("newQty") int newQty) {
-        System.out.println("🔔 Request received to update Item ID: " + id + " to New Qty: " + newQty);
-        
         MenuItem item = menuRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Item not found"));
         
+        if (writeBehind.manages(id)) {
+            // Not saved here: the row catches up with the next write-behind flush
+            writeBehind.set(id, newQty);
+            item.setQuantity(newQty);
+            item.setAvailable(newQty > 0);
+            eventLog.sample("menu.stock.updated", "itemId", id, "qty", newQty);
+            return item;
+        }
+        
         item.setQuantity(newQty);
         
         if (newQty <= 0) {
@@ -53,7 +129,73 @@ public class MenuController {
         }
         
         MenuItem saved = menuRepository.save(item);
-        System.out.println("✅ Database updated successfully!");
+        menuCache.invalidate(saved.getId());
+        eventLog.sample("menu.stock.updated", "itemId", id, "qty", newQty);
         return saved;
     }
+
+    // 5. Reserve stock: atomically takes qty units or refuses with 409 (sold out)
+    @PostMapping("/reserve/{id}")
+    public StockReservation reserveStock(@PathVariable("id") Long id,
+                                         @RequestParam(defaultValue = "1") int qty,
+                                         @RequestParam(required = false) Long ttlSeconds) {
+        return inventoryService.reserve(id, qty, ttlSeconds);
+    }
+
+    // 5b. Reserve a whole cart in one call (all lines or none)
+    @PostMapping("/reserve")
+    public List<StockReservation> reserveCart(@RequestBody List<ReservationLine> lines,
+                                              @RequestParam(required = false) Long ttlSeconds) {
+        return inventoryService.reserveAll(lines, ttlSeconds);
+    }
+
+    // 6. Commit a reservation once the order has been paid for
+    @PostMapping("/reservations/{reservationId}/commit")
+    public StockReservation commitReservation(@PathVariable("reservationId") Long reservationId) {
+        return inventoryService.commit(reservationId);
+    }
+
+    // 7. Release a reservation (order failed) - puts the stock back
+    @PostMapping("/reservations/{reservationId}/release")
+    public StockReservation releaseReservation(@PathVariable("reservationId") Long reservationId) {
+        return inventoryService.release(reservationId);
+    }
+
+    // 8. Batch commit / release for cart orders
+    @PostMapping("/reservations/commit")
+    public List<StockReservation> commitReservations(@RequestBody List<Long> reservationIds) {
+        return inventoryService.commitAll(reservationIds);
+    }
+
+    @PostMapping("/reservations/release")
+    public List<StockReservation> releaseReservations(@RequestBody List<Long> reservationIds) {
+        return inventoryService.releaseAll(reservationIds);
+    }
+
+    // 9. Write-behind inventory counters and flushes
+    @GetMapping("/inventory-stats")
+    public Map<String, Object> inventoryStats() {
+        return writeBehind.stats();
+    }
+
+    // 10. Read replicas: reads per replica, reads kept on the primary (read-your-writes, failover)
+    @GetMapping("/db-stats")
+    public Map<String, Object> dbStats() {
+        return replicas != null ? replicas.stats() : Map.of("replicas", List.of());
+    }
+
+    // Same values as the sort dropdown on the home page
+    private static MenuSearchIndex.Sort parseSort(String sort) {
+        return switch (sort.toLowerCase(Locale.ROOT)) {
+            case "default" -> MenuSearchIndex.Sort.DEFAULT;
+            case "price-low" -> MenuSearchIndex.Sort.PRICE_LOW;
+            case "price-high" -> MenuSearchIndex.Sort.PRICE_HIGH;
+            case "name" -> MenuSearchIndex.Sort.NAME;
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown sort: " + sort);
+        };
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() || "all".equalsIgnoreCase(value) ? null : value;
+    }
 }
\ No newline at end of file
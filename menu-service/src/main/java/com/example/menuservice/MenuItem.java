@@ -1,5 +1,6 @@
 package com.example.menuservice;
 
+import com.example.common.Money;
 import jakarta.persistence.*;
 
 @Entity
@@ -12,7 +13,11 @@ public class MenuItem {
 
     private String name;
     private String category; // e.g., "Snacks", "Drinks"
-    private double price;
+
+    // In paise (see Money)
+    @Column(name = "price_paise", columnDefinition = "bigint default 0 not null")
+    private long price;
+
     private boolean isAvailable;
     private String imageUrl;
     private String type; // "Veg" or "Non-Veg"
@@ -21,7 +26,7 @@ public class MenuItem {
     // --- CONSTRUCTORS ---
     public MenuItem() { }
 
-    public MenuItem(String name, String category, double price, boolean isAvailable, String imageUrl, String type, int quantity) {
+    public MenuItem(String name, String category, long price, boolean isAvailable, String imageUrl, String type, int quantity) {
         this.name = name;
         this.category = category;
         this.price = price;
@@ -38,8 +43,8 @@ public class MenuItem {
     public void setName(String name) { this.name = name; }
     public String getCategory() { return category; }
     public void setCategory(String category) { this.category = category; }
-    public double getPrice() { return price; }
-    public void setPrice(double price) { this.price = price; }
+    public long getPrice() { return price; }
+    public void setPrice(long price) { this.price = price; }
     public boolean isAvailable() { return isAvailable; }
     public void setAvailable(boolean available) { isAvailable = available; }
     public String getImageUrl() { return imageUrl; }
@@ -0,0 +1,21 @@
+package com.example.menuservice;
+
+import com.example.common.MoneyColumnsMigration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+// Menu-service's money columns, moved from double rupees to BIGINT paise (see MoneyColumnsMigration)
+@Component
+@DependsOn("entityManagerFactory")
+public class MenuMoneyColumns extends MoneyColumnsMigration {
+
+    // { table, old rupee column, new paise column }
+    private static final String[][] COLUMNS = {
+            { "menu_items", "price", "price_paise" },
+            { "stock_reservations", "unit_price", "unit_price_paise" }
+    };
+
+    public MenuMoneyColumns() {
+        super(COLUMNS);
+    }
+}
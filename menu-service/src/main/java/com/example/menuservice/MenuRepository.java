@@ -1,6 +1,9 @@
 package com.example.menuservice;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -8,4 +11,23 @@ public interface MenuRepository extends JpaRepository<MenuItem, Long> {
     // We get methods like save(), findAll(), findById() for free.
     // We can add custom ones here if needed, like:
     // List<MenuItem> findByCategory(String category);
-}
\ No newline at end of file
+
+    // Conditional decrement: only succeeds when enough stock is left (returns 1), otherwise 0.
+    // The database row lock makes this safe against concurrent orders for the same item.
+    @Modifying
+    @Query("update MenuItem m set m.quantity = m.quantity - :qty, "
+         + "m.isAvailable = (case when m.quantity > :qty then true else false end) "
+         + "where m.id = :id and m.quantity >= :qty")
+    int decrementStock(@Param("id") Long id, @Param("qty") int qty);
+
+    // Puts stock back after a released/expired reservation
+    @Modifying
+    @Query("update MenuItem m set m.quantity = m.quantity + :qty, m.isAvailable = true where m.id = :id")
+    int incrementStock(@Param("id") Long id, @Param("qty") int qty);
+
+    // Applies a flushed batch of write-behind changes (see WriteBehindInventory); delta may be negative
+    @Modifying
+    @Query("update MenuItem m set m.quantity = m.quantity + :delta, "
+         + "m.isAvailable = (case when m.quantity + :delta > 0 then true else false end) where m.id = :id")
+    int addStock(@Param("id") Long id, @Param("delta") int delta);
+}
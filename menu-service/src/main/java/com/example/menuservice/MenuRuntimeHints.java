@@ -0,0 +1,25 @@
+package com.example.menuservice;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * What a native image can't find out on its own (see the native profile in pom.xml). Spring AOT
+ * already covers the controllers' @RequestBody and return types and the JPA entities it scans;
+ * these are the rest - types Jackson writes outside a controller (the pre-serialized snapshot
+ * and the /menu/stream feed) and the entities as Jackson sees them, getters and all.
+ */
+public class MenuRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                MenuItem.class,
+                StockDelta.class,
+                StockReservation.class,
+                ReservationLine.class,
+                InventoryCheckpoint.class,
+                MenuSearchIndex.Result.class);
+    }
+}
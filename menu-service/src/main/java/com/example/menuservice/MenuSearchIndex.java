@@ -0,0 +1,289 @@
+package com.example.menuservice;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory index behind GET /menu/search, so filtering, searching, sorting and paging the
+ * menu never touches the database.
+ *
+ * Every item gets a slot number. Category, Veg and "in stock" are bitsets over the slots, and
+ * every word in an item's name or category maps to the bitset of slots containing it. The
+ * words are kept sorted, so a prefix like "chi" is one range of that map. A query ANDs the
+ * bitsets it needs, then walks a precomputed slot order for the requested sort and keeps only
+ * the page that was asked for.
+ *
+ * {@link MenuSnapshotCache} passes every committed change on via {@link #changed(Long...)}.
+ * The next search reloads just those items and re-indexes them; a change without item ids
+ * (a bulk load) rebuilds the whole index.
+ */
+@Component
+public class MenuSearchIndex {
+
+    public enum Sort { DEFAULT, PRICE_LOW, PRICE_HIGH, NAME }
+
+    public record Result(List<MenuItem> items, int total, int page, int size, Map<String, Integer> categories) {}
+
+    private static final Map<Sort, Comparator<MenuItem>> COMPARATORS = new EnumMap<>(Map.of(
+            Sort.DEFAULT, Comparator.comparing(MenuItem::getId),
+            Sort.PRICE_LOW, Comparator.comparingLong(MenuItem::getPrice).thenComparing(MenuItem::getId),
+            Sort.PRICE_HIGH, Comparator.comparingLong(MenuItem::getPrice).reversed().thenComparing(MenuItem::getId),
+            Sort.NAME, Comparator.comparing((MenuItem item) -> key(item.getName())).thenComparing(MenuItem::getId)));
+
+    @Autowired
+    private MenuRepository menuRepository;
+
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    private volatile boolean rebuildAll = true;
+
+    // Everything below is guarded by lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<MenuItem> items = new ArrayList<>();   // by slot, null once the item is gone
+    private final Map<Long, Integer> slots = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private final BitSet inStock = new BitSet();
+    private final BitSet veg = new BitSet();
+    private final Map<String, BitSet> categories = new HashMap<>();   // lower-case category -> slots
+    private final NavigableMap<String, BitSet> words = new TreeMap<>();
+    private final Map<Sort, int[]> orders = new EnumMap<>(Sort.class);
+    private boolean ordersStale = true;
+
+    // Called after commit with the items that changed; no ids means anything may have
+    public void changed(Long... itemIds) {
+        if (itemIds.length == 0) {
+            rebuildAll = true;
+        } else {
+            pending.addAll(List.of(itemIds));
+        }
+    }
+
+    /**
+     * query: words matched as prefixes of the name/category words, all of them must match.
+     * category, type ("Veg" / "Non-Veg"): exact, case-insensitive; null for any.
+     * categories in the result counts the matches per category before the category filter,
+     * for the category tabs.
+     */
+    public Result search(String query, String category, String type, boolean inStockOnly, Sort sort, int page, int size) {
+        catchUp();
+
+        lock.readLock().lock();
+        try {
+            BitSet matches = (BitSet) live.clone();
+            if (type != null) {
+                if ("veg".equalsIgnoreCase(type)) {
+                    matches.and(veg);
+                } else {
+                    matches.andNot(veg);
+                }
+            }
+            if (inStockOnly) {
+                matches.and(inStock);
+            }
+            for (String term : words(query)) {
+                BitSet anyWord = new BitSet();
+                for (BitSet slotsWithWord : words.subMap(term, true, term + Character.MAX_VALUE, false).values()) {
+                    anyWord.or(slotsWithWord);
+                }
+                matches.and(anyWord);
+            }
+
+            Map<String, Integer> perCategory = new TreeMap<>();
+            for (BitSet slotsInCategory : categories.values()) {
+                BitSet both = (BitSet) slotsInCategory.clone();
+                both.and(matches);
+                if (!both.isEmpty()) {
+                    perCategory.put(items.get(both.nextSetBit(0)).getCategory(), both.cardinality());
+                }
+            }
+            if (category != null) {
+                matches.and(categories.getOrDefault(category.toLowerCase(Locale.ROOT), new BitSet()));
+            }
+
+            List<MenuItem> found = new ArrayList<>(Math.min(size, matches.cardinality()));
+            long skip = (long) page * size;
+            for (int slot : orders.get(sort)) {
+                if (found.size() == size) {
+                    break;
+                }
+                if (matches.get(slot) && skip-- <= 0) {
+                    found.add(items.get(slot));
+                }
+            }
+            return new Result(found, matches.cardinality(), page, size, perCategory);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("items", live.cardinality());
+            stats.put("inStock", inStock.cardinality());
+            stats.put("categories", categories.size());
+            stats.put("words", words.size());
+            stats.put("pendingItems", pending.size());
+            stats.put("pendingRebuild", rebuildAll);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Synchronized so two searches never apply their reloads out of order
+    private synchronized void catchUp() {
+        if (rebuildAll) {
+            // Cleared before reading, so anything that changes during the read is picked up next time
+            rebuildAll = false;
+            pending.clear();
+            List<MenuItem> all = menuRepository.findAll();
+            lock.writeLock().lock();
+            try {
+                items.clear();
+                slots.clear();
+                live.clear();
+                inStock.clear();
+                veg.clear();
+                categories.clear();
+                words.clear();
+                all.forEach(this::put);
+                ordersStale = true;
+                sortIfStale();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Set<Long> ids = new TreeSet<>(pending);
+        pending.removeAll(ids);
+        Map<Long, MenuItem> fresh = new HashMap<>();
+        for (MenuItem item : menuRepository.findAllById(ids)) {
+            fresh.put(item.getId(), item);
+        }
+        lock.writeLock().lock();
+        try {
+            for (Long id : ids) {
+                MenuItem item = fresh.get(id);
+                if (item != null) {
+                    put(item);
+                } else {
+                    remove(id);
+                }
+            }
+            sortIfStale();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(MenuItem item) {
+        Integer slot = slots.get(item.getId());
+        if (slot == null) {
+            slot = items.size();
+            slots.put(item.getId(), slot);
+            items.add(item);
+            ordersStale = true;
+        } else {
+            MenuItem old = items.get(slot);
+            unindex(slot, old);
+            // Stock changes are the common case and leave every sort order as it was
+            if (old.getPrice() != item.getPrice() || !Objects.equals(old.getName(), item.getName())) {
+                ordersStale = true;
+            }
+            items.set(slot, item);
+        }
+
+        live.set(slot);
+        inStock.set(slot, item.isAvailable() && item.getQuantity() > 0);
+        veg.set(slot, "veg".equalsIgnoreCase(item.getType()));
+        categories.computeIfAbsent(key(item.getCategory()), c -> new BitSet()).set(slot);
+        for (String word : words(item)) {
+            words.computeIfAbsent(word, w -> new BitSet()).set(slot);
+        }
+    }
+
+    private void remove(Long id) {
+        Integer slot = slots.remove(id);
+        if (slot != null) {
+            unindex(slot, items.get(slot));
+            items.set(slot, null);
+            ordersStale = true;
+        }
+    }
+
+    private void unindex(int slot, MenuItem old) {
+        live.clear(slot);
+        inStock.clear(slot);
+        veg.clear(slot);
+        BitSet category = categories.get(key(old.getCategory()));
+        if (category != null) {
+            category.clear(slot);
+            if (category.isEmpty()) {
+                categories.remove(key(old.getCategory()));
+            }
+        }
+        for (String word : words(old)) {
+            BitSet slotsWithWord = words.get(word);
+            if (slotsWithWord != null) {
+                slotsWithWord.clear(slot);
+                if (slotsWithWord.isEmpty()) {
+                    words.remove(word);
+                }
+            }
+        }
+    }
+
+    private void sortIfStale() {
+        if (!ordersStale) {
+            return;
+        }
+        for (Sort sort : Sort.values()) {
+            orders.put(sort, live.stream().boxed()
+                    .sorted(Comparator.comparing(items::get, COMPARATORS.get(sort)))
+                    .mapToInt(Integer::intValue)
+                    .toArray());
+        }
+        ordersStale = false;
+    }
+
+    private static String key(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> words(MenuItem item) {
+        return words(key(item.getName()) + " " + key(item.getCategory()));
+    }
+
+    private static Set<String> words(String text) {
+        Set<String> words = new TreeSet<>();
+        if (text != null) {
+            for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+                if (!word.isEmpty()) {
+                    words.add(word);
+                }
+            }
+        }
+        return words;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.menuservice;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tools.jackson.databind.ObjectMapper;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The full menu, already serialized to JSON, plus a version number that goes up on every change.
+ *
+ * GET /menu serves these bytes directly with the version as its ETag, so the common case
+ * (nothing changed since the caller last looked) is a 304 with no database or Jackson work.
+ * Anything that changes menu rows (add item, stock updates, reservations) calls
+ * {@link #invalidate(Long...)}; the next reader rebuilds the snapshot once, and the changed
+ * items go out on the {@link MenuChangeFeed} and are re-indexed by the {@link MenuSearchIndex}.
+ */
+@Component
+public class MenuSnapshotCache {
+
+    @Autowired
+    private MenuRepository menuRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MenuChangeFeed changeFeed;
+
+    @Autowired
+    private MenuSearchIndex searchIndex;
+
+    // Part of every ETag so a restarted service never matches an ETag handed out by the previous run
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final AtomicLong version = new AtomicLong(1);
+    private volatile Snapshot snapshot;
+
+    public Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null && current.version == version.get()) {
+            return current;
+        }
+        return rebuild();
+    }
+
+    // Bumps the version (and publishes the changed items) once the surrounding transaction, if any, has committed
+    public void invalidate(Long... itemIds) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    changed(itemIds);
+                }
+            });
+        } else {
+            changed(itemIds);
+        }
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    private void changed(Long[] itemIds) {
+        searchIndex.changed(itemIds);
+        long newVersion = version.incrementAndGet();
+        changeFeed.publish(newVersion, Arrays.asList(itemIds));
+    }
+
+    private synchronized Snapshot rebuild() {
+        // Read the version before the rows: a write landing mid-rebuild bumps it again and forces another rebuild
+        long target = version.get();
+        Snapshot current = snapshot;
+        if (current != null && current.version == target) {
+            return current;
+        }
+
+        List<MenuItem> items = menuRepository.findAll();
+        Snapshot rebuilt = new Snapshot(target, "\"" + epoch + "-" + target + "\"", objectMapper.writeValueAsBytes(items));
+        snapshot = rebuilt;
+        return rebuilt;
+    }
+
+    public static class Snapshot {
+        public final long version;
+        public final String etag;
+        public final byte[] json;
+
+        Snapshot(long version, String etag, byte[] json) {
+            this.version = version;
+            this.etag = etag;
+            this.json = json;
+        }
+    }
+}
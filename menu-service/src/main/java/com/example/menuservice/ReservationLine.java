@@ -0,0 +1,20 @@
+package com.example.menuservice;
+
+// One line of a batch reservation request: reserve "qty" units of "itemId"
+public class ReservationLine {
+
+    private Long itemId;
+    private int qty;
+
+    public ReservationLine() { }
+
+    public ReservationLine(Long itemId, int qty) {
+        this.itemId = itemId;
+        this.qty = qty;
+    }
+
+    public Long getItemId() { return itemId; }
+    public void setItemId(Long itemId) { this.itemId = itemId; }
+    public int getQty() { return qty; }
+    public void setQty(int qty) { this.qty = qty; }
+}
@@ -0,0 +1,24 @@
+package com.example.menuservice;
+
+// One entry of the /menu/stream change feed: the new stock of one item as of menu version "version"
+public class StockDelta {
+
+    private Long itemId;
+    private int quantity;
+    private boolean available;
+    private long version;
+
+    public StockDelta() { }
+
+    public StockDelta(MenuItem item, long version) {
+        this.itemId = item.getId();
+        this.quantity = item.getQuantity();
+        this.available = item.isAvailable();
+        this.version = version;
+    }
+
+    public Long getItemId() { return itemId; }
+    public int getQuantity() { return quantity; }
+    public boolean isAvailable() { return available; }
+    public long getVersion() { return version; }
+}
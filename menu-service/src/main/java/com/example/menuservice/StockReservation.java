@@ -0,0 +1,57 @@
+package com.example.menuservice;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "stock_reservations",
+       indexes = @Index(name = "idx_reservation_status_expiry", columnList = "status, expiresAt"))
+public class StockReservation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long itemId;
+    private int quantity;
+
+    // Copied from the item at reserve time so callers don't need a second GET
+    private String itemName;
+    @Column(name = "unit_price_paise", columnDefinition = "bigint default 0 not null")
+    private long unitPrice; // paise
+
+    private String status; // "HELD", "COMMITTED", "RELEASED" or "EXPIRED"
+    private LocalDateTime createdAt;
+    private LocalDateTime expiresAt;
+
+    // --- CONSTRUCTORS ---
+    public StockReservation() { }
+
+    public StockReservation(MenuItem item, int quantity, long ttlSeconds) {
+        this.itemId = item.getId();
+        this.quantity = quantity;
+        this.itemName = item.getName();
+        this.unitPrice = item.getPrice();
+        this.status = "HELD";
+        this.createdAt = LocalDateTime.now();
+        this.expiresAt = this.createdAt.plusSeconds(ttlSeconds);
+    }
+
+    // --- GETTERS & SETTERS ---
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getItemId() { return itemId; }
+    public void setItemId(Long itemId) { this.itemId = itemId; }
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+    public String getItemName() { return itemName; }
+    public void setItemName(String itemName) { this.itemName = itemName; }
+    public long getUnitPrice() { return unitPrice; }
+    public void setUnitPrice(long unitPrice) { this.unitPrice = unitPrice; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
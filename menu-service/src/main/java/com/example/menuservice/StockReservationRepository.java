@@ -0,0 +1,25 @@
+package com.example.menuservice;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    // Moves a reservation out of HELD exactly once; returns 0 if someone else got there first
+    @Modifying(clearAutomatically = true)
+    @Query("update StockReservation r set r.status = :newStatus where r.id = :id and r.status = 'HELD'")
+    int transitionFromHeld(@Param("id") Long id, @Param("newStatus") String newStatus);
+
+    // Takes back a commit for an order that could not be completed; 0 if it isn't COMMITTED (any more)
+    @Modifying(clearAutomatically = true)
+    @Query("update StockReservation r set r.status = 'RELEASED' where r.id = :id and r.status = 'COMMITTED'")
+    int releaseCommitted(@Param("id") Long id);
+
+    List<StockReservation> findTop200ByStatusAndExpiresAtBefore(String status, LocalDateTime cutoff);
+}
@@ -0,0 +1,310 @@
+package com.example.menuservice;
+
+import com.example.common.EventLog;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Optional write-behind mode for hot items (menu.inventory.write-behind=true).
+ *
+ * The stock of a hot item lives in an in-memory counter, loaded from its row the first time
+ * it is touched. Reserving is a compare-and-set that never lets the counter go below zero,
+ * so orders for the same item no longer queue up on its row lock. Every change is appended
+ * to the {@link InventoryWal} before it is acknowledged, and every menu.inventory.flush-interval-ms
+ * the changes since the last flush are summed per item and applied to menu_items in one
+ * transaction, together with the batch number (inventory_checkpoints). The same happens on
+ * shutdown (after the web server has stopped taking requests), and at startup for any batch a crash left behind; a batch already recorded in
+ * the checkpoint is not applied twice.
+ *
+ * Rows of hot items are only ever changed through here, so row + unflushed changes always
+ * equals the counter. GET /menu and the live feed show stock as of the last flush.
+ * Only meant for a single menu-service instance: the counters are not shared.
+ */
+@Component
+public class WriteBehindInventory implements MeterBinder, SmartLifecycle {
+
+    private static final String CHECKPOINT = "menu-stock";
+
+    @Autowired
+    private MenuRepository menuRepository;
+
+    @Autowired
+    private InventoryCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private MenuSnapshotCache menuCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EventLog eventLog;
+
+    @Value("${menu.inventory.write-behind:false}")
+    private boolean enabled;
+
+    // Item ids to hold in memory; empty means every item
+    @Value("${menu.inventory.hot-items:}")
+    private Set<Long> hotItems;
+
+    @Value("${menu.inventory.wal-dir:data/inventory-wal}")
+    private String walDirectory;
+
+    private final Map<Long, AtomicInteger> counters = new ConcurrentHashMap<>();
+    private InventoryWal wal;
+    private volatile boolean running;
+
+    private final AtomicLong taken = new AtomicLong();
+    private final AtomicLong refused = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong flushFailures = new AtomicLong();
+    private final AtomicLong recoveredBatches = new AtomicLong();
+    private volatile long lastFlushMillis;
+
+    @PostConstruct
+    void recover() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path directory = Path.of(walDirectory);
+        // Read in a write transaction, so from the primary even with read replicas
+        long lastBatch = transactionTemplate.execute(status ->
+                checkpointRepository.findById(CHECKPOINT).map(InventoryCheckpoint::getLastBatch).orElse(0L));
+        for (Path leftOver : InventoryWal.list(directory)) {
+            lastBatch = Math.max(lastBatch, InventoryWal.batchOf(leftOver));
+            if (!apply(leftOver)) {
+                throw new IllegalStateException("Could not recover inventory batch " + leftOver);
+            }
+            recoveredBatches.incrementAndGet();
+        }
+        wal = new InventoryWal(directory, lastBatch + 1);
+        running = true;
+        eventLog.info("menu.inventory.started", "walDir", directory.toAbsolutePath(), "recoveredBatches", recoveredBatches.get());
+    }
+
+    @Override
+    public void start() {
+        // Nothing to do: recover() has already opened the write-ahead file
+    }
+
+    @Override
+    public synchronized void stop() {
+        flush();
+        running = false;
+        try {
+            wal.close();
+        } catch (IOException e) {
+            eventLog.error("menu.inventory.close.failed", e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Stopped after the web server (a lower phase stops later), while the database is still there
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    public boolean manages(Long itemId) {
+        return enabled && (hotItems.isEmpty() || hotItems.contains(itemId));
+    }
+
+    /**
+     * Takes qty units or returns false if there aren't that many left. Inside a transaction the
+     * units go back if it rolls back, so a reservation that fails to save doesn't lose stock.
+     */
+    public boolean take(Long itemId, int qty) {
+        AtomicInteger counter = counter(itemId);
+        int left;
+        do {
+            left = counter.get();
+            if (left < qty) {
+                refused.incrementAndGet();
+                return false;
+            }
+        } while (!counter.compareAndSet(left, left - qty));
+        record(itemId, counter, -qty);
+        taken.addAndGet(qty);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        give(itemId, qty);
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    // Puts qty units back once the surrounding transaction (if any) has committed
+    public void giveBack(Long itemId, int qty) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    give(itemId, qty);
+                }
+            });
+        } else {
+            give(itemId, qty);
+        }
+    }
+
+    // Admin restock/correction: sets the count outright
+    public void set(Long itemId, int qty) {
+        AtomicInteger counter = counter(itemId);
+        int before = counter.getAndSet(qty);
+        record(itemId, counter, qty - before);
+    }
+
+    public Integer quantity(Long itemId) {
+        AtomicInteger counter = counters.get(itemId);
+        return counter == null ? null : counter.get();
+    }
+
+    @Scheduled(fixedDelayString = "${menu.inventory.flush-interval-ms:200}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    /** Writes every change so far to menu_items; returns once they are committed (or failed, to be retried). */
+    public synchronized void flush() {
+        if (!running) {
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            wal.rotate();
+            for (Path file : wal.closedFiles()) {
+                if (!apply(file)) {
+                    break; // later batches must wait, they are applied in order
+                }
+            }
+        } catch (IOException e) {
+            flushFailures.incrementAndGet();
+            eventLog.error("menu.inventory.flush.failed", e);
+        }
+        lastFlushMillis = (System.nanoTime() - started) / 1_000_000;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("writeBehind", enabled);
+        stats.put("hotItems", counters.size());
+        stats.put("unitsTaken", taken.get());
+        stats.put("refused", refused.get());
+        stats.put("flushes", flushes.get());
+        stats.put("flushFailures", flushFailures.get());
+        stats.put("lastFlushMillis", lastFlushMillis);
+        stats.put("recoveredBatches", recoveredBatches.get());
+        if (wal != null) {
+            stats.put("batch", wal.currentBatch());
+            stats.put("unflushedChanges", wal.unflushedRecords());
+        }
+        return stats;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("menu.inventory.units.taken", taken, AtomicLong::get).register(registry);
+        FunctionCounter.builder("menu.inventory.refused", refused, AtomicLong::get).register(registry);
+        FunctionCounter.builder("menu.inventory.flushes", flushes, AtomicLong::get).register(registry);
+        FunctionCounter.builder("menu.inventory.flush.failures", flushFailures, AtomicLong::get).register(registry);
+        Gauge.builder("menu.inventory.unflushed", this, inventory -> inventory.wal == null ? 0 : inventory.wal.unflushedRecords())
+                .register(registry);
+    }
+
+    private AtomicInteger counter(Long itemId) {
+        // Seeded from the primary: a replica's copy of the row may be behind
+        AtomicInteger counter = counters.computeIfAbsent(itemId, id -> transactionTemplate.execute(status ->
+                menuRepository.findById(id)
+                        .map(item -> new AtomicInteger(item.getQuantity()))
+                        .orElse(null)));
+        if (counter == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Item not found with id: " + itemId);
+        }
+        return counter;
+    }
+
+    private void give(Long itemId, int qty) {
+        AtomicInteger counter = counter(itemId);
+        counter.addAndGet(qty);
+        record(itemId, counter, qty);
+    }
+
+    // A change that can't be written ahead is undone and refused
+    private void record(Long itemId, AtomicInteger counter, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        try {
+            wal.append(itemId, delta);
+        } catch (UncheckedIOException e) {
+            counter.addAndGet(-delta);
+            eventLog.error("menu.inventory.wal.failed", e, "itemId", itemId, "delta", delta);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Stock is temporarily unavailable");
+        }
+    }
+
+    // One closed batch into menu_items; false (and the file kept) if the database refused it
+    private boolean apply(Path file) throws IOException {
+        long batch = InventoryWal.batchOf(file);
+        Map<Long, Integer> deltas = InventoryWal.read(file);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                InventoryCheckpoint checkpoint = checkpointRepository.findById(CHECKPOINT)
+                        .orElseGet(() -> new InventoryCheckpoint(CHECKPOINT));
+                if (checkpoint.getLastBatch() >= batch) {
+                    return; // committed before a crash, the file just wasn't deleted yet
+                }
+                deltas.forEach((itemId, delta) -> {
+                    if (delta != 0) {
+                        menuRepository.addStock(itemId, delta);
+                    }
+                });
+                checkpoint.setLastBatch(batch);
+                checkpointRepository.save(checkpoint);
+            });
+        } catch (RuntimeException e) {
+            flushFailures.incrementAndGet();
+            eventLog.error("menu.inventory.flush.failed", e, "batch", batch);
+            return false;
+        }
+        Files.delete(file);
+        flushes.incrementAndGet();
+        if (!deltas.isEmpty()) {
+            menuCache.invalidate(deltas.keySet().toArray(new Long[0]));
+        }
+        return true;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.menuservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.example.common.Money;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+// In-memory H2 in place of PostgreSQL; the sweeper is only run by hand
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:menu_inventory;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"menu.reservation.sweep-interval-ms=600000",
+		"logging.level.root=WARN"
+})
+class InventoryServiceTests {
+
+	@Autowired
+	private InventoryService inventory;
+
+	@Autowired
+	private MenuRepository menuRepository;
+
+	@Autowired
+	private StockReservationRepository reservationRepository;
+
+	@Test
+	void concurrentReservesNeverOversell() throws Exception {
+		Long itemId = newItem(10);
+		AtomicInteger soldOut = new AtomicInteger();
+		List<Callable<Boolean>> orders = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			orders.add(() -> {
+				try {
+					inventory.reserve(itemId, 1, null);
+					return true;
+				} catch (ResponseStatusException e) {
+					assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+					soldOut.incrementAndGet();
+					return false;
+				}
+			});
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(16);
+		int reserved = 0;
+		try {
+			for (Future<Boolean> order : pool.invokeAll(orders)) {
+				if (order.get()) {
+					reserved++;
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+
+		assertEquals(10, reserved);
+		assertEquals(30, soldOut.get());
+		assertEquals(0, stockOf(itemId));
+	}
+
+	@Test
+	void aCartIsReservedWhollyOrNotAtAll() {
+		Long plenty = newItem(5);
+		Long scarce = newItem(1);
+
+		assertThrows(ResponseStatusException.class, () -> inventory.reserveAll(
+				List.of(new ReservationLine(plenty, 2), new ReservationLine(scarce, 2)), null));
+
+		assertEquals(5, stockOf(plenty));
+		assertEquals(1, stockOf(scarce));
+	}
+
+	@Test
+	void commitAfterTheHoldExpiredIsAConflict() {
+		Long itemId = newItem(3);
+		StockReservation reservation = inventory.reserve(itemId, 2, null);
+		expire(reservation);
+		inventory.releaseExpired();
+
+		ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> inventory.commit(reservation.getId()));
+		assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+		assertEquals(3, stockOf(itemId));
+	}
+
+	@Test
+	void theSweeperReturnsExpiredStockExactlyOnce() {
+		Long itemId = newItem(4);
+		StockReservation reservation = inventory.reserve(itemId, 3, null);
+		assertEquals(1, stockOf(itemId));
+
+		expire(reservation);
+		inventory.releaseExpired();
+		inventory.releaseExpired();
+		inventory.release(reservation.getId()); // a late compensation finds nothing left to give back
+
+		assertEquals(4, stockOf(itemId));
+		assertEquals("EXPIRED", reservationRepository.findById(reservation.getId()).orElseThrow().getStatus());
+	}
+
+	@Test
+	void commitAndReleaseAreSafeToRepeat() {
+		Long itemId = newItem(5);
+		StockReservation kept = inventory.reserve(itemId, 1, null);
+		StockReservation dropped = inventory.reserve(itemId, 2, null);
+
+		inventory.commit(kept.getId());
+		inventory.commit(kept.getId());
+		inventory.release(dropped.getId());
+		inventory.release(dropped.getId());
+
+		assertEquals(4, stockOf(itemId));
+		assertEquals("COMMITTED", reservationRepository.findById(kept.getId()).orElseThrow().getStatus());
+	}
+
+	@Test
+	void releasingACommittedReservationPutsTheStockBackOnce() {
+		Long itemId = newItem(5);
+		StockReservation reservation = inventory.reserve(itemId, 2, null);
+		inventory.commit(reservation.getId());
+
+		inventory.release(reservation.getId());
+		inventory.release(reservation.getId());
+
+		assertEquals(5, stockOf(itemId));
+		assertEquals("RELEASED", reservationRepository.findById(reservation.getId()).orElseThrow().getStatus());
+	}
+
+	private Long newItem(int quantity) {
+		return menuRepository.save(new MenuItem("Test Samosa", "Snacks", Money.ofRupees(20), quantity > 0,
+				null, "Veg", quantity)).getId();
+	}
+
+	private int stockOf(Long itemId) {
+		return menuRepository.findById(itemId).orElseThrow().getQuantity();
+	}
+
+	private void expire(StockReservation reservation) {
+		StockReservation held = reservationRepository.findById(reservation.getId()).orElseThrow();
+		held.setExpiresAt(LocalDateTime.now().minusSeconds(1));
+		reservationRepository.save(held);
+	}
+}
@@ -0,0 +1,244 @@
+package com.example.menuservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.example.common.EventLog;
+import com.example.common.Money;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// In-memory H2; the context's own write-behind bean stays off, and each test starts its own
+// over a fresh write-ahead directory so it can also "restart" one over files left behind.
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:menu_write_behind;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"menu.reservation.sweep-interval-ms=600000",
+		"logging.level.root=WARN"
+})
+class WriteBehindInventoryTests {
+
+	private static final String CHECKPOINT = "menu-stock";
+
+	@TempDir
+	private Path walDir;
+
+	@Autowired
+	private MenuRepository menuRepository;
+
+	@Autowired
+	private InventoryCheckpointRepository checkpointRepository;
+
+	@Autowired
+	private MenuSnapshotCache menuCache;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private EventLog eventLog;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final List<WriteBehindInventory> started = new ArrayList<>();
+
+	@AfterEach
+	void stopInventories() {
+		for (WriteBehindInventory inventory : started) {
+			if (inventory.isRunning()) {
+				inventory.stop();
+			}
+		}
+	}
+
+	@Test
+	void concurrentTakesNeverGoBelowZero() throws Exception {
+		WriteBehindInventory inventory = start();
+		Long itemId = newItem(10);
+
+		List<Callable<Boolean>> orders = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			orders.add(() -> inventory.take(itemId, 1));
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(16);
+		int taken = 0;
+		try {
+			for (Future<Boolean> order : pool.invokeAll(orders)) {
+				if (order.get()) {
+					taken++;
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+
+		assertEquals(10, taken);
+		assertEquals(0, inventory.quantity(itemId));
+		assertEquals(30L, inventory.stats().get("refused"));
+
+		inventory.flush();
+		assertEquals(0, stockOf(itemId));
+	}
+
+	@Test
+	void aRolledBackTakeGivesTheUnitsBack() {
+		WriteBehindInventory inventory = start();
+		Long itemId = newItem(5);
+
+		transactionTemplate.executeWithoutResult(status -> {
+			assertTrue(inventory.take(itemId, 3));
+			assertEquals(2, inventory.quantity(itemId));
+			status.setRollbackOnly();
+		});
+		assertEquals(5, inventory.quantity(itemId));
+
+		// A give-back only counts once its transaction commits
+		inventory.take(itemId, 2);
+		transactionTemplate.executeWithoutResult(status -> {
+			inventory.giveBack(itemId, 2);
+			status.setRollbackOnly();
+		});
+		assertEquals(3, inventory.quantity(itemId));
+
+		inventory.flush();
+		assertEquals(3, stockOf(itemId));
+	}
+
+	@Test
+	void aBatchAlreadyInTheCheckpointIsNotAppliedAgain() throws IOException {
+		Long itemId = newItem(10);
+		long applied = checkpointAfterGap();
+
+		// A crash after the commit of batch "applied" but before its file was deleted, and one still to do
+		writeBatch(applied, itemId, -4);
+		writeBatch(applied + 1, itemId, -1);
+		WriteBehindInventory inventory = start();
+
+		assertEquals(9, stockOf(itemId));
+		assertEquals(applied + 1, lastBatch());
+		assertEquals(2L, inventory.stats().get("recoveredBatches"));
+		assertEquals(applied + 2, inventory.stats().get("batch"));
+		assertEquals(List.of(walDir.resolve("inventory-" + (applied + 2) + ".wal")), InventoryWal.list(walDir));
+	}
+
+	@Test
+	void aRecordCutShortByACrashIsIgnored() throws IOException {
+		Long itemId = newItem(10);
+		long batch = checkpointAfterGap() + 1;
+		Path file = writeBatch(batch, itemId, -3, -2);
+		// Half of a third record: the process died mid-write, so it was never acknowledged
+		Files.write(file, new byte[] {0, 0, 0, 0, 0, 0, 0}, StandardOpenOption.APPEND);
+
+		assertEquals(Map.of(itemId, -5), InventoryWal.read(file));
+
+		start();
+		assertEquals(5, stockOf(itemId));
+		assertEquals(batch, lastBatch());
+	}
+
+	@Test
+	void laterBatchesWaitForOneTheDatabaseRefused() {
+		WriteBehindInventory inventory = start();
+		Long refused = newItem(10);
+		Long waiting = newItem(10);
+
+		// Load the counter (setting it to what it already is records nothing), then make the row
+		// overflow when the next change lands on it
+		inventory.set(refused, 10);
+		jdbcTemplate.update("UPDATE menu_items SET quantity = ? WHERE id = ?", Integer.MAX_VALUE, refused);
+		inventory.giveBack(refused, 5);
+		long batchOfRefused = (long) inventory.stats().get("batch");
+		inventory.flush();
+		assertEquals(1L, inventory.stats().get("flushFailures"));
+		assertTrue(lastBatch() < batchOfRefused);
+
+		// Applying this one first would move the checkpoint past the refused batch and lose it
+		inventory.take(waiting, 4);
+		inventory.flush();
+		assertEquals(2L, inventory.stats().get("flushFailures"));
+		assertEquals(10, stockOf(waiting));
+		assertTrue(lastBatch() < batchOfRefused);
+
+		// Once the database takes the first batch again, both go in, in order
+		jdbcTemplate.update("UPDATE menu_items SET quantity = 10 WHERE id = ?", refused);
+		inventory.flush();
+		assertEquals(15, stockOf(refused));
+		assertEquals(6, stockOf(waiting));
+		assertEquals(batchOfRefused + 1, lastBatch());
+		assertFalse(Files.exists(walDir.resolve("inventory-" + batchOfRefused + ".wal")));
+	}
+
+	// What the bean does at startup, over this test's directory
+	private WriteBehindInventory start() {
+		WriteBehindInventory inventory = new WriteBehindInventory();
+		ReflectionTestUtils.setField(inventory, "menuRepository", menuRepository);
+		ReflectionTestUtils.setField(inventory, "checkpointRepository", checkpointRepository);
+		ReflectionTestUtils.setField(inventory, "menuCache", menuCache);
+		ReflectionTestUtils.setField(inventory, "transactionTemplate", transactionTemplate);
+		ReflectionTestUtils.setField(inventory, "eventLog", eventLog);
+		ReflectionTestUtils.setField(inventory, "enabled", true);
+		ReflectionTestUtils.setField(inventory, "hotItems", Set.of());
+		ReflectionTestUtils.setField(inventory, "walDirectory", walDir.toString());
+		try {
+			inventory.recover();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		started.add(inventory);
+		return inventory;
+	}
+
+	// Moves the checkpoint on, so batches left by other tests' directories are behind it
+	private long checkpointAfterGap() {
+		InventoryCheckpoint checkpoint = checkpointRepository.findById(CHECKPOINT)
+				.orElseGet(() -> new InventoryCheckpoint(CHECKPOINT));
+		checkpoint.setLastBatch(checkpoint.getLastBatch() + 100);
+		return checkpointRepository.save(checkpoint).getLastBatch();
+	}
+
+	private Path writeBatch(long batch, Long itemId, int... deltas) throws IOException {
+		InventoryWal wal = new InventoryWal(walDir, batch);
+		for (int delta : deltas) {
+			wal.append(itemId, delta);
+		}
+		wal.close();
+		return walDir.resolve("inventory-" + batch + ".wal");
+	}
+
+	private long lastBatch() {
+		return checkpointRepository.findById(CHECKPOINT).map(InventoryCheckpoint::getLastBatch).orElse(0L);
+	}
+
+	private Long newItem(int quantity) {
+		return menuRepository.save(new MenuItem("Test Vada Pav", "Snacks", Money.ofRupees(15), quantity > 0,
+				null, "Veg", quantity)).getId();
+	}
+
+	private int stockOf(Long itemId) {
+		return menuRepository.findById(itemId).orElseThrow().getQuantity();
+	}
+}
@@ -1,7 +1,12 @@
 package com.example.notificationservice;
 
+import com.example.common.EventLog;
+import com.example.common.ReplicaRoutingDataSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/notify")
@@ -10,13 +15,16 @@ public class NotificationController {
     @Autowired
     private NotificationRepository repository;
 
+    @Autowired
+    private EventLog eventLog;
+
+    @Autowired(required = false)
+    private ReplicaRoutingDataSource replicas;
+
     @PostMapping("/send")
     public String sendNotification(@RequestParam String rollNumber, @RequestParam String message) {
-        // 1. Simulate sending email (Print to console)
-        System.out.println("-------------------------------------------------");
-        System.out.println("📧 SENDING EMAIL TO STUDENT: " + rollNumber);
-        System.out.println("📝 MESSAGE: " + message);
-        System.out.println("-------------------------------------------------");
+        // 1. Simulate sending email (sampled into the event log)
+        eventLog.sample("notify.sent", "rollNumber", rollNumber, "message", message);
 
         // 2. Save log to database
         NotificationLog log = new NotificationLog(rollNumber, message);
@@ -24,4 +32,23 @@ public class NotificationController {
 
         return "Notification Sent!";
     }
+
+    // Bulk ingest from order-service: one request, one JDBC batch
+    @PostMapping("/batch")
+    public String sendBatch(@RequestBody List<NotificationRequest> requests) {
+        List<NotificationLog> logs = new ArrayList<>(requests.size());
+        for (NotificationRequest request : requests) {
+            logs.add(new NotificationLog(request.getRollNumber(), request.getMessage()));
+        }
+        repository.saveAll(logs);
+
+        eventLog.sample("notify.batch.sent", "size", logs.size());
+        return logs.size() + " Notifications Sent!";
+    }
+
+    // Read replicas: reads per replica, reads kept on the primary (read-your-writes, failover)
+    @GetMapping("/db-stats")
+    public Map<String, Object> getDbStats() {
+        return replicas != null ? replicas.stats() : Map.of("replicas", List.of());
+    }
 }
\ No newline at end of file
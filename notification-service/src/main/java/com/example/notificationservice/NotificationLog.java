@@ -7,8 +7,13 @@ import java.time.LocalDateTime;
 @Table(name = "notification_logs")
 public class NotificationLog {
 
+    // Ids are handed out 50 at a time from a sequence, so saveAll() can use JDBC batch inserts
+    // (IDENTITY forces Hibernate to insert rows one by one to read each generated key back)
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_log_seq")
+    @SequenceGenerator(name = "notification_log_seq", sequenceName = "notification_logs_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     private String recipient; // e.g., Student Roll Number
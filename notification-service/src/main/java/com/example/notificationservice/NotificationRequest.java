@@ -0,0 +1,15 @@
+package com.example.notificationservice;
+
+// One message in a POST /notify/batch body
+public class NotificationRequest {
+
+    private String rollNumber;
+    private String message;
+
+    public NotificationRequest() {}
+
+    public String getRollNumber() { return rollNumber; }
+    public void setRollNumber(String rollNumber) { this.rollNumber = rollNumber; }
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+}
@@ -0,0 +1,19 @@
+package com.example.notificationservice;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Reflection hints for the native image (see the native profile in pom.xml): the batch request
+ * order-service posts and the stored log entry.
+ */
+public class NotificationRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                NotificationRequest.class,
+                NotificationLog.class);
+    }
+}
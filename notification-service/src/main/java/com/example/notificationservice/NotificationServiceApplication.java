@@ -1,9 +1,17 @@
 package com.example.notificationservice;
 
+import com.example.common.EventLog;
+import com.example.common.ReadReplicaConfig;
+import com.example.common.ReadYourWrites;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+// Shared beans from common/ (outside this package, so not found by component scanning)
+@Import({ EventLog.class, ReadReplicaConfig.class, ReadYourWrites.class })
+@ImportRuntimeHints(NotificationRuntimeHints.class)
 public class NotificationServiceApplication {
 
 	public static void main(String[] args) {
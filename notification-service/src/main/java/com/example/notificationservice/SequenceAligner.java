@@ -0,0 +1,42 @@
+package com.example.notificationservice;
+
+import com.example.common.EventLog;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// notification_logs used to get its ids from an IDENTITY column. Ids now come from
+// notification_logs_seq (so inserts can be batched), which starts at 1 on an existing
+// database - move it past the highest id already in the table so they can't collide.
+// Runs while the context starts, after Hibernate has created the sequence and before the web
+// server takes a request that could insert a log row.
+@Component
+@DependsOn("entityManagerFactory")
+public class SequenceAligner {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EventLog eventLog;
+
+    @PostConstruct
+    void align() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            return; // fresh in-memory databases never had IDENTITY ids
+        }
+
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM notification_logs", Long.class);
+        Long next = jdbcTemplate.queryForObject("SELECT last_value FROM notification_logs_seq", Long.class);
+
+        if (maxId != null && next != null && next <= maxId + NotificationLog.ID_ALLOCATION_SIZE) {
+            jdbcTemplate.queryForObject("SELECT setval('notification_logs_seq', ?)", Long.class,
+                    maxId + NotificationLog.ID_ALLOCATION_SIZE);
+            eventLog.info("notify.sequence.aligned", "maxId", maxId);
+        }
+    }
+}
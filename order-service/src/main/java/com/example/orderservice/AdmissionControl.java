@@ -0,0 +1,258 @@
+package com.example.orderservice;
+
+import com.example.common.EventLog;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides at the door whether an order request gets in, before it costs a database write or a
+ * downstream call. Turned-away requests get an answer straight away instead of queueing.
+ * Asked only for requests that will run an order: a retry whose idempotency key already has an
+ * answer is replayed without it (see IdempotencyService).
+ *
+ * 1. Globally: at most "limit" orders in progress - requests being handled plus, in saga mode,
+ *    accepted orders the saga hasn't finished yet. Over it: 503 with Retry-After.
+ *    The limit adapts once per window to how long menu and wallet calls take. While they stay
+ *    within latency-tolerance times the best window seen recently and the limit is actually in
+ *    use, it grows by about its square root; when they slow down it shrinks in proportion.
+ * 2. Per student: a token bucket of order.admission.burst orders, refilled at rate-per-second.
+ *    Over it: 429 with Retry-After for when the next order fits. Each bucket is one AtomicLong
+ *    (the time it is full again), and the sweep drops students whose bucket has refilled -
+ *    a new bucket starts full, so forgetting them changes nothing.
+ *
+ * Counted in order.admission{outcome=admitted|rate_limited|overloaded}.
+ */
+@Component
+public class AdmissionControl implements MeterBinder {
+
+    /** Held while an admitted request is being handled. */
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final Permit NO_PERMIT = () -> { };
+    private static final int BASELINE_WINDOWS = 60;
+
+    @Autowired
+    @Qualifier("menuClient")
+    private DownstreamClient menuClient;
+
+    @Autowired
+    @Qualifier("walletClient")
+    private DownstreamClient walletClient;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private EventLog eventLog;
+
+    @Value("${order.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${order.saga.enabled:true}")
+    private boolean sagaEnabled;
+
+    @Value("${order.admission.rate-per-second:0.5}")
+    private double ratePerSecond;
+
+    @Value("${order.admission.burst:5}")
+    private int burst;
+
+    @Value("${order.admission.initial-limit:200}")
+    private int initialLimit;
+
+    @Value("${order.admission.min-limit:10}")
+    private int minLimit;
+
+    @Value("${order.admission.max-limit:2000}")
+    private int maxLimit;
+
+    @Value("${order.admission.latency-tolerance:2.0}")
+    private double latencyTolerance;
+
+    @Value("${order.admission.window-ms:1000}")
+    private long windowMs;
+
+    // Per student: nanoTime at which the bucket is full again
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private long intervalNanos;
+    private long burstNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong sagaBacklog = new AtomicLong();
+    private final AtomicLong peakInProgress = new AtomicLong();
+    private volatile int limit;
+
+    // Downstream calls in the current window; averages of recent windows for the baseline
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder callNanos = new LongAdder();
+    private final double[] recentRttMs = new double[BASELINE_WINDOWS];
+    private int windows;
+    private volatile double rttMs;
+    private volatile double baselineRttMs;
+
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong overloaded = new AtomicLong();
+
+    private final Permit release = inFlight::decrementAndGet;
+
+    @PostConstruct
+    void init() {
+        intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        burstNanos = intervalNanos * Math.max(burst - 1, 0);
+        limit = Math.clamp(initialLimit, minLimit, maxLimit);
+        Arrays.fill(recentRttMs, Double.MAX_VALUE);
+        menuClient.onCallTimed(this::recordCall);
+        walletClient.onCallTimed(this::recordCall);
+    }
+
+    // Throws AdmissionRejectedException (429 or 503) when the order should not go ahead
+    public Permit admit(String rollNumber) {
+        if (!enabled) {
+            return NO_PERMIT;
+        }
+        long inProgress = inFlight.incrementAndGet() + sagaBacklog.get();
+        if (inProgress > limit) {
+            inFlight.decrementAndGet();
+            overloaded.incrementAndGet();
+            throw new AdmissionRejectedException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "The canteen is very busy right now, please try again in a moment", windowMs);
+        }
+        long waitNanos = takeToken(rollNumber);
+        if (waitNanos > 0) {
+            inFlight.decrementAndGet();
+            rateLimited.incrementAndGet();
+            throw new AdmissionRejectedException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Too many orders, please wait a moment", TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        }
+        peakInProgress.accumulateAndGet(inProgress, Math::max);
+        admitted.incrementAndGet();
+        if (sagaEnabled) {
+            // Until the next window resyncs it from the outbox
+            sagaBacklog.incrementAndGet();
+        }
+        return release;
+    }
+
+    // 0 when the student may order now, otherwise nanos until they may
+    private long takeToken(String rollNumber) {
+        long now = System.nanoTime();
+        AtomicLong fullAt = buckets.computeIfAbsent(rollNumber, k -> new AtomicLong(now));
+        while (true) {
+            long current = fullAt.get();
+            long from = current - now > 0 ? current : now;
+            long overdraft = from - now - burstNanos;
+            if (overdraft > 0) {
+                return overdraft;
+            }
+            if (fullAt.compareAndSet(current, from + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    void recordCall(long nanos) {
+        calls.increment();
+        callNanos.add(nanos);
+    }
+
+    @Scheduled(fixedDelayString = "${order.admission.window-ms:1000}")
+    public synchronized void adjust() {
+        if (!enabled) {
+            return;
+        }
+        if (sagaEnabled) {
+            sagaBacklog.set(outboxRepository.countByCompletedAtIsNull());
+        }
+        long peak = peakInProgress.getAndSet(inFlight.get() + sagaBacklog.get());
+        long count = calls.sumThenReset();
+        long total = callNanos.sumThenReset();
+        if (count == 0) {
+            return;
+        }
+
+        double rtt = total / (double) count / 1_000_000;
+        recentRttMs[windows++ % BASELINE_WINDOWS] = rtt;
+        double baseline = Arrays.stream(recentRttMs).min().orElse(rtt);
+        rttMs = rtt;
+        baselineRttMs = baseline;
+
+        int current = limit;
+        int next = current;
+        if (rtt > baseline * latencyTolerance) {
+            next = (int) (current * baseline * latencyTolerance / rtt);
+        } else if (peak * 2 >= current) {
+            next = current + (int) Math.ceil(Math.sqrt(current));
+        }
+        limit = Math.clamp(next, minLimit, maxLimit);
+        if (limit < current) {
+            eventLog.info("order.admission.limit", "limit", limit, "was", current,
+                    "rttMs", Math.round(rtt), "baselineMs", Math.round(baseline));
+        }
+    }
+
+    // Students whose bucket is full again; they'd start with a full one anyway
+    @Scheduled(fixedDelayString = "${order.admission.sweep-interval-ms:10000}")
+    public void evictIdleStudents() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(fullAt -> fullAt.get() - now <= 0);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("limit", limit);
+        stats.put("inFlight", inFlight.get());
+        stats.put("sagaBacklog", sagaBacklog.get());
+        stats.put("rttMs", Math.round(rttMs * 10) / 10.0);
+        stats.put("baselineRttMs", Math.round(baselineRttMs * 10) / 10.0);
+        stats.put("trackedStudents", buckets.size());
+        stats.put("admitted", admitted.get());
+        stats.put("rateLimited", rateLimited.get());
+        stats.put("overloaded", overloaded.get());
+        return stats;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        outcome(registry, "admitted", admitted);
+        outcome(registry, "rate_limited", rateLimited);
+        outcome(registry, "overloaded", overloaded);
+        Gauge.builder("order.admission.limit", this, a -> a.limit)
+                .description("Orders allowed in progress at once")
+                .register(registry);
+        Gauge.builder("order.admission.in.progress", this, a -> a.inFlight.get() + a.sagaBacklog.get())
+                .description("Requests being handled plus orders the saga hasn't finished")
+                .register(registry);
+        Gauge.builder("order.admission.students", buckets, Map::size)
+                .description("Students with a partly used token bucket")
+                .register(registry);
+    }
+
+    private static void outcome(MeterRegistry registry, String outcome, AtomicLong counter) {
+        FunctionCounter.builder("order.admission", counter, AtomicLong::get)
+                .description("Order requests at the edge, by admission decision")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
@@ -1,13 +1,123 @@
 package com.example.orderservice;
 
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import io.micrometer.observation.ObservationRegistry;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Configuration
+@EnableConfigurationProperties(DownstreamProperties.class)
 public class AppConfig {
+
+    // One keep-alive connection pool shared by every downstream call
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager connectionManager(DownstreamProperties properties) {
+        // Connect timeouts live on the pool, so resolve them per target host:port
+        Map<String, ConnectionConfig> configByTarget = new HashMap<>();
+        for (DownstreamProperties.Target target : properties.getServices().values()) {
+            configByTarget.put(hostAndPort(URI.create(target.getUrl())), connectionConfig(target.getConnectTimeoutMs()));
+        }
+        ConnectionConfig defaultConfig = connectionConfig(500);
+
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(properties.getPool().getMaxTotal())
+                .setMaxConnPerRoute(properties.getPool().getMaxPerRoute())
+                .setConnectionConfigResolver(route -> configByTarget.getOrDefault(
+                        hostAndPort(URI.create(route.getTargetHost().toURI())), defaultConfig))
+                .build();
+    }
+
+    // Pool gauges (leased / available / pending / max) as httpcomponents.httpclient.pool.*
+    @Bean
+    public MeterBinder connectionPoolMetrics(PoolingHttpClientConnectionManager connectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "downstream");
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager connectionManager, DownstreamProperties properties) {
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(properties.getPool().getIdleEvictMs()))
+                .build();
+    }
+
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public DownstreamClient menuClient(CloseableHttpClient httpClient, DownstreamProperties properties,
+                                       ObservationRegistry observationRegistry) {
+        return downstreamClient("menu", httpClient, properties.service("menu"), observationRegistry);
+    }
+
+    @Bean
+    public DownstreamClient walletClient(CloseableHttpClient httpClient, DownstreamProperties properties,
+                                         ObservationRegistry observationRegistry) {
+        return downstreamClient("wallet", httpClient, properties.service("wallet"), observationRegistry);
+    }
+
+    @Bean
+    public DownstreamClient notificationClient(CloseableHttpClient httpClient, DownstreamProperties properties,
+                                               ObservationRegistry observationRegistry) {
+        return downstreamClient("notification", httpClient, properties.service("notification"), observationRegistry);
+    }
+
+    // One virtual thread per pipeline step; cheap enough that blocking HTTP calls don't matter.
+    // Wrapped so each step carries the caller's trace context and its calls join the same trace.
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService pipelineExecutor() {
+        return ContextExecutorService.wrap(Executors.newVirtualThreadPerTaskExecutor(),
+                ContextSnapshotFactory.builder().build());
+    }
+
+    private static ConnectionConfig connectionConfig(long connectTimeoutMs) {
+        return ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                .setTimeToLive(TimeValue.ofMinutes(5))
+                .build();
+    }
+
+    private static String hostAndPort(URI uri) {
+        int port = uri.getPort() != -1 ? uri.getPort() : ("https".equals(uri.getScheme()) ? 443 : 80);
+        return uri.getHost() + ":" + port;
+    }
+
+    static DownstreamClient downstreamClient(String name, CloseableHttpClient httpClient, DownstreamProperties.Target target) {
+        return downstreamClient(name, httpClient, target, ObservationRegistry.NOOP);
+    }
+
+    // Every call is timed (http.client.requests, one timer per service and route) and carries
+    // the current trace id to the other service as a traceparent header
+    static DownstreamClient downstreamClient(String name, CloseableHttpClient httpClient, DownstreamProperties.Target target,
+                                             ObservationRegistry observationRegistry) {
+        HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        factory.setReadTimeout(Duration.ofMillis(target.getReadTimeoutMs()));
+        factory.setConnectionRequestTimeout(Duration.ofMillis(target.getBulkheadWaitMs()));
+
+        RestTemplate restTemplate = new RestTemplate(factory);
+        restTemplate.setObservationRegistry(observationRegistry);
+        restTemplate.setObservationConvention(new DownstreamObservationConvention(name));
+
+        return new DownstreamClient(name, target.getUrl(), restTemplate,
+                new CircuitBreaker(target.getFailureThreshold(), target.getOpenMs()),
+                target.getMaxConcurrent(), target.getBulkheadWaitMs());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,45 @@
+package com.example.orderservice;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import java.util.Map;
+
+// Endpoints shaped for the pages order-service serves, so the browser makes one call instead of several
+@RestController
+@RequestMapping("/bff")
+public class BffController {
+
+    @Autowired
+    private HomePageService homePage;
+
+    @Autowired
+    private SessionTokenVerifier sessionTokens;
+
+    @Value("${order.bff.home.max-menu-page-size:100}")
+    private int maxMenuPageSize;
+
+    // 1. Home page: { rollNumber, profile, menu, menuStale, unavailable } for the student in the session token.
+    // profile is wallet-service's wallet, menu the first page of /menu/search with menuSize items.
+    @GetMapping("/home")
+    public Map<String, Object> home(@RequestParam(required = false) String rollNumber,
+                                    @RequestParam(defaultValue = "24") int menuSize,
+                                    HttpServletRequest request) throws InterruptedException {
+        if (menuSize <= 0 || menuSize > maxMenuPageSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "menuSize must be between 1 and " + maxMenuPageSize);
+        }
+        return homePage.home(sessionTokens.requireStudent(request, rollNumber), menuSize);
+    }
+
+    // 2. Home page aggregation: menu cache hits vs fetches, stale menus served, parts left out
+    @GetMapping("/home-stats")
+    public Map<String, Object> homeStats() {
+        return homePage.stats();
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.orderservice;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Per-service circuit breaker.
+ *
+ * CLOSED: calls go through. After failureThreshold failures in a row it trips to OPEN.
+ * OPEN: calls are refused straight away until openMillis has passed.
+ * HALF_OPEN: one trial call is let through; success closes the breaker, failure re-opens it.
+ *
+ * Only the trial decides how HALF_OPEN ends. Calls that were let through before the breaker
+ * tripped may still finish afterwards; their outcome is counted but doesn't move it out of
+ * OPEN or HALF_OPEN.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /** What tryAcquire() allowed; hand it back to onSuccess()/onFailure(). */
+    public enum Permit { REFUSED, CALL, TRIAL }
+
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean trialInFlight = new AtomicBoolean();
+    private volatile long openedAt;
+
+    private final AtomicLong successes = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    // REFUSED when the call should not be attempted at all
+    public Permit tryAcquire() {
+        State current = state.get();
+        if (current == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openMillis) {
+                rejected.incrementAndGet();
+                return Permit.REFUSED;
+            }
+            state.compareAndSet(State.OPEN, State.HALF_OPEN);
+            current = state.get();
+        }
+        if (current == State.HALF_OPEN) {
+            if (!trialInFlight.compareAndSet(false, true)) {
+                rejected.incrementAndGet();
+                return Permit.REFUSED;
+            }
+            return Permit.TRIAL;
+        }
+        return Permit.CALL;
+    }
+
+    public void onSuccess(Permit permit) {
+        successes.incrementAndGet();
+        if (permit == Permit.TRIAL) {
+            consecutiveFailures.set(0);
+            state.compareAndSet(State.HALF_OPEN, State.CLOSED);
+            trialInFlight.set(false);
+        } else if (state.get() == State.CLOSED) {
+            consecutiveFailures.set(0);
+        }
+    }
+
+    public void onFailure(Permit permit) {
+        failures.incrementAndGet();
+        if (permit == Permit.TRIAL) {
+            openedAt = System.currentTimeMillis();
+            state.compareAndSet(State.HALF_OPEN, State.OPEN);
+            trialInFlight.set(false);
+        } else if (consecutiveFailures.incrementAndGet() >= failureThreshold && state.get() == State.CLOSED) {
+            // openedAt first, so nobody sees OPEN with the time of the previous trip
+            openedAt = System.currentTimeMillis();
+            state.compareAndSet(State.CLOSED, State.OPEN);
+        }
+    }
+
+    public State getState() { return state.get(); }
+    public long getSuccesses() { return successes.get(); }
+    public long getFailures() { return failures.get(); }
+    public long getRejected() { return rejected.get(); }
+}
@@ -1,6 +1,9 @@
 package com.example.orderservice;
 
+import com.example.common.Money;
 import com.fasterxml.jackson.annotation.JsonProperty; 
+import java.util.List;
+import java.util.Map;
 
 public class DTOs {
     
@@ -8,7 +11,7 @@ public class DTOs {
     public static class MenuItemDTO {
         public Long id;
         public String name;
-        public double price;
+        public long price; // paise, like every amount between the services (see Money)
         public String category; 
         public String imageUrl;
         
@@ -21,9 +24,75 @@ public class DTOs {
         public int quantity;
     }
 
+    // "snapshot" event of Menu Service's /menu/stream feed: the whole menu at one version
+    public static class MenuSnapshotDTO {
+        public long version;
+        public List<MenuItemDTO> items;
+    }
+
+    // "stock" event of /menu/stream: the new stock of one item as of menu version "version"
+    public static class StockDeltaDTO {
+        public Long itemId;
+        public int quantity;
+        public boolean available;
+        public long version;
+    }
+
+    // One page of Menu Service's GET /menu/search, with item counts per category
+    public static class MenuPageDTO {
+        public List<MenuItemDTO> items;
+        public int total;
+        public int page;
+        public int size;
+        public Map<String, Integer> categories;
+    }
+
     // Holds data coming from Wallet Service
     public static class WalletDTO {
         public String rollNumber;
-        public double balance;
+        public String studentName;
+        public long balance;
+    }
+
+    // Holds a stock reservation from Menu Service
+    public static class ReservationDTO {
+        public Long id;
+        public Long itemId;
+        public int quantity;
+        public String itemName;
+        public long unitPrice;
+        public String status;
+    }
+
+    // One line of a cart: "qty" units of "itemId"
+    public static class CartLineDTO {
+        public Long itemId;
+        public int qty;
+
+        public CartLineDTO() {}
+
+        public CartLineDTO(Long itemId, int qty) {
+            this.itemId = itemId;
+            this.qty = qty;
+        }
+    }
+
+    // Body of POST /order/checkout
+    public static class CheckoutRequest {
+        public String rollNumber;
+        public List<CartLineDTO> items;
+    }
+
+    // One message for Notification Service (POST /notify/batch takes a list of these)
+    public static class NotificationDTO {
+        public String rollNumber;
+        public String message;
+
+        public NotificationDTO() {}
+
+        public NotificationDTO(String rollNumber, String message) {
+            this.rollNumber = rollNumber;
+            this.message = message;
+        }
     }
 }
\ No newline at end of file
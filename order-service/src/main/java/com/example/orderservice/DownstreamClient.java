@@ -0,0 +1,143 @@
+package com.example.orderservice;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+/**
+ * HTTP client for one downstream service (menu, wallet or notification).
+ *
+ * Every call goes through the service's own circuit breaker and bulkhead, and uses a
+ * RestTemplate with that service's connect/read timeouts on top of the shared connection pool.
+ * A slow or dead service therefore fails fast and only ties up its own share of threads.
+ * 4xx answers (sold out, insufficient funds, ...) are business results, not outages, so
+ * they don't count against the breaker.
+ *
+ * The calls themselves are timed by the RestTemplate (see AppConfig); as a MeterBinder this
+ * adds what never reaches it: calls turned away by the bulkhead or the open breaker.
+ * A latency listener (see AdmissionControl) is told how long each call that did go out took.
+ */
+public class DownstreamClient implements MeterBinder {
+
+    private final String name;
+    private final String baseUrl;
+    private final RestTemplate restTemplate;
+    private final CircuitBreaker breaker;
+    private final Semaphore bulkhead;
+    private final int maxConcurrent;
+    private final long bulkheadWaitMillis;
+    private final AtomicLong bulkheadRejected = new AtomicLong();
+    private volatile LongConsumer latencyListener = nanos -> { };
+
+    public DownstreamClient(String name, String baseUrl, RestTemplate restTemplate, CircuitBreaker breaker,
+                            int maxConcurrent, long bulkheadWaitMillis) {
+        this.name = name;
+        this.baseUrl = baseUrl;
+        this.restTemplate = restTemplate;
+        this.breaker = breaker;
+        this.bulkhead = new Semaphore(maxConcurrent);
+        this.maxConcurrent = maxConcurrent;
+        this.bulkheadWaitMillis = bulkheadWaitMillis;
+    }
+
+    public <T> T get(String path, Class<T> responseType) {
+        return execute(rest -> rest.getForObject(baseUrl + path, responseType));
+    }
+
+    public <T> T post(String path, Object body, Class<T> responseType) {
+        return execute(rest -> rest.postForObject(baseUrl + path, body, responseType));
+    }
+
+    // For calls that need the full RestTemplate API (headers, exchange, ...); paths are relative to baseUrl
+    public <T> T execute(Function<RestTemplate, T> call) {
+        if (!acquireBulkhead()) {
+            throw new ServiceUnavailableException(name + " is busy");
+        }
+        CircuitBreaker.Permit permit = breaker.tryAcquire();
+        if (permit == CircuitBreaker.Permit.REFUSED) {
+            bulkhead.release();
+            throw new ServiceUnavailableException(name + " circuit is open");
+        }
+        long start = System.nanoTime();
+        try {
+            T result = call.apply(restTemplate);
+            breaker.onSuccess(permit);
+            return result;
+        } catch (HttpClientErrorException e) {
+            breaker.onSuccess(permit);
+            throw e;
+        } catch (RuntimeException e) {
+            breaker.onFailure(permit);
+            throw e;
+        } finally {
+            bulkhead.release();
+            latencyListener.accept(System.nanoTime() - start);
+        }
+    }
+
+    // Called with the duration in nanos of every call that reached the service, failed or not
+    public void onCallTimed(LongConsumer listener) {
+        this.latencyListener = listener;
+    }
+
+    public String url(String path) {
+        return baseUrl + path;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("baseUrl", baseUrl);
+        stats.put("breakerState", breaker.getState().name());
+        stats.put("successes", breaker.getSuccesses());
+        stats.put("failures", breaker.getFailures());
+        stats.put("breakerRejected", breaker.getRejected());
+        stats.put("inFlight", maxConcurrent - bulkhead.availablePermits());
+        stats.put("maxConcurrent", maxConcurrent);
+        stats.put("bulkheadRejected", bulkheadRejected.get());
+        return stats;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("downstream.rejected", bulkheadRejected, AtomicLong::get)
+                .description("Calls refused before reaching the service")
+                .tags("service", name, "reason", "bulkhead")
+                .register(registry);
+        FunctionCounter.builder("downstream.rejected", breaker, CircuitBreaker::getRejected)
+                .description("Calls refused before reaching the service")
+                .tags("service", name, "reason", "circuit_open")
+                .register(registry);
+        Gauge.builder("downstream.in.flight", bulkhead, b -> maxConcurrent - b.availablePermits())
+                .tag("service", name)
+                .register(registry);
+        Gauge.builder("downstream.circuit.open", breaker, b -> b.getState() == CircuitBreaker.State.CLOSED ? 0 : 1)
+                .description("1 while the breaker is open or half-open")
+                .tag("service", name)
+                .register(registry);
+    }
+
+    public String getName() { return name; }
+    public CircuitBreaker getBreaker() { return breaker; }
+
+    private boolean acquireBulkhead() {
+        try {
+            if (bulkhead.tryAcquire(bulkheadWaitMillis, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        bulkheadRejected.incrementAndGet();
+        return false;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.orderservice;
+
+import io.micrometer.common.KeyValue;
+import org.springframework.http.client.observation.ClientRequestObservationContext;
+import org.springframework.http.client.observation.DefaultClientRequestObservationConvention;
+
+/**
+ * Names the timers and spans for calls to one downstream service (http.client.requests).
+ *
+ * client.name is the service ("menu", "wallet", "notification") instead of "localhost", and
+ * uri is the path with ids and roll numbers swapped for {id} and the query dropped, e.g.
+ * /menu/reserve/{id} or /wallet/deduct - so there is one timer per hop, not one per item.
+ */
+public class DownstreamObservationConvention extends DefaultClientRequestObservationConvention {
+
+    private final String service;
+
+    public DownstreamObservationConvention(String service) {
+        this.service = service;
+    }
+
+    @Override
+    protected KeyValue uri(ClientRequestObservationContext context) {
+        String url = context.getUriTemplate();
+        if (url == null && context.getCarrier() != null) {
+            url = context.getCarrier().getURI().toString();
+        }
+        return KeyValue.of("uri", url == null ? "none" : route(url));
+    }
+
+    @Override
+    protected KeyValue clientName(ClientRequestObservationContext context) {
+        return KeyValue.of("client.name", service);
+    }
+
+    // Span name, e.g. "menu POST /menu/reserve/{id}"
+    @Override
+    public String getContextualName(ClientRequestObservationContext context) {
+        String method = context.getCarrier() != null ? context.getCarrier().getMethod().name() : "HTTP";
+        return service + " " + method + " " + uri(context).getValue();
+    }
+
+    // "http://localhost:8081/menu/reserve/5?qty=1" -> "/menu/reserve/{id}"
+    static String route(String url) {
+        String path = url;
+        int scheme = path.indexOf("://");
+        if (scheme >= 0) {
+            int slash = path.indexOf('/', scheme + 3);
+            path = slash >= 0 ? path.substring(slash) : "/";
+        }
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+        StringBuilder route = new StringBuilder();
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty()) continue;
+            route.append('/').append(segment.chars().anyMatch(Character::isDigit) ? "{id}" : segment);
+        }
+        return route.length() == 0 ? "/" : route.toString();
+    }
+}
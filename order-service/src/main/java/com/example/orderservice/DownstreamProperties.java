@@ -0,0 +1,64 @@
+package com.example.orderservice;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import java.util.HashMap;
+import java.util.Map;
+
+// Binds the "downstream.*" settings in application.properties
+@ConfigurationProperties(prefix = "downstream")
+public class DownstreamProperties {
+
+    private final Pool pool = new Pool();
+    private final Map<String, Target> services = new HashMap<>();
+
+    public Pool getPool() { return pool; }
+    public Map<String, Target> getServices() { return services; }
+
+    public Target service(String name) {
+        Target target = services.get(name);
+        if (target == null) {
+            throw new IllegalStateException("No downstream.services." + name + " configuration");
+        }
+        return target;
+    }
+
+    // Shared HTTP connection pool
+    public static class Pool {
+        private int maxTotal = 200;
+        private int maxPerRoute = 100;
+        private long idleEvictMs = 30_000;
+
+        public int getMaxTotal() { return maxTotal; }
+        public void setMaxTotal(int maxTotal) { this.maxTotal = maxTotal; }
+        public int getMaxPerRoute() { return maxPerRoute; }
+        public void setMaxPerRoute(int maxPerRoute) { this.maxPerRoute = maxPerRoute; }
+        public long getIdleEvictMs() { return idleEvictMs; }
+        public void setIdleEvictMs(long idleEvictMs) { this.idleEvictMs = idleEvictMs; }
+    }
+
+    // One downstream service: where it is, how long to wait, and when to give up on it
+    public static class Target {
+        private String url;
+        private long connectTimeoutMs = 500;
+        private long readTimeoutMs = 2000;
+        private int maxConcurrent = 64;
+        private long bulkheadWaitMs = 100;
+        private int failureThreshold = 5;
+        private long openMs = 5000;
+
+        public String getUrl() { return url; }
+        public void setUrl(String url) { this.url = url; }
+        public long getConnectTimeoutMs() { return connectTimeoutMs; }
+        public void setConnectTimeoutMs(long connectTimeoutMs) { this.connectTimeoutMs = connectTimeoutMs; }
+        public long getReadTimeoutMs() { return readTimeoutMs; }
+        public void setReadTimeoutMs(long readTimeoutMs) { this.readTimeoutMs = readTimeoutMs; }
+        public int getMaxConcurrent() { return maxConcurrent; }
+        public void setMaxConcurrent(int maxConcurrent) { this.maxConcurrent = maxConcurrent; }
+        public long getBulkheadWaitMs() { return bulkheadWaitMs; }
+        public void setBulkheadWaitMs(long bulkheadWaitMs) { this.bulkheadWaitMs = bulkheadWaitMs; }
+        public int getFailureThreshold() { return failureThreshold; }
+        public void setFailureThreshold(int failureThreshold) { this.failureThreshold = failureThreshold; }
+        public long getOpenMs() { return openMs; }
+        public void setOpenMs(long openMs) { this.openMs = openMs; }
+    }
+}
@@ -1,10 +1,16 @@
 package com.example.orderservice;
 
+import com.example.common.Money;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
-@Table(name = "food_orders")
+@Table(name = "food_orders",
+       // Serves the keyset-paginated history: one seek per page, already in order
+       indexes = @Index(name = "idx_food_orders_roll_time_id", columnList = "rollNumber, orderTime, id"))
 public class FoodOrder {
     
     @Id
@@ -17,15 +23,23 @@ public class FoodOrder {
     // ✅ NEW: Store item name for better transaction history
     private String itemName;
     
-    private double amount;
+    // In paise, like every amount here (see Money)
+    @Column(name = "amount_paise", columnDefinition = "bigint default 0 not null")
+    private long amount;
     private LocalDateTime orderTime;
-    private String status; // "CONFIRMED" or "FAILED"
+    private String status; // "PENDING", "CONFIRMED" or "FAILED"
+    private String failureReason; // why a PENDING order ended up FAILED
+    
+    // Cart orders keep one line per item; single-item orders leave this empty
+    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
+    private List<OrderLine> lines = new ArrayList<>();
     
     // --- CONSTRUCTORS ---
     public FoodOrder() {}
     
     // Old constructor (for backward compatibility)
-    public FoodOrder(String rollNumber, Long itemId, double amount, String status) {
+    public FoodOrder(String rollNumber, Long itemId, long amount, String status) {
         this.rollNumber = rollNumber;
         this.itemId = itemId;
         this.amount = amount;
@@ -34,7 +48,7 @@ public class FoodOrder {
     }
     
     // ✅ NEW: Enhanced constructor with item name
-    public FoodOrder(String rollNumber, Long itemId, String itemName, double amount, String status) {
+    public FoodOrder(String rollNumber, Long itemId, String itemName, long amount, String status) {
         this.rollNumber = rollNumber;
         this.itemId = itemId;
         this.itemName = itemName;
@@ -56,12 +70,23 @@ public class FoodOrder {
     public String getItemName() { return itemName; }
     public void setItemName(String itemName) { this.itemName = itemName; }
     
-    public double getAmount() { return amount; }
-    public void setAmount(double amount) { this.amount = amount; }
+    public long getAmount() { return amount; }
+    public void setAmount(long amount) { this.amount = amount; }
     
     public LocalDateTime getOrderTime() { return orderTime; }
     public void setOrderTime(LocalDateTime orderTime) { this.orderTime = orderTime; }
     
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
+    
+    public String getFailureReason() { return failureReason; }
+    public void setFailureReason(String failureReason) { this.failureReason = failureReason; }
+    
+    public List<OrderLine> getLines() { return lines; }
+    public void setLines(List<OrderLine> lines) { this.lines = lines; }
+    
+    public void addLine(OrderLine line) {
+        line.setOrder(this);
+        lines.add(line);
+    }
 }
@@ -0,0 +1,153 @@
+package com.example.orderservice;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Everything home.js needs to draw the page, in one response (GET /bff/home): the student's
+ * wallet from wallet-service and the first page of the menu from menu-service, fetched side
+ * by side in a {@link TaskScope}.
+ *
+ * The menu page is the same for every student, so it is kept for menu-ttl-ms per page size.
+ * When it expires one request fetches it again while the others keep getting the old copy, and
+ * if menu-service can't be reached the old copy is served marked stale. Live stock counts come
+ * from the /menu/stream feed the page subscribes to, so a copy a couple of seconds old is fine.
+ *
+ * A part that fails or runs past timeout-ms is left out (null, named in "unavailable") rather
+ * than failing the page; home.js then loads just that part the old way.
+ */
+@Service
+public class HomePageService {
+
+    @Autowired
+    @Qualifier("menuClient")
+    private DownstreamClient menuClient;
+
+    @Autowired
+    @Qualifier("walletClient")
+    private DownstreamClient walletClient;
+
+    @Autowired
+    @Qualifier("pipelineExecutor")
+    private ExecutorService executor;
+
+    @Value("${order.bff.home.menu-ttl-ms:2000}")
+    private long menuTtlMs;
+
+    @Value("${order.bff.home.timeout-ms:2000}")
+    private long timeoutMs;
+
+    private final Semaphore downstreamPermits;
+
+    private final Map<Integer, CachedPage> menuPages = new ConcurrentHashMap<>();
+    private final Set<Integer> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong pages = new AtomicLong();
+    private final AtomicLong menuCacheHits = new AtomicLong();
+    private final AtomicLong menuFetches = new AtomicLong();
+    private final AtomicLong menuServedStale = new AtomicLong();
+    private final AtomicLong partsUnavailable = new AtomicLong();
+
+    public HomePageService(@Value("${order.bff.home.max-in-flight:256}") int maxInFlight) {
+        this.downstreamPermits = new Semaphore(maxInFlight);
+    }
+
+    public Map<String, Object> home(String rollNumber, int menuPageSize) throws InterruptedException {
+        pages.incrementAndGet();
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("rollNumber", rollNumber);
+
+        try (TaskScope scope = new TaskScope(executor, downstreamPermits, Duration.ofMillis(timeoutMs))) {
+            Future<DTOs.WalletDTO> wallet = scope.fork(() -> walletClient.get("/wallet/" + rollNumber, DTOs.WalletDTO.class));
+            Future<MenuPart> menu = scope.fork(() -> menuPage(menuPageSize));
+            scope.join();
+
+            Set<String> unavailable = new LinkedHashSet<>();
+            page.put("profile", partOf(wallet, "profile", unavailable));
+            MenuPart menuPart = partOf(menu, "menu", unavailable);
+            page.put("menu", menuPart != null ? menuPart.page : null);
+            page.put("menuStale", menuPart != null && menuPart.stale);
+            page.put("unavailable", unavailable);
+        }
+        return page;
+    }
+
+    MenuPart menuPage(int size) {
+        CachedPage cached = menuPages.get(size);
+        if (cached != null && (System.nanoTime() - cached.fetchedAtNanos < TimeUnit.MILLISECONDS.toNanos(menuTtlMs)
+                || !refreshing.add(size))) {
+            // Fresh, or someone else is already fetching it again
+            menuCacheHits.incrementAndGet();
+            return new MenuPart(cached.page, false);
+        }
+        try {
+            menuFetches.incrementAndGet();
+            DTOs.MenuPageDTO fetched = menuClient.get("/menu/search?page=0&size=" + size, DTOs.MenuPageDTO.class);
+            menuPages.put(size, new CachedPage(fetched, System.nanoTime()));
+            return new MenuPart(fetched, false);
+        } catch (RuntimeException e) {
+            if (cached == null) {
+                throw e;
+            }
+            menuServedStale.incrementAndGet();
+            return new MenuPart(cached.page, true);
+        } finally {
+            if (cached != null) {
+                refreshing.remove(size);
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pages", pages.get());
+        stats.put("menuCacheHits", menuCacheHits.get());
+        stats.put("menuFetches", menuFetches.get());
+        stats.put("menuServedStale", menuServedStale.get());
+        stats.put("partsUnavailable", partsUnavailable.get());
+        stats.put("menuTtlMs", menuTtlMs);
+        return stats;
+    }
+
+    private <T> T partOf(Future<T> future, String name, Set<String> unavailable) {
+        if (future.state() == Future.State.SUCCESS) {
+            return future.resultNow();
+        }
+        partsUnavailable.incrementAndGet();
+        unavailable.add(name);
+        return null;
+    }
+
+    static class MenuPart {
+        final DTOs.MenuPageDTO page;
+        final boolean stale; // menu-service is unreachable; this is the last copy it gave us
+
+        MenuPart(DTOs.MenuPageDTO page, boolean stale) {
+            this.page = page;
+            this.stale = stale;
+        }
+    }
+
+    private static class CachedPage {
+        final DTOs.MenuPageDTO page;
+        final long fetchedAtNanos;
+
+        CachedPage(DTOs.MenuPageDTO page, long fetchedAtNanos) {
+            this.page = page;
+            this.fetchedAtNanos = fetchedAtNanos;
+        }
+    }
+}
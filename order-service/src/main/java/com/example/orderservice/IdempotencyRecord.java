@@ -0,0 +1,97 @@
+package com.example.orderservice;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+import java.time.LocalDateTime;
+
+// A key claimed by an order placed with an idempotency key, and once the order has run, its result.
+// Kept so a retry on another instance, after a restart or after the in-memory cache has dropped
+// the key still gets the original answer instead of a second order.
+@Entity
+@Table(name = "order_idempotency_keys",
+       indexes = @Index(name = "idx_idempotency_created", columnList = "createdAt"))
+public class IdempotencyRecord implements Persistable<String> {
+
+    // Outcome while the first request is still running (not an OrderResult.Outcome)
+    static final String PENDING = "PENDING";
+
+    @Id
+    private String id; // "<rollNumber>:<key>"
+
+    private String requestHash; // what was ordered under the key (see IdempotencyService)
+    private String outcome;
+    private String reason;
+    private Long orderId;
+    private String itemName;
+    @Column(name = "amount_paise", columnDefinition = "bigint default 0 not null")
+    private long amount; // paise
+    private LocalDateTime createdAt;
+
+    // A claim has to be a real INSERT, so a second claim on the same key fails on the primary key
+    // instead of being merged over the first one
+    @Transient
+    private boolean isNew;
+
+    // --- CONSTRUCTORS ---
+    public IdempotencyRecord() {}
+
+    public IdempotencyRecord(String id, String requestHash, OrderResult result) {
+        this.id = id;
+        this.requestHash = requestHash;
+        this.outcome = result.getOutcome().name();
+        this.reason = result.getReason();
+        if (result.getOrder() != null) {
+            this.orderId = result.getOrder().getId();
+            this.itemName = result.getOrder().getItemName();
+            this.amount = result.getOrder().getAmount();
+        }
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public static IdempotencyRecord pending(String id, String requestHash) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.id = id;
+        record.requestHash = requestHash;
+        record.outcome = PENDING;
+        record.createdAt = LocalDateTime.now();
+        record.isNew = true;
+        return record;
+    }
+
+    // Rebuilds the result the first request got (the order itself isn't reloaded;
+    // for an ACCEPTED order, GET /order/{id}/status has the current state)
+    public OrderResult toResult(String rollNumber) {
+        OrderResult.Outcome resultOutcome = OrderResult.Outcome.valueOf(outcome);
+        if (resultOutcome == OrderResult.Outcome.ACCEPTED) {
+            FoodOrder order = new FoodOrder(rollNumber, null, itemName, amount, "PENDING");
+            order.setId(orderId);
+            return OrderResult.accepted(order);
+        }
+        if (resultOutcome != OrderResult.Outcome.CONFIRMED) {
+            return OrderResult.failed(resultOutcome, reason);
+        }
+        FoodOrder order = new FoodOrder(rollNumber, null, itemName, amount, "CONFIRMED");
+        order.setId(orderId);
+        return OrderResult.confirmed(order);
+    }
+
+    public boolean isPending() { return PENDING.equals(outcome); }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    @PostPersist
+    @PostLoad
+    void markNotNew() { this.isNew = false; }
+
+    // --- GETTERS ---
+    @Override
+    public String getId() { return id; }
+    public String getRequestHash() { return requestHash; }
+    public String getOutcome() { return outcome; }
+    public String getReason() { return reason; }
+    public Long getOrderId() { return orderId; }
+    public String getItemName() { return itemName; }
+    public long getAmount() { return amount; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
@@ -0,0 +1,297 @@
+package com.example.orderservice;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Makes order placement safe to retry.
+ *
+ * A request carrying an idempotency key runs the order pipeline at most once per
+ * (rollNumber, key). A repeat gets the first request's result without touching Menu,
+ * Wallet or Notification; a repeat that arrives while the first is still running waits
+ * for it instead of running alongside it, or gets a 409 if the first runs elsewhere.
+ *
+ * The key is claimed before anything runs, by inserting a PENDING row into
+ * order_idempotency_keys: its primary key lets exactly one request on any instance win.
+ * The winner writes its result into that row - in saga mode in the same transaction as the
+ * PENDING order (see {@link OrderSaga#accept}). A request that ends in an exception keeps the
+ * key too, as FAILED: the money may already have moved, so a retry must not run it again.
+ *
+ * The row also holds a hash of what was ordered; reusing a key for a different item or cart is
+ * refused with 422. Recent keys are kept in a bounded in-memory map (oldest evicted first) so
+ * most retries don't need the table at all.
+ *
+ * Admission (see {@link AdmissionControl}) is only asked for once a request is going to run:
+ * replays are answered without taking a token from the student's bucket or an in-progress slot.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final int MAX_KEY_LENGTH = 100;
+
+    private static final int EVICTION_ATTEMPTS = 64;
+    private static final int MAX_REASON_LENGTH = 255;
+
+    /** A key this request has claimed; the result is stored under it exactly once. */
+    public static final class Claim {
+        private final String id;
+        private final String requestHash;
+        private volatile boolean stored;
+
+        private Claim(String id, String requestHash) {
+            this.id = id;
+            this.requestHash = requestHash;
+        }
+    }
+
+    private record Entry(String requestHash, CompletableFuture<OrderResult> result) {}
+
+    @Autowired
+    private IdempotencyRecordRepository recordRepository;
+
+    @Value("${order.idempotency.cache-size:10000}")
+    private int cacheSize;
+
+    @Value("${order.idempotency.retention-hours:24}")
+    private long retentionHours;
+
+    @Value("${order.pipeline.timeout-ms:5000}")
+    private long waitMillis;
+
+    private final Map<String, Entry> recent = new ConcurrentHashMap<>();
+    private final Queue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong replayedFromMemory = new AtomicLong();
+    private final AtomicLong replayedFromDatabase = new AtomicLong();
+    private final AtomicLong waitedInFlight = new AtomicLong();
+    private final AtomicLong keyReused = new AtomicLong();
+
+    // admit is called (and its permit held) only when the order actually runs.
+    // placeOrder gets the claim (null without a key) and may store its result itself, see store()
+    public OrderResult execute(String rollNumber, String key, List<DTOs.CartLineDTO> items,
+                               Supplier<AdmissionControl.Permit> admit, Function<Claim, OrderResult> placeOrder) {
+        if (key == null || key.isBlank()) {
+            try (AdmissionControl.Permit permit = admit.get()) {
+                return placeOrder.apply(null);
+            }
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Idempotency key is too long");
+        }
+        String id = rollNumber + ":" + key;
+        String requestHash = requestHash(items);
+
+        // 1. Seen recently (finished or still running): use that result
+        Entry mine = new Entry(requestHash, new CompletableFuture<>());
+        Entry existing = recent.putIfAbsent(id, mine);
+        if (existing != null) {
+            requireSameRequest(existing.requestHash(), requestHash);
+            if (existing.result().isDone()) {
+                replayedFromMemory.incrementAndGet();
+            } else {
+                waitedInFlight.incrementAndGet();
+            }
+            return await(existing.result());
+        }
+        insertionOrder.add(id);
+        evictOldest();
+
+        // 2. Not in memory: another instance (or this one, before an eviction) may hold the key
+        AdmissionControl.Permit permit = null;
+        Optional<IdempotencyRecord> stored;
+        try {
+            stored = recordRepository.findById(id);
+            if (stored.isEmpty()) {
+                // Going to run (unless another request claims it first): only now take a slot
+                permit = admit.get();
+                stored = claim(id, requestHash);
+            }
+            if (stored.isPresent()) {
+                requireSameRequest(stored.get().getRequestHash(), requestHash);
+                if (stored.get().isPending()) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT, "An order with this key is still being processed");
+                }
+            }
+        } catch (RuntimeException e) {
+            // Nothing ran under the key here (refused, held elsewhere, ...); the next retry looks again
+            close(permit);
+            recent.remove(id, mine);
+            mine.result().completeExceptionally(e);
+            throw e;
+        }
+        if (stored.isPresent()) {
+            close(permit);
+            replayedFromDatabase.incrementAndGet();
+            OrderResult result = stored.get().toResult(rollNumber);
+            mine.result().complete(result);
+            return result;
+        }
+
+        // 3. This request owns the key: run the order once and keep whatever comes of it
+        executed.incrementAndGet();
+        Claim claim = new Claim(id, requestHash);
+        OrderResult result;
+        try (AdmissionControl.Permit held = permit) {
+            result = placeOrder.apply(claim);
+        } catch (RuntimeException e) {
+            OrderResult failed = OrderResult.failed(OrderResult.Outcome.FAILED, failureReason(e));
+            storeQuietly(claim, failed);
+            mine.result().complete(failed);
+            throw e; // this caller still sees what went wrong; retries get the FAILED result
+        }
+        if (!claim.stored) {
+            storeQuietly(claim, result);
+        }
+        mine.result().complete(result);
+        return result;
+    }
+
+    // Writes the result into the claimed row. Called inside OrderSaga.accept's transaction so the
+    // PENDING order and the key's answer commit together; execute() stores it otherwise.
+    public void store(Claim claim, OrderResult result) {
+        if (claim == null) {
+            return;
+        }
+        recordRepository.save(new IdempotencyRecord(claim.id, claim.requestHash, truncated(result)));
+        claim.stored = true;
+    }
+
+    public Map<String, Object> stats() {
+        return Map.of(
+                "cached", recent.size(),
+                "executed", executed.get(),
+                "replayedFromMemory", replayedFromMemory.get(),
+                "replayedFromDatabase", replayedFromDatabase.get(),
+                "waitedInFlight", waitedInFlight.get(),
+                "keyReused", keyReused.get());
+    }
+
+    @Scheduled(fixedDelayString = "${order.idempotency.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        recordRepository.deleteCreatedBefore(LocalDateTime.now().minusHours(retentionHours));
+    }
+
+    // Same items and quantities, in any order; the single-item endpoint is a cart of one
+    static String requestHash(List<DTOs.CartLineDTO> items) {
+        List<String> lines = new ArrayList<>();
+        if (items != null) {
+            for (DTOs.CartLineDTO line : items) {
+                lines.add(line.itemId + "x" + line.qty);
+            }
+        }
+        lines.sort(null);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(String.join(",", lines).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every JVM has SHA-256
+        }
+    }
+
+    // Empty if this request now holds the key, otherwise the row of whoever does.
+    // The insert is what decides; a row that can't be read back yet (a lagging replica) counts as in progress.
+    private Optional<IdempotencyRecord> claim(String id, String requestHash) {
+        try {
+            recordRepository.saveAndFlush(IdempotencyRecord.pending(id, requestHash));
+            return Optional.empty();
+        } catch (DataIntegrityViolationException e) {
+            return Optional.of(recordRepository.findById(id)
+                    .orElseGet(() -> IdempotencyRecord.pending(id, requestHash)));
+        }
+    }
+
+    private void requireSameRequest(String storedHash, String requestHash) {
+        // Rows written before hashes were stored have none
+        if (storedHash != null && !storedHash.equals(requestHash)) {
+            keyReused.incrementAndGet();
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_CONTENT,
+                    "This idempotency key was already used for a different order");
+        }
+    }
+
+    private static void close(AdmissionControl.Permit permit) {
+        if (permit != null) {
+            permit.close();
+        }
+    }
+
+    private void storeQuietly(Claim claim, OrderResult result) {
+        try {
+            store(claim, result);
+        } catch (RuntimeException e) {
+            // The row stays PENDING: retries get a 409 until it is purged, never a second order
+        }
+    }
+
+    private OrderResult await(CompletableFuture<OrderResult> first) {
+        try {
+            // The first request is bounded by the pipeline timeout, so this only waits as long as it does
+            return first.get(waitMillis * 2, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "An order with this key is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the original order", e);
+        }
+    }
+
+    private static String failureReason(RuntimeException e) {
+        return e.getMessage() == null ? "Order could not be completed" : "Order could not be completed: " + e.getMessage();
+    }
+
+    private static OrderResult truncated(OrderResult result) {
+        String reason = result.getReason();
+        if (reason == null || reason.length() <= MAX_REASON_LENGTH) {
+            return result;
+        }
+        return OrderResult.failed(result.getOutcome(), reason.substring(0, MAX_REASON_LENGTH));
+    }
+
+    // Oldest keys go first; ones still running are put back so their waiters stay attached
+    private void evictOldest() {
+        int attempts = EVICTION_ATTEMPTS;
+        while (recent.size() > cacheSize && attempts-- > 0) {
+            String oldest = insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            Entry entry = recent.get(oldest);
+            if (entry != null && !entry.result().isDone()) {
+                insertionOrder.add(oldest);
+            } else {
+                recent.remove(oldest);
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.orderservice;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Component;
+
+// Keeps the last few thousand order latencies so p50/p99 can be compared between pipeline modes
+@Component
+public class LatencyRecorder {
+
+    private static final int WINDOW = 8192; // power of two
+
+    private final long[] samples = new long[WINDOW];
+    private final AtomicLong count = new AtomicLong();
+
+    public void record(long nanos) {
+        long i = count.getAndIncrement();
+        samples[(int) (i & (WINDOW - 1))] = nanos;
+    }
+
+    public Map<String, Object> snapshot() {
+        int n = (int) Math.min(count.get(), WINDOW);
+        long[] sorted = Arrays.copyOf(samples, n);
+        Arrays.sort(sorted);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("samples", n);
+        result.put("p50Ms", percentileMillis(sorted, 0.50));
+        result.put("p99Ms", percentileMillis(sorted, 0.99));
+        result.put("maxMs", percentileMillis(sorted, 1.0));
+        return result;
+    }
+
+    public void reset() {
+        count.set(0);
+    }
+
+    private static double percentileMillis(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
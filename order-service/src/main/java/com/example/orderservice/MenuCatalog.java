@@ -0,0 +1,82 @@
+package com.example.orderservice;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+/**
+ * Menu as seen by order-service.
+ *
+ * Served straight from the {@link MenuReplica} while its feed is live. Otherwise it keeps
+ * the last menu it fetched together with its ETag and asks menu-service with
+ * If-None-Match, so an unchanged menu comes back as an empty 304. The same copy is the
+ * last-known-good fallback when menu-service is down.
+ */
+@Component
+public class MenuCatalog {
+
+    @Autowired
+    @Qualifier("menuClient")
+    private DownstreamClient menuClient;
+
+    @Autowired
+    private MenuReplica menuReplica;
+
+    private volatile Cached lastKnownGood;
+
+    public Snapshot getMenu() {
+        DTOs.MenuItemDTO[] replicated = menuReplica.items();
+        if (replicated != null) {
+            return new Snapshot(replicated, false);
+        }
+
+        Cached cached = lastKnownGood;
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            if (cached != null && cached.etag != null) {
+                headers.setIfNoneMatch(cached.etag);
+            }
+            ResponseEntity<DTOs.MenuItemDTO[]> response = menuClient.execute(rest -> rest.exchange(
+                    menuClient.url("/menu"), HttpMethod.GET, new HttpEntity<>(headers), DTOs.MenuItemDTO[].class));
+
+            if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED) && cached != null) {
+                return new Snapshot(cached.items, false);
+            }
+            DTOs.MenuItemDTO[] items = response.getBody();
+            if (items != null) {
+                lastKnownGood = new Cached(items, response.getHeaders().getETag());
+            }
+            return new Snapshot(items, false);
+        } catch (RuntimeException e) {
+            if (cached == null) {
+                throw e;
+            }
+            return new Snapshot(cached.items, true);
+        }
+    }
+
+    private static class Cached {
+        final DTOs.MenuItemDTO[] items;
+        final String etag;
+
+        Cached(DTOs.MenuItemDTO[] items, String etag) {
+            this.items = items;
+            this.etag = etag;
+        }
+    }
+
+    public static class Snapshot {
+        public final DTOs.MenuItemDTO[] items;
+        public final boolean stale; // true when served from the last-known-good copy
+
+        public Snapshot(DTOs.MenuItemDTO[] items, boolean stale) {
+            this.items = items;
+            this.stale = stale;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.orderservice;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Local copy of the menu, kept up to date from Menu Service's /menu/stream SSE feed.
+ *
+ * Lets the home page render and the order pipeline turn away sold-out items without a
+ * synchronous call to Menu Service. The replica only counts as live while the stream is
+ * connected, has delivered its snapshot and has been heard from (event or heartbeat)
+ * recently; otherwise callers fall back to normal HTTP calls.
+ */
+@Component
+public class MenuReplica {
+
+    @Autowired
+    private DownstreamProperties downstreamProperties;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${order.menu.replica.enabled:true}")
+    private boolean enabled;
+
+    @Value("${order.menu.replica.stale-after-ms:45000}")
+    private long staleAfterMs;
+
+    @Value("${order.menu.replica.retry-ms:2000}")
+    private long retryMs;
+
+    private volatile State state; // null until the current connection has delivered its snapshot
+    private volatile InputStream stream;
+    private volatile long lastHeardAt;
+    private volatile boolean running;
+
+    private HttpClient httpClient;
+    private URI streamUri;
+    private Thread reader;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        DownstreamProperties.Target menu = downstreamProperties.getServices().get("menu");
+        streamUri = URI.create(menu.getUrl() + "/menu/stream");
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(menu.getConnectTimeoutMs()))
+                .build();
+        running = true;
+        reader = Thread.ofVirtual().name("menu-replica").start(this::readLoop);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        closeStream();
+        if (reader != null) {
+            reader.interrupt();
+        }
+    }
+
+    public boolean isLive() {
+        if (state == null || stream == null) {
+            return false;
+        }
+        if (System.nanoTime() - lastHeardAt > Duration.ofMillis(staleAfterMs).toNanos()) {
+            // Nothing heard for too long (not even a heartbeat): drop the connection and reconnect
+            closeStream();
+            return false;
+        }
+        return true;
+    }
+
+    // null when the replica isn't live; read once, since a reconnect clears it at any moment
+    public DTOs.MenuItemDTO[] items() {
+        State current = state;
+        return (current == null || !isLive()) ? null : current.items.values().toArray(new DTOs.MenuItemDTO[0]);
+    }
+
+    // null when the replica isn't live or doesn't know the item
+    public DTOs.MenuItemDTO find(Long itemId) {
+        State current = state;
+        return (current == null || !isLive()) ? null : current.items.get(itemId);
+    }
+
+    public Map<String, Object> stats() {
+        State current = state;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("live", isLive());
+        stats.put("version", current == null ? null : current.version);
+        stats.put("items", current == null ? 0 : current.items.size());
+        return stats;
+    }
+
+    private void readLoop() {
+        while (running) {
+            try {
+                HttpRequest request = HttpRequest.newBuilder(streamUri)
+                        .header("Accept", "text/event-stream")
+                        .GET()
+                        .build();
+                HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+                if (response.statusCode() != 200) {
+                    response.body().close();
+                    throw new IOException("Menu stream answered " + response.statusCode());
+                }
+                state = null;
+                lastHeardAt = System.nanoTime();
+                stream = response.body();
+                readEvents(stream);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                // Menu Service down, connection dropped or a bad event: start over with a fresh snapshot
+            } finally {
+                closeStream();
+            }
+
+            try {
+                Thread.sleep(retryMs);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void readEvents(InputStream in) throws IOException {
+        BufferedReader lines = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String event = null;
+        StringBuilder data = new StringBuilder();
+        String line;
+        while ((line = lines.readLine()) != null) {
+            lastHeardAt = System.nanoTime();
+            if (line.isEmpty()) {
+                if (data.length() > 0) {
+                    apply(event, data.toString());
+                }
+                event = null;
+                data.setLength(0);
+            } else if (line.startsWith("event:")) {
+                event = line.substring(6).trim();
+            } else if (line.startsWith("data:")) {
+                if (data.length() > 0) data.append('\n');
+                data.append(line.substring(5).stripLeading());
+            }
+            // ids and ": ping" comments only matter as signs of life
+        }
+    }
+
+    private void apply(String event, String data) throws IOException {
+        if ("snapshot".equals(event)) {
+            DTOs.MenuSnapshotDTO snapshot = objectMapper.readValue(data, DTOs.MenuSnapshotDTO.class);
+            Map<Long, DTOs.MenuItemDTO> items = new LinkedHashMap<>();
+            for (DTOs.MenuItemDTO item : snapshot.items) {
+                items.put(item.id, item);
+            }
+            state = new State(snapshot.version, items);
+            return;
+        }
+
+        State current = state;
+        if (!"stock".equals(event) || current == null) {
+            return;
+        }
+        DTOs.StockDeltaDTO[] deltas = objectMapper.readValue(data, DTOs.StockDeltaDTO[].class);
+
+        // Copy-on-write: readers keep using the old map until the new one is complete
+        Map<Long, DTOs.MenuItemDTO> items = new LinkedHashMap<>(current.items);
+        long version = current.version;
+        for (DTOs.StockDeltaDTO delta : deltas) {
+            if (delta.version <= current.version) {
+                continue; // already part of the snapshot
+            }
+            DTOs.MenuItemDTO known = items.get(delta.itemId);
+            if (known == null) {
+                // A new item: deltas don't carry name/price, so reconnect for a full snapshot
+                throw new IOException("Unknown menu item " + delta.itemId);
+            }
+            items.put(delta.itemId, withStock(known, delta.quantity, delta.available));
+            version = Math.max(version, delta.version);
+        }
+        state = new State(version, items);
+    }
+
+    private void closeStream() {
+        InputStream current = stream;
+        stream = null;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static DTOs.MenuItemDTO withStock(DTOs.MenuItemDTO item, int quantity, boolean available) {
+        DTOs.MenuItemDTO copy = new DTOs.MenuItemDTO();
+        copy.id = item.id;
+        copy.name = item.name;
+        copy.price = item.price;
+        copy.category = item.category;
+        copy.imageUrl = item.imageUrl;
+        copy.type = item.type;
+        copy.isAvailable = available;
+        copy.quantity = quantity;
+        return copy;
+    }
+
+    private static class State {
+        final long version;
+        final Map<Long, DTOs.MenuItemDTO> items;
+
+        State(long version, Map<Long, DTOs.MenuItemDTO> items) {
+            this.version = version;
+            this.items = items;
+        }
+    }
+}
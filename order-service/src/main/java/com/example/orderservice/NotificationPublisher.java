@@ -0,0 +1,125 @@
+package com.example.orderservice;
+
+import com.example.common.EventLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends order notifications in the background so orders never wait on notification-service.
+ *
+ * Request threads only do a non-blocking offer() onto a bounded queue. One drainer thread
+ * collects whatever is queued (up to batch-size) and ships it with a single
+ * POST /notify/batch. When the queue is full the message is dropped and counted rather
+ * than slowing the order down - notifications are best-effort.
+ */
+@Component
+public class NotificationPublisher {
+
+    @Autowired
+    @Qualifier("notificationClient")
+    private DownstreamClient notificationClient;
+
+    @Autowired
+    private EventLog eventLog;
+
+    @Value("${order.notify.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${order.notify.batch-size:200}")
+    private int batchSize;
+
+    @Value("${order.notify.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    private BlockingQueue<DTOs.NotificationDTO> queue;
+    private Thread drainer;
+    private volatile boolean running = true;
+
+    // --- BACKPRESSURE METRICS ---
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong highWaterMark = new AtomicLong();
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        drainer = new Thread(this::drainLoop, "notification-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    // Never blocks: returns false (and counts a drop) when the queue is full
+    public boolean publish(String rollNumber, String message) {
+        if (!queue.offer(new DTOs.NotificationDTO(rollNumber, message))) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        enqueued.incrementAndGet();
+        highWaterMark.accumulateAndGet(queue.size(), Math::max);
+        return true;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queueDepth", queue.size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("highWaterMark", highWaterMark.get());
+        stats.put("enqueued", enqueued.get());
+        stats.put("dropped", dropped.get());
+        stats.put("sent", sent.get());
+        stats.put("failed", failed.get());
+        stats.put("batches", batches.get());
+        return stats;
+    }
+
+    private void drainLoop() {
+        List<DTOs.NotificationDTO> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                DTOs.NotificationDTO first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                send(batch);
+            } catch (InterruptedException e) {
+                // shutdown: loop once more to flush what's left
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void send(List<DTOs.NotificationDTO> batch) {
+        try {
+            notificationClient.post("/notify/batch", batch, String.class);
+            sent.addAndGet(batch.size());
+            batches.incrementAndGet();
+        } catch (Exception e) {
+            failed.addAndGet(batch.size());
+            eventLog.error("order.notify.batch.failed", e, "size", batch.size());
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        drainer.interrupt();
+        drainer.join(5000);
+    }
+}
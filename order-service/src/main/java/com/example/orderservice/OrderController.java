@@ -1,72 +1,226 @@
 package com.example.orderservice;
 
+import com.example.common.ReplicaRoutingDataSource;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.pool.PoolStats;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import java.io.IOException;
+import java.net.URI;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/order")
 public class OrderController {
 
     @Autowired
-    private OrderRepository orderRepository;
+    private OrderPipeline orderPipeline;
 
     @Autowired
-    private RestTemplate restTemplate;
+    private OrderHistoryService orderHistory;
 
-    @GetMapping("/place")
-    public String placeOrder(@RequestParam String rollNumber, @RequestParam Long itemId) {
+    @Autowired
+    private LatencyRecorder latencyRecorder;
 
-        // 1. Get Item Details from Menu Service
-        String menuUrl = "http://localhost:8081/menu/" + itemId;
-        DTOs.MenuItemDTO item = restTemplate.getForObject(menuUrl, DTOs.MenuItemDTO.class);
+    @Autowired
+    private NotificationPublisher notificationPublisher;
 
-        if (item == null) return "Item not found!";
+    @Autowired
+    private PoolingHttpClientConnectionManager connectionManager;
 
-        // Check Stock Validation
-        if (item.quantity <= 0) {
-            return "Order Failed: Item is SOLD OUT!";
-        }
+    @Autowired
+    private List<DownstreamClient> downstreamClients;
 
-        // 2. Deduct Balance from Wallet Service
-        String walletUrl = "http://localhost:8082/wallet/deduct?rollNumber=" + rollNumber + "&amount=" + item.price;
-        try {
-            restTemplate.postForObject(walletUrl, null, DTOs.WalletDTO.class);
-        } catch (Exception e) {
-            return "Order Failed: Insufficient Funds!";
-        }
+    @Autowired
+    private MenuReplica menuReplica;
 
-        // 3. Deduct Stock
-        int newQty = item.quantity - 1;
-        String stockUrl = "http://localhost:8081/menu/updateStock/" + item.id + "/" + newQty;
+    @Autowired
+    private SalesAnalytics salesAnalytics;
 
-        try {
-            restTemplate.postForObject(stockUrl, null, DTOs.MenuItemDTO.class);
-            System.out.println("✅ Stock update successful for Item ID: " + item.id);
-        } catch (Exception e) {
-            System.err.println("❌ FAILED TO UPDATE STOCK. URL: " + stockUrl);
-            e.printStackTrace();
-        }
+    @Autowired
+    private IdempotencyService idempotency;
 
-        // 4. Save Order with Item Name (✅ ENHANCED)
-        FoodOrder order = new FoodOrder(rollNumber, itemId, item.name, item.price, "CONFIRMED");
-        orderRepository.save(order);
+    @Autowired
+    private OrderSaga orderSaga;
 
-        // 5. Send Notification
-        String notifyUrl = "http://localhost:8084/notify/send?rollNumber=" + rollNumber + "&message=Order Placed Successfully for " + item.name;
-        try {
-            restTemplate.postForObject(notifyUrl, null, String.class);
-        } catch (Exception e) {
-            System.out.println("Failed to send notification");
-        }
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private SlowTraceRecorder slowTraceRecorder;
+
+    @Autowired
+    private SessionTokenVerifier sessionTokens;
+
+    @Autowired
+    private AdmissionControl admission;
+
+    @Autowired(required = false)
+    private ReplicaRoutingDataSource replicas;
+
+    // Send the same Idempotency-Key header (or ?idempotencyKey=) on retries to get the
+    // original answer back instead of a second order.
+    // In saga mode the answer is 202 Accepted with the order id; poll /order/{id}/status for the outcome.
+    // The student comes from the session token (Authorization: Bearer ...); rollNumber is optional and must match it.
+    // 429 (this student is ordering too fast) or 503 (too many orders in progress) carry a Retry-After header;
+    // a retry whose key already has an answer gets that answer and never counts against either limit.
+    @GetMapping("/place")
+    public ResponseEntity<String> placeOrder(@RequestParam(required = false) String rollNumber, @RequestParam Long itemId,
+                                             @RequestHeader(value = "Idempotency-Key", required = false) String keyHeader,
+                                             @RequestParam(required = false) String idempotencyKey,
+                                             HttpServletRequest httpRequest) {
+        String student = sessionTokens.requireStudent(httpRequest, rollNumber);
+        return respond(orderPipeline.placeOrder(student, itemId, keyHeader != null ? keyHeader : idempotencyKey));
+    }
+    
+    // ✅ NEW: Cart Checkout - many items, one wallet debit, one notification
+    @PostMapping("/checkout")
+    public ResponseEntity<String> checkout(@RequestBody DTOs.CheckoutRequest request,
+                                           @RequestHeader(value = "Idempotency-Key", required = false) String keyHeader,
+                                           @RequestParam(required = false) String idempotencyKey,
+                                           HttpServletRequest httpRequest) {
+        String student = sessionTokens.requireStudent(httpRequest, request.rollNumber);
+        return respond(orderPipeline.checkout(student, request.items, keyHeader != null ? keyHeader : idempotencyKey));
+    }
+    
+    // PENDING, CONFIRMED or FAILED (with the reason) for an accepted order; only for the student who placed it
+    @GetMapping("/{orderId}/status")
+    public Map<String, Object> getOrderStatus(@PathVariable Long orderId,
+                                              @RequestParam(required = false) String rollNumber,
+                                              HttpServletRequest httpRequest) {
+        return orderSaga.status(orderId, sessionTokens.requireStudent(httpRequest, rollNumber));
+    }
+    
+    // Outbox backlog and saga outcomes (confirmed, failed, refunds, retries)
+    @GetMapping("/saga-stats")
+    public Map<String, Object> getSagaStats() {
+        return outboxRelay.stats();
+    }
+    
+    // Order pipeline latency (p50/p99) for the current mode
+    @GetMapping("/latency")
+    public Map<String, Object> getLatency() {
+        Map<String, Object> stats = latencyRecorder.snapshot();
+        stats.put("mode", orderPipeline.getMode());
+        return stats;
+    }
+    
+    @DeleteMapping("/latency")
+    public void resetLatency() {
+        latencyRecorder.reset();
+    }
+    
+    // Notification queue health (depth, drops, failures)
+    @GetMapping("/notify-stats")
+    public Map<String, Object> getNotificationStats() {
+        return notificationPublisher.stats();
+    }
+    
+    // Connection pool + circuit breaker / bulkhead state for each downstream service
+    @GetMapping("/client-stats")
+    public Map<String, Object> getClientStats() {
+        PoolStats pool = connectionManager.getTotalStats();
+        Map<String, Object> poolStats = new LinkedHashMap<>();
+        poolStats.put("leased", pool.getLeased());
+        poolStats.put("available", pool.getAvailable());
+        poolStats.put("pending", pool.getPending());
+        poolStats.put("max", pool.getMax());
 
-        return "Order Placed Successfully! Order ID: " + order.getId();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pool", poolStats);
+        for (DownstreamClient client : downstreamClients) {
+            stats.put(client.getName(), client.stats());
+        }
+        stats.put("menuReplica", menuReplica.stats());
+        return stats;
     }
     
-    // ✅ NEW: Get Order History for a Student
+    // ✅ NEW: Span breakdown (pipeline, saga steps, menu/wallet/notification calls) of the latest slow orders
+    @GetMapping("/slow-traces")
+    public Map<String, Object> getSlowTraces() {
+        return slowTraceRecorder.snapshot();
+    }
+
+    // Session token checks: cache hits, signature checks, rejected requests
+    @GetMapping("/auth-stats")
+    public Map<String, Object> getAuthStats() {
+        return sessionTokens.stats();
+    }
+
+    // Admission control: current concurrency limit, orders in progress, admitted vs shed requests
+    @GetMapping("/admission-stats")
+    public Map<String, Object> getAdmissionStats() {
+        return admission.stats();
+    }
+
+    // Read replicas: reads per replica, reads kept on the primary (read-your-writes, failover)
+    @GetMapping("/db-stats")
+    public Map<String, Object> getDbStats() {
+        return replicas != null ? replicas.stats() : Map.of("replicas", List.of());
+    }
+
+    // Idempotency key hits and misses
+    @GetMapping("/idempotency-stats")
+    public Map<String, Object> getIdempotencyStats() {
+        return idempotency.stats();
+    }
+
+    // Sales dashboard: revenue/orders per item and category (last minute/hour/day), best-sellers, peak minute
+    @GetMapping("/stats")
+    public Map<String, Object> getSalesStats() {
+        return salesAnalytics.snapshot();
+    }
+
+    // ✅ NEW: Get Order History for a Student - newest first, one page at a time
+    // (pass nextCursor back as ?cursor= for the next page; from/to are optional dates, inclusive)
     @GetMapping("/history")
-    public List<FoodOrder> getOrderHistory(@RequestParam String rollNumber) {
-        return orderRepository.findByRollNumber(rollNumber);
+    public OrderHistoryPage getOrderHistory(@RequestParam(required = false) String rollNumber,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(defaultValue = "" + OrderHistoryService.DEFAULT_PAGE_SIZE) int limit,
+                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                            HttpServletRequest httpRequest) {
+        return orderHistory.page(sessionTokens.requireStudent(httpRequest, rollNumber), from, to, cursor, limit);
+    }
+
+    // Totals for the history page header (same date filters)
+    @GetMapping("/history/summary")
+    public OrderHistorySummary getOrderHistorySummary(@RequestParam(required = false) String rollNumber,
+                                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                      HttpServletRequest httpRequest) {
+        return orderHistory.summary(sessionTokens.requireStudent(httpRequest, rollNumber), from, to);
+    }
+
+    // Admin: every order as NDJSON (default) or CSV, streamed from a DB cursor
+    @GetMapping("/admin/export")
+    public void exportOrders(@RequestParam(defaultValue = "ndjson") String format,
+                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                             HttpServletResponse response) throws IOException {
+        if (!format.equals("ndjson") && !format.equals("csv")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format must be ndjson or csv");
+        }
+        response.setContentType(format.equals("csv") ? "text/csv;charset=UTF-8" : "application/x-ndjson;charset=UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=\"orders." + format + "\"");
+        orderHistory.export(format, from, to, response.getOutputStream());
+    }
+
+    private static ResponseEntity<String> respond(OrderResult result) {
+        if (result.isAccepted()) {
+            return ResponseEntity.accepted()
+                    .location(URI.create("/order/" + result.getOrder().getId() + "/status"))
+                    .body(result.toMessage());
+        }
+        return ResponseEntity.ok(result.toMessage());
     }
 }
@@ -0,0 +1,48 @@
+package com.example.orderservice;
+
+import com.example.common.Money;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+// One line of the admin order export. A plain row rather than a FoodOrder, so streaming
+// millions of them doesn't fill up the persistence context. The CSV has amounts in rupees
+// ("45.50") since it's read by people and spreadsheets, not by the services.
+public class OrderExportRow {
+
+    public static final String CSV_HEADER = "id,rollNumber,itemId,itemName,amount,orderTime,status";
+
+    public final Long id;
+    public final String rollNumber;
+    public final Long itemId;
+    public final String itemName;
+    public final long amount; // paise
+    public final LocalDateTime orderTime;
+    public final String status;
+
+    public OrderExportRow(Long id, String rollNumber, Long itemId, String itemName,
+                          long amount, LocalDateTime orderTime, String status) {
+        this.id = id;
+        this.rollNumber = rollNumber;
+        this.itemId = itemId;
+        this.itemName = itemName;
+        this.amount = amount;
+        this.orderTime = orderTime;
+        this.status = status;
+    }
+
+    public String toCsv() {
+        return id + "," + csv(rollNumber) + "," + (itemId == null ? "" : itemId) + "," + csv(itemName)
+                + "," + Money.format(amount) + "," + (orderTime == null ? "" : DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(orderTime)) + "," + csv(status);
+    }
+
+    // Quotes a field when it contains a comma, quote or line break (cart orders have "A x2, B x1" names)
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
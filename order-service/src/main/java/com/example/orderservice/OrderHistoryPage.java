@@ -0,0 +1,18 @@
+package com.example.orderservice;
+
+import java.util.List;
+
+// One page of GET /order/history; pass nextCursor back as ?cursor= for the next page (null on the last page)
+public class OrderHistoryPage {
+
+    private final List<FoodOrder> orders;
+    private final String nextCursor;
+
+    public OrderHistoryPage(List<FoodOrder> orders, String nextCursor) {
+        this.orders = orders;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<FoodOrder> getOrders() { return orders; }
+    public String getNextCursor() { return nextCursor; }
+}
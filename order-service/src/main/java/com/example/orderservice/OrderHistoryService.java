@@ -0,0 +1,126 @@
+package com.example.orderservice;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import tools.jackson.databind.ObjectMapper;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Order history reads: keyset-paginated pages for students and a streaming export for admins.
+ *
+ * Pages are ordered by (orderTime, id) newest first and continue from a cursor holding the
+ * last row's (orderTime, id), so page 500 costs the same index seek as page 1. The export
+ * walks the table through a DB cursor and writes rows out as it goes, in constant memory.
+ */
+@Service
+public class OrderHistoryService {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // Bounds used when no date filter is given
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 1, 1, 0, 0);
+
+    private static final int FLUSH_EVERY_ROWS = 1000;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // from/to are whole days, both inclusive
+    @Transactional(readOnly = true)
+    public OrderHistoryPage page(String rollNumber, LocalDate from, LocalDate to, String cursor, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        // No cursor: everything before the end of the range ("id < 0" never matches, so only orderTime counts)
+        LocalDateTime beforeTime = endOf(to);
+        long beforeId = 0;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] position = decodeCursor(cursor);
+            beforeTime = LocalDateTime.parse(position[0]);
+            beforeId = Long.parseLong(position[1]);
+        }
+
+        // Ask for one extra row to know whether there is a next page
+        List<FoodOrder> rows = orderRepository.findHistoryPage(rollNumber, startOf(from), beforeTime, beforeId, Limit.of(size + 1));
+        if (rows.size() <= size) {
+            return new OrderHistoryPage(rows, null);
+        }
+        List<FoodOrder> page = rows.subList(0, size);
+        FoodOrder last = page.get(size - 1);
+        return new OrderHistoryPage(page, encodeCursor(last.getOrderTime(), last.getId()));
+    }
+
+    public OrderHistorySummary summary(String rollNumber, LocalDate from, LocalDate to) {
+        return orderRepository.summarize(rollNumber, startOf(from), endOf(to));
+    }
+
+    // Writes every order in the range to "out" as NDJSON or CSV; returns the number of rows written
+    @Transactional(readOnly = true)
+    public long export(String format, LocalDate from, LocalDate to, OutputStream out) throws IOException {
+        boolean csv = "csv".equals(format);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        long count = 0;
+
+        try (Stream<OrderExportRow> rows = orderRepository.streamForExport(startOf(from), endOf(to))) {
+            if (csv) {
+                writer.write(OrderExportRow.CSV_HEADER);
+                writer.write('\n');
+            }
+            Iterator<OrderExportRow> it = rows.iterator();
+            while (it.hasNext()) {
+                OrderExportRow row = it.next();
+                writer.write(csv ? row.toCsv() : objectMapper.writeValueAsString(row));
+                writer.write('\n');
+                if (++count % FLUSH_EVERY_ROWS == 0) {
+                    writer.flush(); // keep the download moving instead of buffering it all
+                }
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static LocalDateTime startOf(LocalDate from) {
+        return from == null ? EARLIEST : from.atStartOfDay();
+    }
+
+    private static LocalDateTime endOf(LocalDate to) {
+        return to == null ? LATEST : to.plusDays(1).atStartOfDay();
+    }
+
+    private static String encodeCursor(LocalDateTime orderTime, Long id) {
+        String position = orderTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = position.split("\\|");
+            LocalDateTime.parse(parts[0]);
+            Long.parseLong(parts[1]);
+            return parts;
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+}
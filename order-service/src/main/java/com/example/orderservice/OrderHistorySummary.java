@@ -0,0 +1,19 @@
+package com.example.orderservice;
+
+// Totals for a student's history (GET /order/history/summary), computed in the database
+public class OrderHistorySummary {
+
+    private final long totalOrders;
+    private final long confirmedOrders;
+    private final long totalSpent; // paise, CONFIRMED orders only (failed ones were never charged or were refunded)
+
+    public OrderHistorySummary(Long totalOrders, Long confirmedOrders, Long totalSpent) {
+        this.totalOrders = totalOrders;
+        this.confirmedOrders = confirmedOrders;
+        this.totalSpent = totalSpent;
+    }
+
+    public long getTotalOrders() { return totalOrders; }
+    public long getConfirmedOrders() { return confirmedOrders; }
+    public long getTotalSpent() { return totalSpent; }
+}
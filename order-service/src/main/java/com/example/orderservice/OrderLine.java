@@ -0,0 +1,54 @@
+package com.example.orderservice;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "order_lines",
+       indexes = @Index(name = "idx_order_line_order", columnList = "order_id"))
+public class OrderLine {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id")
+    private FoodOrder order;
+
+    private Long itemId;
+    private String itemName;
+    private int quantity;
+    @Column(name = "unit_price_paise", columnDefinition = "bigint default 0 not null")
+    private long unitPrice; // paise
+
+    // --- CONSTRUCTORS ---
+    public OrderLine() {}
+
+    public OrderLine(Long itemId, String itemName, int quantity, long unitPrice) {
+        this.itemId = itemId;
+        this.itemName = itemName;
+        this.quantity = quantity;
+        this.unitPrice = unitPrice;
+    }
+
+    // --- GETTERS & SETTERS ---
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public FoodOrder getOrder() { return order; }
+    public void setOrder(FoodOrder order) { this.order = order; }
+
+    public Long getItemId() { return itemId; }
+    public void setItemId(Long itemId) { this.itemId = itemId; }
+
+    public String getItemName() { return itemName; }
+    public void setItemName(String itemName) { this.itemName = itemName; }
+
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+
+    public long getUnitPrice() { return unitPrice; }
+    public void setUnitPrice(long unitPrice) { this.unitPrice = unitPrice; }
+}
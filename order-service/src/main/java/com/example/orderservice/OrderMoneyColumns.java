@@ -0,0 +1,23 @@
+package com.example.orderservice;
+
+import com.example.common.MoneyColumnsMigration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+// Order-service's money columns, moved from double rupees to BIGINT paise (see MoneyColumnsMigration)
+@Component
+@DependsOn("entityManagerFactory")
+public class OrderMoneyColumns extends MoneyColumnsMigration {
+
+    // { table, old rupee column, new paise column }
+    private static final String[][] COLUMNS = {
+            { "food_orders", "amount", "amount_paise" },
+            { "order_lines", "unit_price", "unit_price_paise" },
+            { "order_outbox", "amount", "amount_paise" },
+            { "order_idempotency_keys", "amount", "amount_paise" }
+    };
+
+    public OrderMoneyColumns() {
+        super(COLUMNS);
+    }
+}
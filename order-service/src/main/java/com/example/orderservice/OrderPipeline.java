@@ -0,0 +1,508 @@
+package com.example.orderservice;
+
+import com.example.common.EventLog;
+import com.example.common.Money;
+import com.example.common.ReadYourWrites;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The order placement flow used by both /order/place, /order/checkout and the UI.
+ *
+ * Steps that don't depend on each other run side by side on virtual threads:
+ *   1. reserve stock      | wallet pre-check (GET balance)
+ *   2. wallet debit       (needs the reserved prices)
+ *   3. commit reservation | save order
+ *   4. notification       (fire-and-forget, never delays the response)
+ *
+ * Items the local {@link MenuReplica} already shows as sold out are refused up front.
+ * An order that is going to run (not an idempotent replay) must first get past
+ * {@link AdmissionControl}, which throws AdmissionRejectedException (429/503) otherwise.
+ *
+ * The debit carries a reference, so a deduct that timed out can be retried without charging
+ * twice, and refunded by that reference if Wallet Service still gives no answer. Anything that
+ * goes wrong after the student has paid gives the money and the stock back and ends FAILED.
+ *
+ * Set order.pipeline.parallel=false to run the same steps one after another, which is
+ * how the old controllers behaved; /order/latency shows p50/p99 for whichever mode is on.
+ *
+ * Each run is an "order.pipeline" observation (a timer by mode and outcome, and the parent
+ * span of every downstream call it makes) and counts towards orders.placed by outcome.
+ *
+ * With order.saga.enabled=true (the default) none of the steps above run on the request:
+ * the order is saved as PENDING and {@link OrderSaga} finishes it in the background.
+ */
+@Service
+public class OrderPipeline {
+
+    @Autowired
+    @Qualifier("menuClient")
+    private DownstreamClient menuClient;
+
+    @Autowired
+    @Qualifier("walletClient")
+    private DownstreamClient walletClient;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private LatencyRecorder latencyRecorder;
+
+    @Autowired
+    private NotificationPublisher notificationPublisher;
+
+    @Autowired
+    private MenuReplica menuReplica;
+
+    @Autowired
+    private SalesAnalytics salesAnalytics;
+
+    @Autowired
+    private IdempotencyService idempotency;
+
+    @Autowired
+    private OrderSaga orderSaga;
+
+    @Autowired
+    private AdmissionControl admission;
+
+    @Autowired
+    @Qualifier("pipelineExecutor")
+    private ExecutorService executor;
+
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EventLog eventLog;
+
+    @Autowired
+    private ReadYourWrites readYourWrites;
+
+    @Value("${order.pipeline.parallel:true}")
+    private boolean parallel;
+
+    @Value("${order.saga.enabled:true}")
+    private boolean sagaEnabled;
+
+    @Value("${order.pipeline.timeout-ms:5000}")
+    private long timeoutMs;
+
+    @Value("${order.pipeline.debit-attempts:3}")
+    private int debitAttempts;
+
+    // What a deduct call came back with; UNKNOWN means it may or may not have been applied
+    private enum Payment { DEBITED, DECLINED, UNKNOWN }
+
+    private final Semaphore downstreamPermits;
+
+    public OrderPipeline(@Value("${order.pipeline.max-in-flight:256}") int maxInFlight) {
+        this.downstreamPermits = new Semaphore(maxInFlight);
+    }
+
+    // 1. Single item (GET /order/place and the UI button)
+    public OrderResult placeOrder(String rollNumber, Long itemId) {
+        return placeOrder(rollNumber, itemId, null);
+    }
+
+    // With an idempotency key, a retry returns the first attempt's result instead of ordering again
+    public OrderResult placeOrder(String rollNumber, Long itemId, String idempotencyKey) {
+        List<DTOs.CartLineDTO> items = List.of(new DTOs.CartLineDTO(itemId, 1));
+        return idempotency.execute(rollNumber, idempotencyKey, items,
+                () -> admission.admit(rollNumber), claim -> run(rollNumber, items, claim));
+    }
+
+    // 2. Cart (POST /order/checkout)
+    public OrderResult checkout(String rollNumber, List<DTOs.CartLineDTO> items) {
+        return checkout(rollNumber, items, null);
+    }
+
+    public OrderResult checkout(String rollNumber, List<DTOs.CartLineDTO> items, String idempotencyKey) {
+        if (rollNumber == null || items == null || items.isEmpty()) {
+            return OrderResult.failed(OrderResult.Outcome.INVALID, "Cart is empty!");
+        }
+        return idempotency.execute(rollNumber, idempotencyKey, items,
+                () -> admission.admit(rollNumber), claim -> run(rollNumber, items, claim));
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public boolean isSagaEnabled() {
+        return sagaEnabled;
+    }
+
+    public String getMode() {
+        return sagaEnabled ? "saga" : parallel ? "parallel" : "sequential";
+    }
+
+    private OrderResult run(String rollNumber, List<DTOs.CartLineDTO> items, IdempotencyService.Claim claim) {
+        long start = System.nanoTime();
+        Observation observation = Observation.start("order.pipeline", observationRegistry)
+                .lowCardinalityKeyValue("mode", getMode());
+        try (Observation.Scope scope = observation.openScope()) {
+            OrderResult result = runSteps(rollNumber, items, claim);
+            // Saved outside saga mode; the student's history must show it right away
+            readYourWrites.wrote(rollNumber);
+            String outcome = result.getOutcome().name().toLowerCase();
+            observation.lowCardinalityKeyValue("outcome", outcome);
+            meterRegistry.counter("orders.placed", "outcome", outcome, "mode", getMode()).increment();
+            eventLog.sample("order.placed", "rollNumber", rollNumber, "outcome", outcome, "mode", getMode());
+            return result;
+        } catch (RuntimeException e) {
+            observation.lowCardinalityKeyValue("outcome", "error");
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+            latencyRecorder.record(System.nanoTime() - start);
+        }
+    }
+
+    private OrderResult runSteps(String rollNumber, List<DTOs.CartLineDTO> items, IdempotencyService.Claim claim) {
+        try {
+            OrderResult soldOut = soldOutPerReplica(items);
+            if (soldOut != null) {
+                return soldOut;
+            }
+            if (sagaEnabled) {
+                return orderSaga.accept(rollNumber, items, claim);
+            }
+            return parallel ? runParallel(rollNumber, items) : runSequential(rollNumber, items);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Order interrupted", e);
+        }
+    }
+
+    private OrderResult runParallel(String rollNumber, List<DTOs.CartLineDTO> items) throws InterruptedException {
+        List<DTOs.ReservationDTO> reservations;
+        DTOs.WalletDTO wallet = null;
+
+        // A. Reserve stock and look at the wallet at the same time
+        try (TaskScope scope = newScope()) {
+            Future<List<DTOs.ReservationDTO>> reserve = scope.fork(() -> reserve(items));
+            Future<DTOs.WalletDTO> precheck = scope.fork(() -> fetchWallet(rollNumber));
+            scope.join();
+
+            if (reserve.state() != Future.State.SUCCESS) {
+                return reserveFailure(reserve);
+            }
+            reservations = reserve.resultNow();
+            if (reservations.isEmpty()) {
+                return OrderResult.failed(OrderResult.Outcome.NOT_FOUND, "Item not found!");
+            }
+            if (precheck.state() == Future.State.SUCCESS) {
+                wallet = precheck.resultNow();
+            }
+        }
+
+        long total = totalOf(reservations);
+
+        // B. Skip the debit call entirely when we already know the balance is too low
+        if (wallet != null && wallet.balance < total) {
+            release(reservations);
+            return OrderResult.failed(OrderResult.Outcome.INSUFFICIENT_FUNDS, "Insufficient Funds!");
+        }
+        String reference = newPaymentReference();
+        OrderResult declined = pay(rollNumber, total, reference, reservations);
+        if (declined != null) {
+            return declined;
+        }
+
+        // C. Commit the stock while the order is saved on this thread. The save stays off the
+        // scope deadline: once save() returns the row is either in or not, so the undo below
+        // can't race a commit of the order that lands after it
+        FoodOrder order = buildOrder(rollNumber, reservations);
+        String failure = null;
+        try (TaskScope scope = newScope()) {
+            Future<Void> committed = scope.fork(() -> { commit(reservations); return null; });
+            try {
+                orderRepository.save(order);
+            } catch (RuntimeException e) {
+                eventLog.error("order.save.failed", e, "rollNumber", rollNumber, "reference", reference);
+                failure = "Order could not be saved";
+            }
+            scope.join();
+
+            if (committed.state() != Future.State.SUCCESS) {
+                failure = commitFailure(exceptionOf(committed));
+            }
+        }
+        if (failure != null) {
+            return undoPaidOrder(rollNumber, reference, reservations, order, failure);
+        }
+
+        // D. Fire-and-forget notification (queued, sent in batches by NotificationPublisher)
+        notifyStudent(rollNumber, order.getItemName());
+        salesAnalytics.record(order);
+
+        return OrderResult.confirmed(order);
+    }
+
+    private OrderResult runSequential(String rollNumber, List<DTOs.CartLineDTO> items) {
+        List<DTOs.ReservationDTO> reservations;
+        try {
+            reservations = reserve(items);
+        } catch (RuntimeException e) {
+            return reserveFailure(e);
+        }
+        if (reservations.isEmpty()) {
+            return OrderResult.failed(OrderResult.Outcome.NOT_FOUND, "Item not found!");
+        }
+
+        long total = totalOf(reservations);
+        String reference = newPaymentReference();
+        OrderResult declined = pay(rollNumber, total, reference, reservations);
+        if (declined != null) {
+            return declined;
+        }
+
+        FoodOrder order = buildOrder(rollNumber, reservations);
+        try {
+            commit(reservations);
+        } catch (RuntimeException e) {
+            return undoPaidOrder(rollNumber, reference, reservations, order, commitFailure(e));
+        }
+        try {
+            orderRepository.save(order);
+        } catch (RuntimeException e) {
+            eventLog.error("order.save.failed", e, "rollNumber", rollNumber, "reference", reference);
+            return undoPaidOrder(rollNumber, reference, reservations, order, "Order could not be saved");
+        }
+        notifyStudent(rollNumber, order.getItemName());
+        salesAnalytics.record(order);
+        return OrderResult.confirmed(order);
+    }
+
+    // --- DOWNSTREAM CALLS ---
+
+    private List<DTOs.ReservationDTO> reserve(List<DTOs.CartLineDTO> items) {
+        // Single items use the per-item endpoint, carts reserve all lines in one call
+        if (items.size() == 1) {
+            DTOs.CartLineDTO line = items.get(0);
+            String reservePath = "/menu/reserve/" + line.itemId + "?qty=" + line.qty;
+            DTOs.ReservationDTO reservation = menuClient.post(reservePath, null, DTOs.ReservationDTO.class);
+            return reservation == null ? List.of() : List.of(reservation);
+        }
+
+        DTOs.ReservationDTO[] reservations = menuClient.post("/menu/reserve", items, DTOs.ReservationDTO[].class);
+        return reservations == null ? List.of() : List.of(reservations);
+    }
+
+    private DTOs.WalletDTO fetchWallet(String rollNumber) {
+        return walletClient.get("/wallet/" + rollNumber, DTOs.WalletDTO.class);
+    }
+
+    // Takes the money, or returns the failed result (stock already released) when it can't be taken
+    private OrderResult pay(String rollNumber, long total, String reference, List<DTOs.ReservationDTO> reservations) {
+        Payment payment = debit(rollNumber, total, reference);
+        if (payment == Payment.DEBITED) {
+            return null;
+        }
+        if (payment == Payment.UNKNOWN) {
+            // The deduct may have gone through after all: refund it by reference (a no-op if it didn't)
+            refund(rollNumber, reference);
+        }
+        release(reservations);
+        return payment == Payment.DECLINED
+                ? OrderResult.failed(OrderResult.Outcome.INSUFFICIENT_FUNDS, "Insufficient Funds!")
+                : OrderResult.failed(OrderResult.Outcome.FAILED, "Wallet Service is unavailable");
+    }
+
+    // A 4xx is Wallet Service's answer (409 not enough money, 404 no such student). A timeout, a 5xx
+    // or an open circuit says nothing about whether the deduct was applied, so it is sent again under
+    // the same reference, which wallet-service applies at most once.
+    private Payment debit(String rollNumber, long amount, String reference) {
+        String deductPath = "/wallet/deduct?rollNumber=" + rollNumber + "&amount=" + amount + "&reference=" + reference;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                walletClient.post(deductPath, null, DTOs.WalletDTO.class);
+                return Payment.DEBITED;
+            } catch (HttpClientErrorException e) {
+                return Payment.DECLINED;
+            } catch (RuntimeException e) {
+                if (attempt >= debitAttempts) {
+                    eventLog.warn("order.debit.unknown", "rollNumber", rollNumber, "reference", reference,
+                            "attempts", attempt, "error", e.getMessage());
+                    return Payment.UNKNOWN;
+                }
+            }
+        }
+    }
+
+    private void refund(String rollNumber, String reference) {
+        try {
+            walletClient.post("/wallet/refund?rollNumber=" + rollNumber + "&reference=" + reference,
+                    null, DTOs.WalletDTO.class);
+        } catch (Exception e) {
+            // Left for reconciliation: the reference in the event log identifies the debit
+            eventLog.error("order.refund.failed", e, "rollNumber", rollNumber, "reference", reference);
+        }
+    }
+
+    // Throws when the stock could not be committed; the caller refunds and fails the order
+    private void commit(List<DTOs.ReservationDTO> reservations) {
+        try {
+            menuClient.post("/menu/reservations/commit", idsOf(reservations), DTOs.ReservationDTO[].class);
+        } catch (RuntimeException e) {
+            eventLog.error("order.reservations.commit.failed", e, "reservations", idsOf(reservations));
+            throw e;
+        }
+    }
+
+    // Gives the reserved stock back to Menu Service when the order can't go through
+    private void release(List<DTOs.ReservationDTO> reservations) {
+        try {
+            menuClient.post("/menu/reservations/release", idsOf(reservations), DTOs.ReservationDTO[].class);
+        } catch (Exception e) {
+            // Not fatal: the reservations expire on their own after their TTL
+            eventLog.error("order.reservations.release.failed", e, "reservations", idsOf(reservations));
+        }
+    }
+
+    // Something after the debit failed: give the money and the stock back (release also undoes a
+    // commit that already went through), and turn a row that did get saved into a FAILED one
+    private OrderResult undoPaidOrder(String rollNumber, String reference, List<DTOs.ReservationDTO> reservations,
+                                      FoodOrder order, String reason) {
+        refund(rollNumber, reference);
+        release(reservations);
+        if (order.getId() != null) {
+            try {
+                orderRepository.markFailed(order.getId(), reason);
+            } catch (Exception e) {
+                eventLog.error("order.mark.failed", e, "orderId", order.getId());
+            }
+        }
+        return OrderResult.failed(OrderResult.Outcome.FAILED, reason);
+    }
+
+    private void notifyStudent(String rollNumber, String itemName) {
+        notificationPublisher.publish(rollNumber, "Order Placed Successfully for " + itemName);
+    }
+
+    // --- HELPERS ---
+
+    // Turns away lines the live menu replica already shows as sold out, without calling Menu Service.
+    // Anything the replica lets through is still checked by the reservation itself.
+    private OrderResult soldOutPerReplica(List<DTOs.CartLineDTO> items) {
+        for (DTOs.CartLineDTO line : items) {
+            DTOs.MenuItemDTO item = menuReplica.find(line.itemId);
+            if (item != null && (!item.isAvailable || item.quantity < line.qty)) {
+                return OrderResult.failed(OrderResult.Outcome.SOLD_OUT, "Item is SOLD OUT!");
+            }
+        }
+        return null;
+    }
+
+    // The saga debits as "order-<id>"; here the order has no id yet when the money is taken
+    private static String newPaymentReference() {
+        return "pipeline-" + UUID.randomUUID();
+    }
+
+    private TaskScope newScope() {
+        return new TaskScope(executor, downstreamPermits, Duration.ofMillis(timeoutMs));
+    }
+
+    private FoodOrder buildOrder(String rollNumber, List<DTOs.ReservationDTO> reservations) {
+        FoodOrder order = new FoodOrder();
+        order.setRollNumber(rollNumber);
+        order.setStatus("CONFIRMED");
+        order.setOrderTime(LocalDateTime.now());
+        describe(order, reservations);
+        return order;
+    }
+
+    // Fills in what was ordered (item or lines, name, amount) from the reservations.
+    // Also used by OrderSaga, first with estimated prices and again once stock is reserved.
+    static void describe(FoodOrder order, List<DTOs.ReservationDTO> reservations) {
+        order.setAmount(totalOf(reservations));
+        order.getLines().clear();
+
+        if (reservations.size() == 1 && reservations.get(0).quantity == 1) {
+            // Plain single-item order: same shape as before, no lines
+            order.setItemId(reservations.get(0).itemId);
+            order.setItemName(reservations.get(0).itemName);
+            return;
+        }
+
+        StringBuilder summary = new StringBuilder();
+        for (DTOs.ReservationDTO r : reservations) {
+            order.addLine(new OrderLine(r.itemId, r.itemName, r.quantity, r.unitPrice));
+            if (summary.length() > 0) summary.append(", ");
+            summary.append(r.itemName).append(" x").append(r.quantity);
+        }
+        // itemId is only set when there's a single item
+        order.setItemId(reservations.size() == 1 ? reservations.get(0).itemId : null);
+        order.setItemName(summary.toString());
+    }
+
+    private static long totalOf(List<DTOs.ReservationDTO> reservations) {
+        long total = 0;
+        for (DTOs.ReservationDTO r : reservations) {
+            total = Math.addExact(total, Money.times(r.unitPrice, r.quantity));
+        }
+        return total;
+    }
+
+    private static List<Long> idsOf(List<DTOs.ReservationDTO> reservations) {
+        List<Long> ids = new ArrayList<>();
+        for (DTOs.ReservationDTO r : reservations) {
+            ids.add(r.id);
+        }
+        return ids;
+    }
+
+    private static OrderResult reserveFailure(Future<?> reserve) {
+        Throwable cause = exceptionOf(reserve);
+        if (cause instanceof RuntimeException e) {
+            return reserveFailure(e);
+        }
+        throw new RuntimeException("Menu Service did not answer in time", cause);
+    }
+
+    static OrderResult reserveFailure(RuntimeException e) {
+        if (e instanceof HttpClientErrorException.NotFound) {
+            return OrderResult.failed(OrderResult.Outcome.NOT_FOUND, "Item not found!");
+        }
+        if (e instanceof HttpClientErrorException.Conflict) {
+            return OrderResult.failed(OrderResult.Outcome.SOLD_OUT, "Item is SOLD OUT!");
+        }
+        if (e instanceof HttpClientErrorException.BadRequest) {
+            return OrderResult.failed(OrderResult.Outcome.INVALID, "Invalid cart!");
+        }
+        throw e;
+    }
+
+    // Same reasons as OrderSaga: a 409 means the hold expired and menu-service has put the stock back
+    private static String commitFailure(Throwable e) {
+        return e instanceof HttpClientErrorException ? "Reservation expired!" : "Menu Service is unavailable";
+    }
+
+    // Anything that isn't a failure here was cut off by the scope deadline
+    private static Throwable exceptionOf(Future<?> future) {
+        return future.state() == Future.State.FAILED
+                ? future.exceptionNow()
+                : new TimeoutException("Timed out after scope deadline");
+    }
+}
@@ -1,11 +1,76 @@
 package com.example.orderservice;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<FoodOrder, Long> {
 	// Tells JPQ to write the SQL: "Select * from food_orders where roll_no = ?"
 	List<FoodOrder> findByRollNumber(String rollNumber);
+
+	// An order that was saved but whose payment or stock had to be given back afterwards
+	@Modifying
+	@Transactional
+	@Query("update FoodOrder o set o.status = 'FAILED', o.failureReason = :reason where o.id = :id")
+	int markFailed(@Param("id") Long id, @Param("reason") String reason);
+
+	// One page of a student's history, newest first, starting just below (beforeTime, beforeId).
+	// The extra "orderTime <= beforeTime" lets the (rollNumber, orderTime, id) index seek straight to the page.
+	@Query("select o from FoodOrder o where o.rollNumber = :rollNumber " +
+	       "and o.orderTime >= :from and o.orderTime <= :beforeTime " +
+	       "and (o.orderTime < :beforeTime or o.id < :beforeId) " +
+	       "order by o.orderTime desc, o.id desc")
+	List<FoodOrder> findHistoryPage(@Param("rollNumber") String rollNumber,
+	                                @Param("from") LocalDateTime from,
+	                                @Param("beforeTime") LocalDateTime beforeTime,
+	                                @Param("beforeId") long beforeId,
+	                                Limit limit);
+
+	@Query("select new com.example.orderservice.OrderHistorySummary(count(o), " +
+	       "coalesce(sum(case when o.status = 'CONFIRMED' then 1 else 0 end), 0), " +
+	       "coalesce(sum(case when o.status = 'CONFIRMED' then o.amount else 0L end), 0)) " +
+	       "from FoodOrder o where o.rollNumber = :rollNumber and o.orderTime >= :from and o.orderTime < :to")
+	OrderHistorySummary summarize(@Param("rollNumber") String rollNumber,
+	                              @Param("from") LocalDateTime from,
+	                              @Param("to") LocalDateTime to);
+
+	// Every order in id order as plain rows (not entities), read through a DB cursor 1000 rows at a time
+	@Query("select new com.example.orderservice.OrderExportRow(o.id, o.rollNumber, o.itemId, o.itemName, " +
+	       "o.amount, o.orderTime, o.status) " +
+	       "from FoodOrder o where o.orderTime >= :from and o.orderTime < :to order by o.id")
+	@QueryHints({
+	        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+	        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+	})
+	Stream<OrderExportRow> streamForExport(@Param("from") LocalDateTime from,
+	                                       @Param("to") LocalDateTime to);
+
+	// Sales replayed into SalesAnalytics on startup: single-item orders (no lines) ...
+	@Query("select o.id, o.itemId, o.itemName, o.amount, o.orderTime from FoodOrder o " +
+	       "where o.status = 'CONFIRMED' and o.orderTime >= :from and o.orderTime < :to and o.lines is empty")
+	@QueryHints({
+	        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+	        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+	})
+	Stream<Object[]> streamSingleItemSales(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+	// ... and the lines of cart orders, grouped by order
+	@Query("select o.id, l.itemId, l.itemName, l.quantity, l.unitPrice, o.orderTime from OrderLine l join l.order o " +
+	       "where o.status = 'CONFIRMED' and o.orderTime >= :from and o.orderTime < :to order by o.id")
+	@QueryHints({
+	        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+	        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+	})
+	Stream<Object[]> streamCartLineSales(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
@@ -0,0 +1,45 @@
+package com.example.orderservice;
+
+// Outcome of one run of the order pipeline, shared by the REST and UI controllers.
+// ACCEPTED means the order is saved as PENDING and OrderSaga will finish it in the background.
+// FAILED means it went wrong after the payment was taken; the money and the stock were given back.
+public class OrderResult {
+
+    public enum Outcome { CONFIRMED, ACCEPTED, NOT_FOUND, SOLD_OUT, INSUFFICIENT_FUNDS, INVALID, FAILED }
+
+    private final Outcome outcome;
+    private final String reason;   // short failure text, e.g. "Item is SOLD OUT!"
+    private final FoodOrder order; // only set when CONFIRMED or ACCEPTED
+
+    private OrderResult(Outcome outcome, String reason, FoodOrder order) {
+        this.outcome = outcome;
+        this.reason = reason;
+        this.order = order;
+    }
+
+    public static OrderResult confirmed(FoodOrder order) {
+        return new OrderResult(Outcome.CONFIRMED, null, order);
+    }
+
+    public static OrderResult accepted(FoodOrder order) {
+        return new OrderResult(Outcome.ACCEPTED, null, order);
+    }
+
+    public static OrderResult failed(Outcome outcome, String reason) {
+        return new OrderResult(outcome, reason, null);
+    }
+
+    public boolean isSuccess() { return outcome == Outcome.CONFIRMED; }
+    public boolean isAccepted() { return outcome == Outcome.ACCEPTED; }
+    public Outcome getOutcome() { return outcome; }
+    public String getReason() { return reason; }
+    public FoodOrder getOrder() { return order; }
+
+    // Text returned by the REST endpoints (same wording as before)
+    public String toMessage() {
+        if (isSuccess()) return "Order Placed Successfully! Order ID: " + order.getId();
+        if (isAccepted()) return "Order Accepted! Order ID: " + order.getId() + " (processing)";
+        if (outcome == Outcome.NOT_FOUND) return reason;
+        return "Order Failed: " + reason;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.orderservice;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Hints for the native image (see the native profile in pom.xml) that Spring AOT can't derive:
+ *
+ * - DTOs: read back from menu, wallet and the SSE feed by RestTemplate and the ObjectMapper, and
+ *   written into outbox entries - none of it goes through a controller signature.
+ * - The entities and history/export types, which Jackson writes and the Thymeleaf pages read
+ *   through getters (menuItems, orders and their lines).
+ * - The templates themselves, loaded as classpath resources by name at render time.
+ */
+public class OrderRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                DTOs.MenuItemDTO.class,
+                DTOs.MenuSnapshotDTO.class,
+                DTOs.MenuPageDTO.class,
+                DTOs.StockDeltaDTO.class,
+                DTOs.WalletDTO.class,
+                DTOs.ReservationDTO.class,
+                DTOs.CartLineDTO.class,
+                DTOs.CheckoutRequest.class,
+                DTOs.NotificationDTO.class,
+                FoodOrder.class,
+                OrderLine.class,
+                OutboxEntry.class,
+                IdempotencyRecord.class,
+                OrderResult.class,
+                OrderHistoryPage.class,
+                OrderHistorySummary.class,
+                OrderExportRow.class);
+        hints.resources().registerPattern("templates/*.html");
+    }
+}
@@ -0,0 +1,432 @@
+package com.example.orderservice;
+
+import com.example.common.EventLog;
+import com.example.common.ReadYourWrites;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.server.ResponseStatusException;
+import tools.jackson.databind.ObjectMapper;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accepts orders straight away and finishes them in the background (order.saga.enabled=true).
+ *
+ * accept() saves a PENDING FoodOrder and its OutboxEntry in one local transaction and returns
+ * without calling any other service. OutboxRelay then calls advance() for each due entry,
+ * which walks it through
+ *
+ *   RESERVE -> DEBIT -> COMMIT -> CONFIRM                      (order becomes CONFIRMED)
+ *
+ * and, when a step fails for good, through the compensations
+ *
+ *   REFUND (wallet gives the money back) -> RELEASE (stock goes back) -> FAIL
+ *
+ * Every step is safe to repeat: the debit and refund carry the reference "order-<id>", which
+ * wallet-service applies only once; commit and release do nothing the second time; and a
+ * reservation made twice just expires. So a step that errors or times out is retried with
+ * backoff, and an entry whose relay died is picked up again once its lease runs out.
+ *
+ * Each advance() is an "order.saga" span tagged with the order id, with one "order.saga.step"
+ * child per step (and the downstream calls under those), so a slow order can be followed step
+ * by step; orders.completed counts how the sagas ended.
+ */
+@Service
+public class OrderSaga {
+
+    @Autowired
+    @Qualifier("menuClient")
+    private DownstreamClient menuClient;
+
+    @Autowired
+    @Qualifier("walletClient")
+    private DownstreamClient walletClient;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private NotificationPublisher notificationPublisher;
+
+    @Autowired
+    private SalesAnalytics salesAnalytics;
+
+    @Autowired
+    private MenuReplica menuReplica;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher events;
+
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EventLog eventLog;
+
+    @Autowired
+    private IdempotencyService idempotency;
+
+    @Autowired
+    private ReadYourWrites readYourWrites;
+
+    @Value("${order.saga.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${order.saga.retry-base-ms:500}")
+    private long retryBaseMs;
+
+    @Value("${order.saga.retry-max-ms:30000}")
+    private long retryMaxMs;
+
+    // Long enough to cover a few debit retries before menu-service sweeps the hold
+    @Value("${order.saga.reservation-ttl-seconds:120}")
+    private long reservationTtlSeconds;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong confirmed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong refunds = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+
+    // 1. Request thread: write the order and its outbox entry, nothing else
+    // (and the idempotency key's answer, so a retry finds it as soon as the order exists)
+    @Transactional
+    public OrderResult accept(String rollNumber, List<DTOs.CartLineDTO> items, IdempotencyService.Claim claim) {
+        for (DTOs.CartLineDTO line : items) {
+            if (line.itemId == null || line.qty <= 0) {
+                return OrderResult.failed(OrderResult.Outcome.INVALID, "Invalid cart!");
+            }
+        }
+
+        FoodOrder order = new FoodOrder();
+        order.setRollNumber(rollNumber);
+        order.setStatus("PENDING");
+        order.setOrderTime(LocalDateTime.now());
+        // Names and prices from the menu replica for now; the reservation has the final word
+        OrderPipeline.describe(order, estimate(items));
+        orderRepository.save(order);
+
+        OutboxEntry entry = outboxRepository.save(
+                new OutboxEntry(order.getId(), rollNumber, objectMapper.writeValueAsString(items)));
+        events.publishEvent(entry); // wakes the relay once this transaction commits
+
+        OrderResult result = OrderResult.accepted(order);
+        idempotency.store(claim, result);
+        accepted.incrementAndGet();
+        return result;
+    }
+
+    // 2. Relay thread: run as many steps as possible until the entry is done or has to wait
+    public void advance(OutboxEntry entry) {
+        Observation.createNotStarted("order.saga", observationRegistry)
+                .highCardinalityKeyValue("order.id", String.valueOf(entry.getOrderId()))
+                .observe(() -> {
+                    while (entry.getCompletedAt() == null) {
+                        try {
+                            runStep(entry);
+                        } catch (RuntimeException e) {
+                            if (scheduleRetry(entry, e)) {
+                                return;
+                            }
+                        }
+                    }
+                });
+    }
+
+    // For clients polling an accepted order; someone else's order looks the same as a missing one
+    public Map<String, Object> status(Long orderId, String rollNumber) {
+        // The poll carries no rollNumber of its own: without this it would go to a replica that may
+        // not have the order yet (404) or still show it PENDING after the saga finished it
+        readYourWrites.use(rollNumber);
+        FoodOrder order = orderRepository.findById(orderId)
+                .filter(found -> found.getRollNumber().equals(rollNumber))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found"));
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("orderId", order.getId());
+        status.put("status", order.getStatus());
+        status.put("itemName", order.getItemName());
+        status.put("amount", order.getAmount());
+        status.put("failureReason", order.getFailureReason());
+        return status;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("inFlight", outboxRepository.countByCompletedAtIsNull());
+        stats.put("accepted", accepted.get());
+        stats.put("confirmed", confirmed.get());
+        stats.put("failed", failed.get());
+        stats.put("refunds", refunds.get());
+        stats.put("retries", retries.get());
+        return stats;
+    }
+
+    // --- STEPS ---
+
+    private void runStep(OutboxEntry entry) {
+        OutboxEntry.Step step = entry.getStep();
+        Observation.createNotStarted("order.saga.step", observationRegistry)
+                .contextualName("saga " + step.name().toLowerCase())
+                .lowCardinalityKeyValue("step", step.name().toLowerCase())
+                .observe(() -> {
+                    switch (step) {
+                        case RESERVE -> reserve(entry);
+                        case DEBIT -> debit(entry);
+                        case COMMIT -> commit(entry);
+                        case CONFIRM -> confirm(entry);
+                        case REFUND -> refund(entry);
+                        case RELEASE -> release(entry);
+                        case FAIL -> fail(entry);
+                    }
+                });
+    }
+
+    private void reserve(OutboxEntry entry) {
+        List<DTOs.ReservationDTO> reservations;
+        try {
+            reservations = reserveStock(Arrays.asList(objectMapper.readValue(entry.getCartJson(), DTOs.CartLineDTO[].class)));
+        } catch (HttpClientErrorException e) {
+            // Not found / sold out / bad cart: nothing was reserved, so nothing to undo
+            entry.failWith(OutboxEntry.Step.FAIL, OrderPipeline.reserveFailure(e).getReason());
+            save(entry);
+            return;
+        }
+        if (reservations.isEmpty()) {
+            entry.failWith(OutboxEntry.Step.FAIL, "Item not found!");
+            save(entry);
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            FoodOrder order = orderRepository.findById(entry.getOrderId()).orElseThrow();
+            OrderPipeline.describe(order, reservations);
+            entry.setAmount(order.getAmount());
+            entry.setReservationIds(joinIds(reservations));
+            entry.moveTo(OutboxEntry.Step.DEBIT);
+            save(entry);
+        });
+        changedOrder(entry);
+    }
+
+    private void debit(OutboxEntry entry) {
+        String deductPath = "/wallet/deduct?rollNumber=" + entry.getRollNumber()
+                + "&amount=" + entry.getAmount() + "&reference=" + reference(entry);
+        try {
+            walletClient.post(deductPath, null, DTOs.WalletDTO.class);
+            entry.moveTo(OutboxEntry.Step.COMMIT);
+        } catch (HttpClientErrorException e) {
+            // Declined (not enough money, unknown student): no money moved, just give the stock back
+            entry.failWith(OutboxEntry.Step.RELEASE,
+                    e instanceof HttpClientErrorException.Conflict ? "Insufficient Funds!" : "Payment declined!");
+        }
+        save(entry);
+    }
+
+    private void commit(OutboxEntry entry) {
+        try {
+            menuClient.post("/menu/reservations/commit", reservationIds(entry), DTOs.ReservationDTO[].class);
+            entry.moveTo(OutboxEntry.Step.CONFIRM);
+        } catch (HttpClientErrorException e) {
+            // The hold expired before we got here: the stock is already back, refund the student
+            entry.failWith(OutboxEntry.Step.REFUND, "Reservation expired!");
+        }
+        save(entry);
+    }
+
+    private void confirm(OutboxEntry entry) {
+        FoodOrder order = transactionTemplate.execute(status -> {
+            FoodOrder pending = orderRepository.findById(entry.getOrderId()).orElseThrow();
+            pending.setStatus("CONFIRMED");
+            Hibernate.initialize(pending.getLines()); // read by SalesAnalytics after the commit
+            complete(entry);
+            return pending;
+        });
+        changedOrder(entry);
+        confirmed.incrementAndGet();
+        meterRegistry.counter("orders.completed", "outcome", "confirmed").increment();
+
+        notificationPublisher.publish(entry.getRollNumber(), "Order Placed Successfully for " + order.getItemName());
+        salesAnalytics.record(order);
+    }
+
+    private void refund(OutboxEntry entry) {
+        // No-op on the wallet side if the debit never went through
+        walletClient.post("/wallet/refund?rollNumber=" + entry.getRollNumber() + "&reference=" + reference(entry),
+                null, DTOs.WalletDTO.class);
+        refunds.incrementAndGet();
+        entry.moveTo(OutboxEntry.Step.RELEASE);
+        save(entry);
+    }
+
+    private void release(OutboxEntry entry) {
+        List<Long> ids = reservationIds(entry);
+        if (!ids.isEmpty()) {
+            menuClient.post("/menu/reservations/release", ids, DTOs.ReservationDTO[].class);
+        }
+        entry.moveTo(OutboxEntry.Step.FAIL);
+        save(entry);
+    }
+
+    private void fail(OutboxEntry entry) {
+        transactionTemplate.executeWithoutResult(status -> {
+            FoodOrder order = orderRepository.findById(entry.getOrderId()).orElseThrow();
+            order.setStatus("FAILED");
+            order.setFailureReason(entry.getFailureReason());
+            complete(entry);
+        });
+        changedOrder(entry);
+        failed.incrementAndGet();
+        meterRegistry.counter("orders.completed", "outcome", failureOutcome(entry.getFailureReason())).increment();
+
+        notificationPublisher.publish(entry.getRollNumber(),
+                "Order #" + entry.getOrderId() + " failed: " + entry.getFailureReason());
+    }
+
+    // --- RETRIES ---
+
+    // Returns true if the entry should wait for its next attempt, false to carry on right away
+    // (the step gave up and the entry moved on to its compensation)
+    private boolean scheduleRetry(OutboxEntry entry, RuntimeException e) {
+        int attempts = entry.getAttempts() + 1;
+        eventLog.warn("order.saga.step.failed", "orderId", entry.getOrderId(), "step", entry.getStep(),
+                "attempt", attempts, "error", e.getMessage());
+
+        if (attempts >= maxAttempts && giveUp(entry)) {
+            save(entry);
+            return false;
+        }
+        retries.incrementAndGet();
+        entry.setAttempts(attempts);
+        entry.setLastError(truncate(e.getMessage()));
+        entry.setNextAttemptAt(LocalDateTime.now().plusNanos(backoffMillis(attempts) * 1_000_000));
+        save(entry);
+        return true;
+    }
+
+    private boolean giveUp(OutboxEntry entry) {
+        switch (entry.getStep()) {
+            case RESERVE -> entry.failWith(OutboxEntry.Step.FAIL, "Menu Service is unavailable"); // any hold expires
+            case DEBIT -> entry.failWith(OutboxEntry.Step.REFUND, "Wallet Service is unavailable");
+            case COMMIT -> entry.failWith(OutboxEntry.Step.REFUND, "Menu Service is unavailable");
+            case RELEASE -> entry.moveTo(OutboxEntry.Step.FAIL); // menu-service sweeps expired holds anyway
+            default -> {
+                return false; // refunds and our own writes are retried until they succeed
+            }
+        }
+        return true;
+    }
+
+    private long backoffMillis(int attempts) {
+        return Math.min(retryMaxMs, retryBaseMs << Math.min(attempts - 1, 16));
+    }
+
+    // --- HELPERS ---
+
+    private List<DTOs.ReservationDTO> reserveStock(List<DTOs.CartLineDTO> items) {
+        String ttl = "ttlSeconds=" + reservationTtlSeconds;
+        if (items.size() == 1) {
+            DTOs.CartLineDTO line = items.get(0);
+            DTOs.ReservationDTO reservation = menuClient.post(
+                    "/menu/reserve/" + line.itemId + "?qty=" + line.qty + "&" + ttl, null, DTOs.ReservationDTO.class);
+            return reservation == null ? List.of() : List.of(reservation);
+        }
+        DTOs.ReservationDTO[] reservations = menuClient.post("/menu/reserve?" + ttl, items, DTOs.ReservationDTO[].class);
+        return reservations == null ? List.of() : List.of(reservations);
+    }
+
+    // Stand-in reservations built from the replica so a PENDING order already has names and a price
+    private List<DTOs.ReservationDTO> estimate(List<DTOs.CartLineDTO> items) {
+        List<DTOs.ReservationDTO> estimate = new ArrayList<>();
+        for (DTOs.CartLineDTO line : items) {
+            DTOs.MenuItemDTO item = menuReplica.find(line.itemId);
+            DTOs.ReservationDTO r = new DTOs.ReservationDTO();
+            r.itemId = line.itemId;
+            r.quantity = line.qty;
+            r.itemName = item != null ? item.name : "Item #" + line.itemId;
+            r.unitPrice = item != null ? item.price : 0;
+            estimate.add(r);
+        }
+        return estimate;
+    }
+
+    // The relay thread has no student of its own, so pin the one whose order row just changed
+    // to the primary, or a lagging replica would still show them the old status
+    private void changedOrder(OutboxEntry entry) {
+        readYourWrites.wrote(entry.getRollNumber());
+    }
+
+    private void complete(OutboxEntry entry) {
+        entry.setCompletedAt(LocalDateTime.now());
+        save(entry);
+    }
+
+    private void save(OutboxEntry entry) {
+        outboxRepository.save(entry);
+    }
+
+    private static String reference(OutboxEntry entry) {
+        return "order-" + entry.getOrderId();
+    }
+
+    private static String joinIds(List<DTOs.ReservationDTO> reservations) {
+        StringBuilder ids = new StringBuilder();
+        for (DTOs.ReservationDTO r : reservations) {
+            if (ids.length() > 0) ids.append(',');
+            ids.append(r.id);
+        }
+        return ids.toString();
+    }
+
+    private static List<Long> reservationIds(OutboxEntry entry) {
+        List<Long> ids = new ArrayList<>();
+        if (entry.getReservationIds() != null && !entry.getReservationIds().isEmpty()) {
+            for (String id : entry.getReservationIds().split(",")) {
+                ids.add(Long.valueOf(id));
+            }
+        }
+        return ids;
+    }
+
+    // Failure reasons are free text; the counter wants a small fixed set of tags
+    private static String failureOutcome(String reason) {
+        if (reason == null) return "failed";
+        if (reason.contains("SOLD OUT")) return "sold_out";
+        if (reason.contains("Insufficient")) return "insufficient_funds";
+        if (reason.contains("not found")) return "not_found";
+        if (reason.contains("unavailable")) return "service_unavailable";
+        if (reason.contains("expired")) return "reservation_expired";
+        return "failed";
+    }
+
+    private static String truncate(String message) {
+        return message == null || message.length() <= 255 ? message : message.substring(0, 255);
+    }
+}
@@ -1,9 +1,19 @@
 package com.example.orderservice;
 
+import com.example.common.EventLog;
+import com.example.common.ReadReplicaConfig;
+import com.example.common.ReadYourWrites;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
+// Shared beans from common/ (outside this package, so not found by component scanning)
+@Import({ EventLog.class, ReadReplicaConfig.class, ReadYourWrites.class })
+@ImportRuntimeHints(OrderRuntimeHints.class)
 public class OrderServiceApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,102 @@
+package com.example.orderservice;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// One accepted order waiting for OrderSaga to finish it. Written in the same transaction as
+// the PENDING FoodOrder; the relay claims due entries and records each step as it completes,
+// so a restart picks the order up where it left off.
+@Entity
+@Table(name = "order_outbox",
+       indexes = {
+           @Index(name = "idx_outbox_due", columnList = "completedAt, nextAttemptAt"),
+           @Index(name = "idx_outbox_claim", columnList = "claimToken")
+       })
+public class OutboxEntry {
+
+    // Forward steps run top to bottom; REFUND and RELEASE are the compensations that lead to FAIL
+    public enum Step { RESERVE, DEBIT, COMMIT, CONFIRM, REFUND, RELEASE, FAIL }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long orderId;
+    private String rollNumber;
+
+    @Column(length = 4000)
+    private String cartJson; // the CartLineDTOs as posted
+
+    private String reservationIds; // "12,13" once stock is reserved
+    @Column(name = "amount_paise", columnDefinition = "bigint default 0 not null")
+    private long amount;           // what the reservations cost in paise, i.e. what gets debited
+
+    @Enumerated(EnumType.STRING)
+    private Step step;
+
+    private int attempts; // failed attempts at the current step
+    private String failureReason;
+    private String lastError;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime nextAttemptAt;
+    private LocalDateTime completedAt;
+    private String claimToken;
+
+    // --- CONSTRUCTORS ---
+    public OutboxEntry() {}
+
+    public OutboxEntry(Long orderId, String rollNumber, String cartJson) {
+        this.orderId = orderId;
+        this.rollNumber = rollNumber;
+        this.cartJson = cartJson;
+        this.step = Step.RESERVE;
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = createdAt;
+    }
+
+    // Moves to the next step with a fresh attempt count
+    public void moveTo(Step next) {
+        this.step = next;
+        this.attempts = 0;
+        this.lastError = null;
+    }
+
+    // Starts compensating (or fails straight away) and remembers why for the order
+    public void failWith(Step next, String reason) {
+        moveTo(next);
+        this.failureReason = reason;
+    }
+
+    // --- GETTERS & SETTERS ---
+    public Long getId() { return id; }
+    public Long getOrderId() { return orderId; }
+    public String getRollNumber() { return rollNumber; }
+    public String getCartJson() { return cartJson; }
+
+    public String getReservationIds() { return reservationIds; }
+    public void setReservationIds(String reservationIds) { this.reservationIds = reservationIds; }
+
+    public long getAmount() { return amount; }
+    public void setAmount(long amount) { this.amount = amount; }
+
+    public Step getStep() { return step; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public String getFailureReason() { return failureReason; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+
+    public LocalDateTime getCompletedAt() { return completedAt; }
+    public void setCompletedAt(LocalDateTime completedAt) { this.completedAt = completedAt; }
+
+    public String getClaimToken() { return claimToken; }
+}
@@ -0,0 +1,163 @@
+package com.example.orderservice;
+
+import com.example.common.EventLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves accepted orders along in the background (see {@link OrderSaga}).
+ *
+ * One relay thread claims up to batch-size due outbox entries at a time, advances them side by
+ * side on the pipeline's virtual threads, and goes straight back for more while there is a
+ * backlog. It is woken as soon as an order is accepted (after that transaction commits) and
+ * otherwise polls every poll-interval-ms, which is also when retries waiting on backoff come due.
+ *
+ * A claim is a lease: the entry's next attempt is pushed out by lease-ms, so if this instance
+ * dies mid-batch another one (or this one after a restart) takes the entry over.
+ */
+@Component
+public class OutboxRelay {
+
+    @Autowired
+    private OrderSaga orderSaga;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private EventLog eventLog;
+
+    @Autowired
+    @Qualifier("pipelineExecutor")
+    private ExecutorService executor;
+
+    @Value("${order.saga.enabled:true}")
+    private boolean enabled;
+
+    @Value("${order.saga.batch-size:50}")
+    private int batchSize;
+
+    @Value("${order.saga.poll-interval-ms:500}")
+    private long pollIntervalMs;
+
+    @Value("${order.saga.lease-ms:30000}")
+    private long leaseMs;
+
+    @Value("${order.saga.retention-hours:24}")
+    private long retentionHours;
+
+    private final Semaphore wakeups = new Semaphore(0);
+    private Thread relay;
+    private volatile boolean running = true;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong relayed = new AtomicLong();
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        relay = new Thread(this::relayLoop, "outbox-relay");
+        relay.setDaemon(true);
+        relay.start();
+    }
+
+    // Published by OrderSaga.accept(); only delivered once the order is committed
+    @TransactionalEventListener
+    public void onAccepted(OutboxEntry entry) {
+        wakeups.release();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = orderSaga.stats();
+        stats.put("batches", batches.get());
+        stats.put("relayed", relayed.get());
+        return stats;
+    }
+
+    @Scheduled(fixedDelayString = "${order.saga.purge-interval-ms:600000}")
+    public void purgeCompleted() {
+        outboxRepository.deleteCompletedBefore(LocalDateTime.now().minusHours(retentionHours));
+    }
+
+    private void relayLoop() {
+        while (running) {
+            try {
+                if (relayOnce() < batchSize) {
+                    // Caught up: sleep until the next accept or the next poll
+                    wakeups.tryAcquire(pollIntervalMs, TimeUnit.MILLISECONDS);
+                    wakeups.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            } catch (RuntimeException e) {
+                eventLog.error("order.outbox.relay.failed", e);
+                sleepQuietly();
+            }
+        }
+    }
+
+    // Returns how many entries were due, so a full batch means "go again now"
+    private int relayOnce() throws InterruptedException {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> due = outboxRepository.findDueIds(now, Limit.of(batchSize));
+        if (due.isEmpty()) {
+            return 0;
+        }
+
+        String token = UUID.randomUUID().toString();
+        outboxRepository.claim(due, token, now, now.plusNanos(leaseMs * 1_000_000));
+
+        List<Future<?>> inFlight = new ArrayList<>();
+        for (OutboxEntry entry : outboxRepository.findByClaimToken(token)) {
+            inFlight.add(executor.submit(() -> orderSaga.advance(entry)));
+        }
+        for (Future<?> future : inFlight) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                // advance() handles its own failures; anything here is retried when the lease runs out
+                eventLog.error("order.outbox.entry.failed", e.getCause());
+            }
+        }
+        batches.incrementAndGet();
+        relayed.addAndGet(inFlight.size());
+        return due.size();
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(pollIntervalMs);
+        } catch (InterruptedException e) {
+            running = false;
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (relay != null) {
+            relay.interrupt();
+            relay.join(5000);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.orderservice;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxRepository extends JpaRepository<OutboxEntry, Long> {
+
+    // Unfinished entries whose next attempt is due, oldest first. The relay reads the primary
+    // (not a read replica, see ReadReplicaConfig): a replica behind the claim would miss new entries
+    // or return none of the ones just claimed.
+    @Transactional
+    @Query("select e.id from OutboxEntry e where e.completedAt is null and e.nextAttemptAt <= :now "
+         + "order by e.nextAttemptAt, e.id")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Limit limit);
+
+    // Takes the entries for one relay pass: tags them with the token and pushes their next attempt
+    // out to the lease, so another instance (or the next pass) skips them. An entry someone else
+    // claimed first no longer matches nextAttemptAt <= now and is left alone.
+    @Modifying
+    @Transactional
+    @Query("update OutboxEntry e set e.claimToken = :token, e.nextAttemptAt = :leaseUntil "
+         + "where e.id in :ids and e.completedAt is null and e.nextAttemptAt <= :now")
+    int claim(@Param("ids") List<Long> ids, @Param("token") String token,
+              @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Transactional
+    List<OutboxEntry> findByClaimToken(String claimToken);
+
+    long countByCompletedAtIsNull();
+
+    // Finished entries are only kept for a while for troubleshooting
+    @Modifying
+    @Transactional
+    @Query("delete from OutboxEntry e where e.completedAt < :cutoff")
+    int deleteCompletedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
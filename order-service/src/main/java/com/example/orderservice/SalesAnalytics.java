@@ -0,0 +1,454 @@
+package com.example.orderservice;
+
+import com.example.common.Money;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * In-memory sales numbers for the admin dashboard (GET /order/stats).
+ *
+ * Every confirmed order adds to per-item and overall counters kept in two rings of time
+ * buckets: 64 one-second slots (for the last minute) and 1500 one-minute slots (for the
+ * last hour and day). Recording an order is a binary search over a long[] of item ids plus
+ * a few atomic adds - no locks, no boxing, no allocation. A ticker thread clears each slot
+ * just before it comes round again, and reads sum the slots inside the window.
+ *
+ * Categories, best-sellers and the peak minute are worked out when stats are requested.
+ * Once the app is up, the day before startup is replayed from the database; orders placed
+ * after startup are only counted live, so nothing is counted twice.
+ */
+@Component
+public class SalesAnalytics {
+
+    private static final int SECOND_SLOTS = 64;    // 60 s window + slots cleared ahead
+    private static final int MINUTE_SLOTS = 1500;  // 1440 min window + slots cleared ahead
+    private static final int CLEAR_AHEAD = 3;
+
+    private static final int ORDERS = 0, UNITS = 1, REVENUE = 2, FIELDS = 3; // revenue in paise
+
+    public enum Window {
+        MINUTE(60), HOUR(3600), DAY(86400);
+
+        final int seconds;
+
+        Window(int seconds) { this.seconds = seconds; }
+    }
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MenuCatalog menuCatalog;
+
+    @Value("${order.stats.top-k:5}")
+    private int topK;
+
+    private final Counters overall = new Counters(0, "ALL");
+    private volatile Registry registry = new Registry(new long[0], new Counters[0]);
+    private final Object registerLock = new Object();
+
+    // Busiest minute so far, packed as (orders << 32 | epochMinute) so one atomic max tracks both
+    private final AtomicLong peakMinute = new AtomicLong();
+
+    private ScheduledExecutorService ticker;
+    private long clearedThroughSecond; // ticker thread only
+    private LocalDateTime startedAt;
+
+    @PostConstruct
+    void start() {
+        startedAt = LocalDateTime.now();
+        long now = nowSecond();
+        clearedThroughSecond = now;
+        clearAhead(now);
+
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sales-analytics-ticker");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleAtFixedRate(() -> clearAhead(nowSecond()), 250, 250, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    // Hot path: called once per confirmed order
+    public void record(FoodOrder order) {
+        long second = nowSecond();
+        long units = 0;
+
+        if (order.getLines().isEmpty()) {
+            units = 1;
+            countersFor(order.getItemId(), order.getItemName()).add(second, second, 1, 1, order.getAmount());
+        } else {
+            for (OrderLine line : order.getLines()) {
+                units += line.getQuantity();
+                countersFor(line.getItemId(), line.getItemName())
+                        .add(second, second, 1, line.getQuantity(), Money.times(line.getUnitPrice(), line.getQuantity()));
+            }
+        }
+        addOverall(second, second, units, order.getAmount());
+    }
+
+    public Map<String, Object> snapshot() {
+        long now = nowSecond();
+        Registry current = registry;
+        Map<Long, String> categories = categoriesByItem();
+
+        List<Map<String, Object>> items = new ArrayList<>();
+        Map<String, long[][]> byCategory = new TreeMap<>();
+        for (Counters item : current.counters) {
+            long[][] sums = item.sumAll(now);
+            String category = categories.get(item.itemId);
+            if (category == null) {
+                category = "Unknown";
+            }
+
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("itemId", item.itemId);
+            row.put("name", item.name);
+            row.put("category", category);
+            putWindows(row, sums);
+            items.add(row);
+
+            long[][] total = byCategory.computeIfAbsent(category, c -> new long[Window.values().length][FIELDS]);
+            for (int w = 0; w < sums.length; w++) {
+                for (int f = 0; f < FIELDS; f++) {
+                    total[w][f] += sums[w][f];
+                }
+            }
+        }
+
+        List<Map<String, Object>> categoryRows = new ArrayList<>();
+        for (Map.Entry<String, long[][]> entry : byCategory.entrySet()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("category", entry.getKey());
+            putWindows(row, entry.getValue());
+            categoryRows.add(row);
+        }
+
+        Map<String, Object> topSellers = new LinkedHashMap<>();
+        for (Window window : Window.values()) {
+            topSellers.put(key(window), topSellers(current, now, window));
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("generatedAt", LocalDateTime.now());
+        Map<String, Object> totals = new LinkedHashMap<>();
+        putWindows(totals, overall.sumAll(now));
+        stats.put("totals", totals);
+        stats.put("items", items);
+        stats.put("categories", categoryRows);
+        stats.put("topSellers", topSellers);
+        stats.put("peakMinute", peakMinuteStats(now));
+        return stats;
+    }
+
+    // --- RECORDING ---
+
+    private void addOverall(long second, long now, long units, long revenue) {
+        long ordersThisMinute = overall.add(second, now, 1, units, revenue);
+        if (ordersThisMinute > 0) {
+            long packed = (ordersThisMinute << 32) | (second / 60);
+            if (packed > peakMinute.get()) {
+                peakMinute.accumulateAndGet(packed, Math::max);
+            }
+        }
+    }
+
+    // Lock-free lookup; only the first order of a new item takes the lock to register it
+    private Counters countersFor(Long itemId, String name) {
+        long id = itemId == null ? 0 : itemId;
+        Registry current = registry;
+        int i = Arrays.binarySearch(current.itemIds, id);
+        if (i >= 0) {
+            Counters counters = current.counters[i];
+            if (name != null && !name.equals(counters.name)) {
+                counters.name = name;
+            }
+            return counters;
+        }
+
+        synchronized (registerLock) {
+            current = registry;
+            i = Arrays.binarySearch(current.itemIds, id);
+            if (i >= 0) {
+                return current.counters[i];
+            }
+            int at = -i - 1;
+            int size = current.itemIds.length;
+            long[] ids = new long[size + 1];
+            Counters[] counters = new Counters[size + 1];
+            System.arraycopy(current.itemIds, 0, ids, 0, at);
+            System.arraycopy(current.counters, 0, counters, 0, at);
+            System.arraycopy(current.itemIds, at, ids, at + 1, size - at);
+            System.arraycopy(current.counters, at, counters, at + 1, size - at);
+            ids[at] = id;
+            counters[at] = new Counters(id, name);
+            registry = new Registry(ids, counters);
+            return counters[at];
+        }
+    }
+
+    // Clears the slots for the next few seconds (and the minutes they start) before anyone writes to them
+    private void clearAhead(long now) {
+        Registry current = registry;
+        while (clearedThroughSecond < now + CLEAR_AHEAD) {
+            long second = ++clearedThroughSecond;
+            boolean newMinute = second % 60 == 0;
+            overall.clear(second, newMinute);
+            for (Counters counters : current.counters) {
+                counters.clear(second, newMinute);
+            }
+        }
+    }
+
+    // --- REBUILD ---
+
+    // Replays the day of confirmed orders before startup: single-item orders first, then cart lines
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long now = nowSecond();
+        LocalDateTime since = startedAt.minusDays(1);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = orderRepository.streamSingleItemSales(since, startedAt)) {
+                rows.forEach(row -> {
+                    long second = toEpochSecond((LocalDateTime) row[4]);
+                    long revenue = (Long) row[3];
+                    countersFor((Long) row[1], (String) row[2]).add(second, now, 1, 1, revenue);
+                    addOverall(second, now, 1, revenue);
+                });
+            }
+
+            try (Stream<Object[]> rows = orderRepository.streamCartLineSales(since, startedAt)) {
+                Iterator<Object[]> it = rows.iterator();
+                Long orderId = null;
+                long second = 0, units = 0, revenue = 0;
+                while (it.hasNext()) {
+                    Object[] row = it.next();
+                    if (!row[0].equals(orderId)) {
+                        if (orderId != null) {
+                            addOverall(second, now, units, revenue);
+                        }
+                        orderId = (Long) row[0];
+                        second = toEpochSecond((LocalDateTime) row[5]);
+                        units = 0;
+                        revenue = 0;
+                    }
+                    int qty = (Integer) row[3];
+                    long lineRevenue = Money.times((Long) row[4], qty);
+                    countersFor((Long) row[1], (String) row[2]).add(second, now, 1, qty, lineRevenue);
+                    units += qty;
+                    revenue += lineRevenue;
+                }
+                if (orderId != null) {
+                    addOverall(second, now, units, revenue);
+                }
+            }
+        });
+    }
+
+    // --- READING ---
+
+    private List<Map<String, Object>> topSellers(Registry current, long now, Window window) {
+        List<long[]> ranked = new ArrayList<>(); // { index, units, revenue }
+        for (int i = 0; i < current.counters.length; i++) {
+            long[] sum = current.counters[i].sum(now, window);
+            if (sum[UNITS] > 0) {
+                ranked.add(new long[] { i, sum[UNITS], sum[REVENUE] });
+            }
+        }
+        ranked.sort(Comparator.comparingLong((long[] r) -> r[1]).reversed());
+
+        List<Map<String, Object>> top = new ArrayList<>();
+        for (long[] r : ranked.subList(0, Math.min(topK, ranked.size()))) {
+            Counters item = current.counters[(int) r[0]];
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("itemId", item.itemId);
+            row.put("name", item.name);
+            row.put("units", r[1]);
+            row.put("revenue", r[2]);
+            top.add(row);
+        }
+        return top;
+    }
+
+    private Map<String, Object> peakMinuteStats(long now) {
+        Map<String, Object> peak = new LinkedHashMap<>();
+
+        // Busiest minute of the last day, from the minute ring
+        long bestMinute = 0, bestOrders = 0;
+        for (long minute = now / 60 - 1439; minute <= now / 60; minute++) {
+            long orders = overall.minuteValue(minute, ORDERS);
+            if (orders > bestOrders) {
+                bestOrders = orders;
+                bestMinute = minute;
+            }
+        }
+        peak.put("lastDay", minuteStats(bestMinute, bestOrders));
+
+        long packed = peakMinute.get();
+        peak.put("sinceStart", minuteStats(packed & 0xFFFFFFFFL, packed >>> 32));
+        return peak;
+    }
+
+    private Map<String, Object> minuteStats(long epochMinute, long orders) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("minute", orders == 0 ? null : LocalDateTime.ofInstant(Instant.ofEpochSecond(epochMinute * 60), ZoneId.systemDefault()));
+        row.put("ordersPerMinute", orders);
+        return row;
+    }
+
+    private Map<Long, String> categoriesByItem() {
+        Map<Long, String> categories = new LinkedHashMap<>();
+        try {
+            for (DTOs.MenuItemDTO item : menuCatalog.getMenu().items) {
+                categories.put(item.id, item.category);
+            }
+        } catch (RuntimeException e) {
+            // Menu Service down and nothing cached: categories show as "Unknown"
+        }
+        return categories;
+    }
+
+    private static void putWindows(Map<String, Object> row, long[][] sums) {
+        for (Window window : Window.values()) {
+            long[] sum = sums[window.ordinal()];
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("orders", sum[ORDERS]);
+            values.put("units", sum[UNITS]);
+            values.put("revenue", sum[REVENUE]);
+            row.put(key(window), values);
+        }
+    }
+
+    private static String key(Window window) {
+        return window.name().toLowerCase();
+    }
+
+    private static long nowSecond() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private static long toEpochSecond(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    // Sorted item ids and their counters, replaced as a whole when a new item shows up
+    private static class Registry {
+        final long[] itemIds;
+        final Counters[] counters;
+
+        Registry(long[] itemIds, Counters[] counters) {
+            this.itemIds = itemIds;
+            this.counters = counters;
+        }
+    }
+
+    // Orders / units / revenue for one item (or everything), bucketed by second and by minute
+    private static class Counters {
+        final long itemId;
+        volatile String name;
+        final AtomicLongArray seconds = new AtomicLongArray(SECOND_SLOTS * FIELDS);
+        final AtomicLongArray minutes = new AtomicLongArray(MINUTE_SLOTS * FIELDS);
+
+        Counters(long itemId, String name) {
+            this.itemId = itemId;
+            this.name = name;
+        }
+
+        // Adds to the buckets for "second" if they are still inside a window; returns the minute's new order count
+        long add(long second, long now, long orders, long units, long revenue) {
+            if (second > now - 60 && second <= now) {
+                int s = (int) (second % SECOND_SLOTS) * FIELDS;
+                seconds.addAndGet(s + ORDERS, orders);
+                seconds.addAndGet(s + UNITS, units);
+                seconds.addAndGet(s + REVENUE, revenue);
+            }
+            long minute = second / 60;
+            if (minute > now / 60 - 1440 && minute <= now / 60) {
+                int m = (int) (minute % MINUTE_SLOTS) * FIELDS;
+                minutes.addAndGet(m + UNITS, units);
+                minutes.addAndGet(m + REVENUE, revenue);
+                return minutes.addAndGet(m + ORDERS, orders);
+            }
+            return 0;
+        }
+
+        void clear(long second, boolean newMinute) {
+            int s = (int) (second % SECOND_SLOTS) * FIELDS;
+            for (int f = 0; f < FIELDS; f++) {
+                seconds.set(s + f, 0);
+            }
+            if (newMinute) {
+                int m = (int) ((second / 60) % MINUTE_SLOTS) * FIELDS;
+                for (int f = 0; f < FIELDS; f++) {
+                    minutes.set(m + f, 0);
+                }
+            }
+        }
+
+        long minuteValue(long minute, int field) {
+            return minutes.get((int) (minute % MINUTE_SLOTS) * FIELDS + field);
+        }
+
+        long[] sum(long now, Window window) {
+            long[] sum = new long[FIELDS];
+            if (window == Window.MINUTE) {
+                for (long second = now - 59; second <= now; second++) {
+                    int s = (int) (second % SECOND_SLOTS) * FIELDS;
+                    for (int f = 0; f < FIELDS; f++) {
+                        sum[f] += seconds.get(s + f);
+                    }
+                }
+                return sum;
+            }
+            long minutesBack = window.seconds / 60;
+            for (long minute = now / 60 - minutesBack + 1; minute <= now / 60; minute++) {
+                for (int f = 0; f < FIELDS; f++) {
+                    sum[f] += minuteValue(minute, f);
+                }
+            }
+            return sum;
+        }
+
+        long[][] sumAll(long now) {
+            long[][] sums = new long[Window.values().length][];
+            for (Window window : Window.values()) {
+                sums[window.ordinal()] = sum(now, window);
+            }
+            return sums;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.orderservice;
+
+// Thrown without calling the downstream service: its breaker is open or its bulkhead is full
+public class ServiceUnavailableException extends RuntimeException {
+
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
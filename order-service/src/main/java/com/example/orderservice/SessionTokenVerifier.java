@@ -0,0 +1,191 @@
+package com.example.orderservice;
+
+import com.example.common.ReadYourWrites;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Works out which student a request is from, using the session token wallet-service hands
+ * out at login - without calling wallet-service.
+ *
+ * The token comes as "Authorization: Bearer ..." from fetch() calls, or in the canteen_session
+ * cookie for plain page loads like /order-ui/place. Its HMAC-SHA256 signature is checked with
+ * the shared auth.token.secret. Tokens that passed are kept in a bounded map (oldest evicted
+ * first) until they expire, so a student's next requests skip the JSON parse and the HMAC.
+ *
+ * With order.auth.required=false a request without a token still falls back to its rollNumber
+ * parameter (for older clients during a rollout); a token that is present is always checked.
+ */
+@Component
+public class SessionTokenVerifier {
+
+    public static final String COOKIE = "canteen_session";
+
+    public record Session(String rollNumber, String studentName, long expiresAtEpochSecond) {}
+
+    private static final int EVICTION_ATTEMPTS = 64;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ReadYourWrites readYourWrites;
+
+    @Value("${auth.token.secret}")
+    private String secret;
+
+    @Value("${order.auth.required:true}")
+    private boolean required;
+
+    @Value("${order.auth.cache-size:10000}")
+    private int cacheSize;
+
+    private final Map<String, Session> verified = new ConcurrentHashMap<>();
+    private final Queue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong verifiedTokens = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong anonymous = new AtomicLong();
+
+    // The roll number to act for. rollNumber is what the caller claims (may be null); if it
+    // doesn't match the token the request is refused rather than quietly switched to another student.
+    public String requireStudent(HttpServletRequest request, String rollNumber) {
+        String token = tokenFrom(request);
+        if (token == null) {
+            if (!required && rollNumber != null && !rollNumber.isBlank()) {
+                anonymous.incrementAndGet();
+                readYourWrites.use(rollNumber);
+                return rollNumber;
+            }
+            rejected.incrementAndGet();
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Please log in");
+        }
+        Session session = verify(token);
+        if (rollNumber != null && !rollNumber.isBlank() && !rollNumber.equals(session.rollNumber())) {
+            rejected.incrementAndGet();
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Logged in as a different student");
+        }
+        readYourWrites.use(session.rollNumber());
+        return session.rollNumber();
+    }
+
+    public Session verify(String token) {
+        long now = System.currentTimeMillis() / 1000;
+        Session cached = verified.get(token);
+        if (cached != null) {
+            if (cached.expiresAtEpochSecond() > now) {
+                cacheHits.incrementAndGet();
+                return cached;
+            }
+            verified.remove(token);
+        }
+
+        Session session = parse(token);
+        if (session == null || session.expiresAtEpochSecond() <= now) {
+            rejected.incrementAndGet();
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Session expired, please log in again");
+        }
+        verifiedTokens.incrementAndGet();
+        remember(token, session);
+        return session;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("required", required);
+        stats.put("cached", verified.size());
+        stats.put("cacheHits", cacheHits.get());
+        stats.put("verified", verifiedTokens.get());
+        stats.put("rejected", rejected.get());
+        stats.put("anonymous", anonymous.get());
+        return stats;
+    }
+
+    private static String tokenFrom(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return header.substring(7).trim();
+        }
+        if (request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (COOKIE.equals(cookie.getName()) && !cookie.getValue().isEmpty()) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    // null when the token is malformed or the signature does not match
+    private Session parse(String token) {
+        int firstDot = token.indexOf('.');
+        int lastDot = token.lastIndexOf('.');
+        if (firstDot <= 0 || lastDot == firstDot) {
+            return null;
+        }
+        Base64.Decoder base64 = Base64.getUrlDecoder();
+        try {
+            byte[] signature = base64.decode(token.substring(lastDot + 1));
+            if (!MessageDigest.isEqual(sign(token.substring(0, lastDot)), signature)) {
+                return null;
+            }
+            JsonNode header = objectMapper.readTree(base64.decode(token.substring(0, firstDot)));
+            if (!"HS256".equals(header.path("alg").asString())) {
+                return null;
+            }
+            JsonNode claims = objectMapper.readTree(base64.decode(token.substring(firstDot + 1, lastDot)));
+            String rollNumber = claims.path("sub").asString();
+            if (rollNumber.isEmpty()) {
+                return null;
+            }
+            return new Session(rollNumber, claims.path("name").asString(), claims.path("exp").asLong());
+        } catch (IllegalArgumentException | JacksonException e) {
+            return null;
+        }
+    }
+
+    private byte[] sign(String unsigned) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return mac.doFinal(unsigned.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot check session token", e);
+        }
+    }
+
+    private void remember(String token, Session session) {
+        if (verified.put(token, session) == null) {
+            insertionOrder.add(token);
+        }
+        for (int i = 0; i < EVICTION_ATTEMPTS && verified.size() > cacheSize; i++) {
+            String oldest = insertionOrder.poll();
+            if (oldest == null) {
+                break;
+            }
+            verified.remove(oldest);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.orderservice;
+
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the spans of the last few slow requests and sagas, for /order/slow-traces.
+ *
+ * Brave hands every finished span to this handler. Spans are held per trace until the local
+ * root (the incoming HTTP request, or a saga's advance()) ends; if that took longer than
+ * order.tracing.slow-threshold-ms the whole tree is kept, so a slow order shows how long it
+ * spent in the pipeline, in each saga step and in each call to menu, wallet and notification.
+ * The trace id is the same one the other services log, as it travels in the traceparent header.
+ */
+@Component
+public class SlowTraceRecorder extends SpanHandler {
+
+    private static final int MAX_OPEN_TRACES = 10_000;
+
+    private final long thresholdMicros;
+    private final int keep;
+
+    private final Map<String, List<MutableSpan>> open = new ConcurrentHashMap<>();
+    private final Deque<Map<String, Object>> slow = new ArrayDeque<>();
+    private final AtomicLong seen = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public SlowTraceRecorder(@Value("${order.tracing.slow-threshold-ms:500}") long thresholdMs,
+                             @Value("${order.tracing.slow-traces-kept:50}") int keep) {
+        this.thresholdMicros = thresholdMs * 1000;
+        this.keep = keep;
+    }
+
+    @Override
+    public boolean end(TraceContext context, MutableSpan span, Cause cause) {
+        if (cause != Cause.FINISHED) {
+            return true;
+        }
+        String traceId = context.traceIdString();
+        if (!context.isLocalRoot()) {
+            if (open.size() < MAX_OPEN_TRACES || open.containsKey(traceId)) {
+                // compute() so spans ending on parallel pipeline threads do not race on the list
+                open.compute(traceId, (id, spans) -> {
+                    List<MutableSpan> list = spans != null ? spans : new ArrayList<>();
+                    list.add(span);
+                    return list;
+                });
+            } else {
+                dropped.incrementAndGet();
+            }
+            return true;
+        }
+
+        seen.incrementAndGet();
+        List<MutableSpan> children = open.remove(traceId);
+        long duration = span.finishTimestamp() - span.startTimestamp();
+        if (duration >= thresholdMicros) {
+            List<MutableSpan> spans = new ArrayList<>();
+            spans.add(span);
+            if (children != null) {
+                spans.addAll(children);
+            }
+            keep(describe(traceId, span, spans));
+        }
+        return true;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("thresholdMs", thresholdMicros / 1000);
+        result.put("tracesSeen", seen.get());
+        result.put("spansDropped", dropped.get());
+        synchronized (slow) {
+            result.put("slowest", new ArrayList<>(slow));
+        }
+        return result;
+    }
+
+    private void keep(Map<String, Object> trace) {
+        synchronized (slow) {
+            slow.addFirst(trace);
+            while (slow.size() > keep) {
+                slow.removeLast();
+            }
+        }
+    }
+
+    // One entry per span, in start order, with offsets from the start of the request
+    private static Map<String, Object> describe(String traceId, MutableSpan root, List<MutableSpan> spans) {
+        spans.sort(Comparator.comparingLong(MutableSpan::startTimestamp));
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (MutableSpan span : spans) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("name", span.name());
+            row.put("startMs", (span.startTimestamp() - root.startTimestamp()) / 1000.0);
+            row.put("durationMs", (span.finishTimestamp() - span.startTimestamp()) / 1000.0);
+            row.put("spanId", span.id());
+            row.put("parentId", span.parentId());
+            if (span.error() != null) {
+                row.put("error", String.valueOf(span.error().getMessage()));
+            }
+            Map<String, String> tags = new LinkedHashMap<>();
+            span.forEachTag((t, key, value) -> t.put(key, value), tags);
+            row.put("tags", tags);
+            rows.add(row);
+        }
+
+        Map<String, Object> trace = new LinkedHashMap<>();
+        trace.put("traceId", traceId);
+        trace.put("name", root.name());
+        trace.put("durationMs", (root.finishTimestamp() - root.startTimestamp()) / 1000.0);
+        trace.put("spans", rows);
+        return trace;
+    }
+}
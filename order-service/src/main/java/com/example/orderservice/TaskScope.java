@@ -0,0 +1,73 @@
+package com.example.orderservice;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A small structured fan-out scope for the order pipeline.
+ *
+ * Subtasks forked in a scope run concurrently (on virtual threads), {@link #join()} waits
+ * for all of them up to the scope's deadline, and closing the scope cancels (interrupts)
+ * anything still running. Closing does not wait for them, so a subtask cut off by the deadline
+ * may still finish afterwards: only fork work that is safe to abandon, like a downstream call
+ * that is retried or undone by reference, never a write whose outcome the caller acts on.
+ * Each subtask also takes a permit from a shared semaphore, which caps how many downstream
+ * calls the whole service has in flight at once.
+ *
+ * This is the shape of {@code StructuredTaskScope}, which is still a preview API on Java 21.
+ */
+class TaskScope implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final long deadlineNanos;
+    private final List<Future<?>> forked = new ArrayList<>();
+
+    TaskScope(ExecutorService executor, Semaphore permits, Duration timeout) {
+        this.executor = executor;
+        this.permits = permits;
+        this.deadlineNanos = System.nanoTime() + timeout.toNanos();
+    }
+
+    <T> Future<T> fork(Callable<T> task) {
+        Future<T> future = executor.submit(() -> {
+            permits.acquire();
+            try {
+                return task.call();
+            } finally {
+                permits.release();
+            }
+        });
+        forked.add(future);
+        return future;
+    }
+
+    // Waits for every subtask or until the deadline passes; callers inspect each Future afterwards
+    void join() throws InterruptedException {
+        for (Future<?> future : forked) {
+            long remaining = deadlineNanos - System.nanoTime();
+            try {
+                future.get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                // failure is reported through the Future itself
+            } catch (TimeoutException e) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Future<?> future : forked) {
+            future.cancel(true);
+        }
+    }
+}
@@ -1,21 +1,27 @@
 package com.example.orderservice;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.server.ResponseStatusException;
 import java.util.List;
 
 @Controller
 public class WebController {
 
     @Autowired
-    private RestTemplate restTemplate;
+    private OrderHistoryService orderHistory;
     
     @Autowired
-    private OrderRepository orderRepository;
+    private OrderPipeline orderPipeline;
+    
+    @Autowired
+    private SessionTokenVerifier sessionTokens;
     
     // 1. ROOT URL -> Show Welcome Page
     @GetMapping("/") 
@@ -24,82 +30,58 @@ public class WebController {
     }
 
     // 2. HOME URL -> Show the Menu (Requires Login)
+    // Just the page shell: home.js fetches the student and the menu in one call to /bff/home
     @GetMapping("/home") 
-    public String showHomePage(Model model) {
-        String menuUrl = "http://localhost:8081/menu";
-        try {
-            DTOs.MenuItemDTO[] menuItems = restTemplate.getForObject(menuUrl, DTOs.MenuItemDTO[].class);
-            model.addAttribute("menuItems", menuItems);
-        } catch (Exception e) {
-            model.addAttribute("error", "Menu Service is down!");
-        }
+    public String showHomePage() {
         return "home";
     }
 
     // 3. Handle the Order from UI - FIXED VERSION
     @GetMapping("/order-ui/place")
-    public String placeOrderUI(@RequestParam String rollNumber, 
+    public String placeOrderUI(@RequestParam(required = false) String rollNumber, 
                                @RequestParam Long itemId, 
+                               @RequestParam(required = false) String idempotencyKey,
+                               HttpServletRequest request,
+                               HttpServletResponse response,
                                Model model) {
         
+        // Student from the session cookie set at login; no session (or an expired one) -> log in again
+        try {
+            rollNumber = sessionTokens.requireStudent(request, rollNumber);
+        } catch (ResponseStatusException e) {
+            return "redirect:/login";
+        }
+        
         String resultMessage = "";
         String status = "success";
 
         try {
-            // A. Check Menu & Get Item Details
-            String menuUrl = "http://localhost:8081/menu/" + itemId;
-            DTOs.MenuItemDTO item = restTemplate.getForObject(menuUrl, DTOs.MenuItemDTO.class);
-            
-            if (item == null) {
-                throw new RuntimeException("Item not found!");
-            }
-            
-            // B. Check Stock Availability
-            if (item.quantity <= 0) {
-                throw new RuntimeException("Item is SOLD OUT!");
+            // A-E. Reserve, pay, commit, save and notify (see OrderPipeline)
+            // (a refresh or double click carries the same key and gets the same result back)
+            OrderResult result = orderPipeline.placeOrder(rollNumber, itemId, idempotencyKey);
+            if (result.isSuccess()) {
+                resultMessage = "✅ Success! Ordered " + result.getOrder().getItemName() + ". Order ID: " + result.getOrder().getId();
+            } else if (result.isAccepted()) {
+                // Saga mode: the page polls /order/{id}/status and updates this message
+                resultMessage = "⏳ Order received! " + result.getOrder().getItemName() + ". Order ID: " + result.getOrder().getId();
+                model.addAttribute("pendingOrderId", result.getOrder().getId());
+            } else {
+                resultMessage = "❌ Order Failed: " + result.getReason();
+                status = "error";
             }
             
-            // C. Deduct Wallet Balance
-            String walletUrl = "http://localhost:8082/wallet/deduct?rollNumber=" + rollNumber + "&amount=" + item.price;
-            restTemplate.postForObject(walletUrl, null, DTOs.WalletDTO.class);
-            
-            // D. ✅ UPDATE STOCK (This was missing!)
-            int newQty = item.quantity - 1;
-            String stockUrl = "http://localhost:8081/menu/updateStock/" + item.id + "/" + newQty;
-            
-            try {
-                restTemplate.postForObject(stockUrl, null, DTOs.MenuItemDTO.class);
-                System.out.println("✅ Stock updated: Item ID " + item.id + " -> New Qty: " + newQty);
-            } catch (Exception e) {
-                System.err.println("❌ FAILED TO UPDATE STOCK for Item ID: " + item.id);
-                e.printStackTrace();
-                // Continue anyway - order already placed
-            }
-            
-            // E. Save Order
-            FoodOrder order = new FoodOrder(rollNumber, itemId, item.price, "CONFIRMED");
-            orderRepository.save(order);
-            
-            // F. Send Notification
-            String notifyUrl = "http://localhost:8084/notify/send?rollNumber=" + rollNumber + "&message=Order Placed: " + item.name;
-            try { 
-                restTemplate.postForObject(notifyUrl, null, String.class); 
-            } catch (Exception e) {
-                System.out.println("Notification service unavailable");
-            }
-
-            resultMessage = "✅ Success! Ordered " + item.name + ". Order ID: " + order.getId();
-            
+        } catch (AdmissionRejectedException e) {
+            // Shed before any work was done; same status and Retry-After as the JSON endpoint
+            response.setStatus(e.getStatusCode().value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()));
+            resultMessage = "⏳ " + e.getReason();
+            status = "error";
         } catch (Exception e) {
             resultMessage = "❌ Order Failed: " + e.getMessage();
             status = "error";
         }
 
-        // Reload the menu to show updated quantities
-        String menuUrl = "http://localhost:8081/menu";
-        DTOs.MenuItemDTO[] menuItems = restTemplate.getForObject(menuUrl, DTOs.MenuItemDTO[].class);
-        model.addAttribute("menuItems", menuItems);
-        
+        // The menu itself is loaded by home.js (/bff/home) with current quantities
         model.addAttribute("message", resultMessage);
         model.addAttribute("status", status);
         
@@ -108,12 +90,15 @@ public class WebController {
     
     // 4. Show Order History Page
     @GetMapping("/history")
-    public String showHistoryPage(@RequestParam(required = false) String rollNumber, Model model) {
-        if (rollNumber != null && !rollNumber.isEmpty()) {
-            List<FoodOrder> orders = orderRepository.findByRollNumber(rollNumber);
-            model.addAttribute("orders", orders);
-            model.addAttribute("rollNumber", rollNumber);
+    public String showHistoryPage(@RequestParam(required = false) String rollNumber, HttpServletRequest request, Model model) {
+        try {
+            rollNumber = sessionTokens.requireStudent(request, rollNumber);
+        } catch (ResponseStatusException e) {
+            return "redirect:/login";
         }
+        List<FoodOrder> orders = orderHistory.page(rollNumber, null, null, null, OrderHistoryService.DEFAULT_PAGE_SIZE).getOrders();
+        model.addAttribute("orders", orders);
+        model.addAttribute("rollNumber", rollNumber);
         return "history";
     }
     
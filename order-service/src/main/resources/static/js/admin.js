@@ -3,6 +3,7 @@
    ======================================== */
 
 const API_URL = "http://localhost:8081/menu";
+const STATS_REFRESH_MS = 10000;
 
 // === INITIALIZATION ===
 document.addEventListener('DOMContentLoaded', () => {
@@ -13,6 +14,10 @@ document.addEventListener('DOMContentLoaded', () => {
     }
     
     loadMenu();
+    
+    // Sales numbers are in memory on the order service, so polling them is cheap
+    loadSalesStats();
+    setInterval(loadSalesStats, STATS_REFRESH_MS);
 });
 
 // === LOAD MENU ===
@@ -67,7 +72,7 @@ function createMenuCard(item) {
             <div class="admin-card-content">
                 <div class="admin-card-title">${item.name}</div>
                 <div class="admin-card-meta">
-                    <span class="admin-price">₹${item.price}</span>
+                    <span class="admin-price">${UI.formatPrice(item.price)}</span>
                     <span class="admin-stock">📦 ${item.quantity} left</span>
                 </div>
             </div>
@@ -82,7 +87,7 @@ function editItem(item) {
     document.getElementById('itemName').value = item.name;
     document.getElementById('category').value = item.category;
     document.getElementById('type').value = item.type;
-    document.getElementById('price').value = item.price;
+    document.getElementById('price').value = (item.price / 100).toFixed(2);
     document.getElementById('quantity').value = item.quantity;
     document.getElementById('imageUrl').value = item.imageUrl;
     
@@ -96,7 +101,7 @@ async function saveItem() {
     const name = document.getElementById('itemName').value.trim();
     const category = document.getElementById('category').value;
     const type = document.getElementById('type').value;
-    const price = parseFloat(document.getElementById('price').value);
+    const price = UI.toPaise(document.getElementById('price').value);
     const quantity = parseInt(document.getElementById('quantity').value);
     const imageUrl = document.getElementById('imageUrl').value.trim();
     
@@ -157,7 +162,7 @@ function resetForm() {
 // === RECHARGE WALLET ===
 async function rechargeWallet() {
     const rollNumber = document.getElementById('rechargeRoll').value.trim();
-    const amount = parseFloat(document.getElementById('rechargeAmount').value);
+    const amount = UI.toPaise(document.getElementById('rechargeAmount').value);
     
     if (!rollNumber) {
         UI.showToast('Please enter roll number', 'error');
@@ -177,7 +182,7 @@ async function rechargeWallet() {
         });
         
         if (response.ok) {
-            UI.showToast(`Wallet recharged! Added ₹${amount} to Roll No: ${rollNumber}`, 'success');
+            UI.showToast(`Wallet recharged! Added ${UI.formatPrice(amount)} to Roll No: ${rollNumber}`, 'success');
             document.getElementById('rechargeRoll').value = '';
             document.getElementById('rechargeAmount').value = '';
         } else {
@@ -190,6 +195,75 @@ async function rechargeWallet() {
     }
 }
 
+// === LIVE SALES ===
+async function loadSalesStats() {
+    const container = document.getElementById('salesStats');
+    
+    try {
+        const response = await fetch(`${API.ORDER}/stats`);
+        if (!response.ok) throw new Error('Failed to fetch stats');
+        const stats = await response.json();
+        
+        container.innerHTML = `
+            <div class="sales-grid">
+                ${createSalesCard('Last Minute', stats.totals.minute)}
+                ${createSalesCard('Last Hour', stats.totals.hour)}
+                ${createSalesCard('Last 24 Hours', stats.totals.day)}
+                <div class="sales-card">
+                    <div class="sales-card-title">⚡ Peak Minute (24h)</div>
+                    <div class="sales-card-value">${stats.peakMinute.lastDay.ordersPerMinute} orders</div>
+                    <div class="sales-card-meta">
+                        ${stats.peakMinute.lastDay.minute ? UI.formatTime(stats.peakMinute.lastDay.minute) : '-'}
+                    </div>
+                </div>
+            </div>
+            
+            <div class="sales-grid">
+                <div class="sales-card">
+                    <div class="sales-card-title">🏆 Best Sellers (1h)</div>
+                    ${createSalesList(stats.topSellers.hour.map(item => [item.name, `${item.units} sold`]))}
+                </div>
+                <div class="sales-card">
+                    <div class="sales-card-title">🏆 Best Sellers (24h)</div>
+                    ${createSalesList(stats.topSellers.day.map(item => [item.name, `${item.units} sold`]))}
+                </div>
+                <div class="sales-card">
+                    <div class="sales-card-title">🗂️ Revenue by Category (24h)</div>
+                    ${createSalesList(stats.categories.map(c => [c.category, UI.formatPrice(c.day.revenue)]))}
+                </div>
+            </div>
+        `;
+    } catch (error) {
+        console.error('Failed to load sales stats:', error);
+        container.innerHTML = `
+            <div style="text-align: center; padding: 20px; color: var(--gray-600);">
+                ⚠️ Sales numbers are unavailable (is Order Service running?)
+            </div>
+        `;
+    }
+}
+
+function createSalesCard(title, window) {
+    return `
+        <div class="sales-card">
+            <div class="sales-card-title">${title}</div>
+            <div class="sales-card-value">${UI.formatPrice(window.revenue)}</div>
+            <div class="sales-card-meta">${window.orders} orders · ${window.units} items</div>
+        </div>
+    `;
+}
+
+function createSalesList(rows) {
+    if (rows.length === 0) {
+        return '<div class="sales-card-meta">No sales yet</div>';
+    }
+    return `
+        <ul class="sales-list">
+            ${rows.map(([label, value]) => `<li><span>${label}</span><strong>${value}</strong></li>`).join('')}
+        </ul>
+    `;
+}
+
 // === ADMIN LOGOUT ===
 function adminLogout() {
     if (confirm('Are you sure you want to logout?')) {
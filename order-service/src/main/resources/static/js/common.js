@@ -8,29 +8,64 @@ const API = {
     MENU: 'http://localhost:8081/menu',
     WALLET: 'http://localhost:8082/wallet',
     ORDER: 'http://localhost:8083/order',
+    BFF: 'http://localhost:8083/bff',
     NOTIFICATION: 'http://localhost:8084/notify'
 };
 
 // === AUTHENTICATION ===
+// Login returns a signed session token carrying the roll number and name (a JWT).
+// The pages read both straight out of it, and order-service checks its signature,
+// so nobody has to ask wallet-service who is logged in.
 const Auth = {
+    // Decoded token claims { sub, name, exp }, or null when logged out or expired
+    getSession() {
+        const token = localStorage.getItem('sessionToken');
+        if (!token) return null;
+        try {
+            const payload = token.split('.')[1].replace(/-/g, '+').replace(/_/g, '/');
+            const bytes = Uint8Array.from(atob(payload), c => c.charCodeAt(0));
+            const claims = JSON.parse(new TextDecoder().decode(bytes));
+            return claims.exp * 1000 > Date.now() ? claims : null;
+        } catch (error) {
+            return null;
+        }
+    },
+    
     // Check if user is logged in
     isLoggedIn() {
-        return localStorage.getItem('savedRoll') !== null;
+        return this.getSession() !== null;
     },
     
     // Get current user's roll number
     getRollNumber() {
-        return localStorage.getItem('savedRoll');
+        const session = this.getSession();
+        return session ? session.sub : null;
+    },
+    
+    // Get current user's name
+    getStudentName() {
+        const session = this.getSession();
+        return session ? session.name : null;
     },
     
-    // Save user session
-    login(rollNumber) {
-        localStorage.setItem('savedRoll', rollNumber);
+    // Headers for fetch() calls to order-service
+    headers() {
+        const token = localStorage.getItem('sessionToken');
+        return token ? { 'Authorization': `Bearer ${token}` } : {};
+    },
+    
+    // Save user session; the cookie carries it on plain page loads (/order-ui/place, /history)
+    login(session) {
+        localStorage.setItem('sessionToken', session.token);
+        const maxAge = Math.max(0, Math.floor((new Date(session.expiresAt) - Date.now()) / 1000));
+        document.cookie = `canteen_session=${session.token}; path=/; max-age=${maxAge}; SameSite=Lax`;
     },
     
     // Clear user session
     logout() {
+        localStorage.removeItem('sessionToken');
         localStorage.removeItem('savedRoll');
+        document.cookie = 'canteen_session=; path=/; max-age=0; SameSite=Lax';
         window.location.href = '/';
     },
     
@@ -56,6 +91,18 @@ const WalletService = {
         }
     },
     
+    // Ledger entries, newest first: resolves to { transactions, page, size, hasMore }
+    async getTransactions(rollNumber, { page = 0, size = 20 } = {}) {
+        try {
+            const response = await fetch(`${API.WALLET}/${rollNumber}/transactions?page=${page}&size=${size}`);
+            if (!response.ok) throw new Error('Failed to fetch transactions');
+            return await response.json();
+        } catch (error) {
+            console.error('Error fetching transactions:', error);
+            throw error;
+        }
+    },
+    
     // Register new student
     async register(studentName, rollNumber, password) {
         try {
@@ -77,7 +124,7 @@ const WalletService = {
         }
     },
     
-    // Login
+    // Login: resolves to { token, rollNumber, studentName, expiresAt }
     async login(rollNumber, password) {
         try {
             const response = await fetch(`${API.WALLET}/login`, {
@@ -98,9 +145,11 @@ const WalletService = {
 // === MENU SERVICE ===
 const MenuService = {
     // Get all menu items
+    // 'no-cache' makes the browser revalidate its cached copy (If-None-Match), so an
+    // unchanged menu comes back as a 304 with no body
     async getAllItems() {
         try {
-            const response = await fetch(API.MENU);
+            const response = await fetch(API.MENU, { cache: 'no-cache' });
             if (!response.ok) throw new Error('Failed to fetch menu');
             return await response.json();
         } catch (error) {
@@ -109,6 +158,36 @@ const MenuService = {
         }
     },
     
+    // One page of the menu, filtered and sorted by menu-service: { items, total, page, size, categories }
+    // options: { q, category, type, inStock, sort, page, size } - sort is default / price-low / price-high / name
+    async search(options = {}) {
+        try {
+            const params = new URLSearchParams();
+            Object.entries(options).forEach(([key, value]) => {
+                if (value !== undefined && value !== null && value !== '') params.set(key, value);
+            });
+            
+            const response = await fetch(`${API.MENU}/search?${params}`);
+            if (!response.ok) throw new Error('Failed to search menu');
+            return await response.json();
+        } catch (error) {
+            console.error('Error searching menu:', error);
+            throw error;
+        }
+    },
+    
+    // Live stock feed (Server-Sent Events). onSnapshot gets {version, items} on every (re)connect,
+    // onStock gets [{itemId, quantity, available, version}] after each stock change.
+    // EventSource reconnects by itself if the connection drops.
+    subscribe(onSnapshot, onStock) {
+        if (!window.EventSource) return null;
+        
+        const source = new EventSource(`${API.MENU}/stream`);
+        source.addEventListener('snapshot', (e) => onSnapshot(JSON.parse(e.data)));
+        source.addEventListener('stock', (e) => onStock(JSON.parse(e.data)));
+        return source;
+    },
+    
     // Get single item
     async getItem(itemId) {
         try {
@@ -122,6 +201,84 @@ const MenuService = {
     }
 };
 
+// === ORDER SERVICE ===
+const OrderService = {
+    // One page of order history, newest first: { orders, nextCursor }
+    // options: { cursor, limit, from, to } - from/to are 'YYYY-MM-DD' dates (inclusive)
+    async getHistory(rollNumber, options = {}) {
+        try {
+            const params = new URLSearchParams({ rollNumber });
+            ['cursor', 'limit', 'from', 'to'].forEach(key => {
+                if (options[key]) params.set(key, options[key]);
+            });
+            
+            const response = await fetch(`${API.ORDER}/history?${params}`, { headers: Auth.headers() });
+            if (!response.ok) throw new Error('Failed to fetch orders');
+            return await response.json();
+        } catch (error) {
+            console.error('Error fetching order history:', error);
+            throw error;
+        }
+    },
+    
+    // Totals for the same filters: { totalOrders, confirmedOrders, totalSpent }
+    async getHistorySummary(rollNumber, options = {}) {
+        try {
+            const params = new URLSearchParams({ rollNumber });
+            ['from', 'to'].forEach(key => {
+                if (options[key]) params.set(key, options[key]);
+            });
+            
+            const response = await fetch(`${API.ORDER}/history/summary?${params}`, { headers: Auth.headers() });
+            if (!response.ok) throw new Error('Failed to fetch order summary');
+            return await response.json();
+        } catch (error) {
+            console.error('Error fetching order summary:', error);
+            throw error;
+        }
+    },
+    
+    // PENDING / CONFIRMED / FAILED for an order that was accepted and is being processed
+    // (only the student who placed it can see it)
+    async getStatus(orderId) {
+        const response = await fetch(`${API.ORDER}/${orderId}/status`, { cache: 'no-cache', headers: Auth.headers() });
+        if (!response.ok) throw new Error('Failed to fetch order status');
+        return await response.json();
+    },
+    
+    // Order page URL carrying an idempotency key. A double click reuses the pending
+    // key for that item, and refreshing the result page resends it, so the server
+    // hands back the first order instead of charging twice.
+    pendingKeys: {},
+    
+    placeOrderUrl(rollNumber, itemId) {
+        if (!this.pendingKeys[itemId]) {
+            this.pendingKeys[itemId] = (window.crypto && crypto.randomUUID)
+                ? crypto.randomUUID()
+                : `${Date.now().toString(36)}-${Math.random().toString(36).slice(2)}`;
+        }
+        const params = new URLSearchParams({ rollNumber, itemId, idempotencyKey: this.pendingKeys[itemId] });
+        return `/order-ui/place?${params}`;
+    }
+};
+
+// === PAGE DATA (order-service fetches the parts in parallel) ===
+const BffService = {
+    // Home page in one call: { rollNumber, profile, menu, menuStale, unavailable }.
+    // profile is the wallet ({ rollNumber, studentName, balance }), menu the first page of
+    // MenuService.search; either is null (and listed in unavailable) if its service didn't answer
+    async home(menuSize) {
+        try {
+            const response = await fetch(`${API.BFF}/home?menuSize=${menuSize}`, { headers: Auth.headers() });
+            if (!response.ok) throw new Error('Failed to load home page');
+            return await response.json();
+        } catch (error) {
+            console.error('Error loading home page:', error);
+            throw error;
+        }
+    }
+};
+
 // === UI UTILITIES ===
 const UI = {
     // Show toast notification
@@ -169,9 +326,14 @@ const UI = {
         }
     },
     
-    // Format price
-    formatPrice(price) {
-        return `₹${parseFloat(price).toFixed(2)}`;
+    // Amounts from the services are whole paise: 4550 -> "₹45.50"
+    formatPrice(paise) {
+        return `₹${(paise / 100).toFixed(2)}`;
+    },
+    
+    // What an admin typed in rupees ("45.5") -> paise (4550), the unit the services take
+    toPaise(rupees) {
+        return Math.round(parseFloat(rupees) * 100);
     },
     
     // Format date
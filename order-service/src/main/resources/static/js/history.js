@@ -5,6 +5,8 @@
 
 let orders = [];
 let menuItems = {};
+let nextCursor = null;
+let dateRange = {};
 
 // === INITIALIZATION ===
 document.addEventListener('DOMContentLoaded', async () => {
@@ -39,6 +41,7 @@ async function loadMenuItems() {
 }
 
 // === LOAD ORDERS ===
+// Loads the first page (and the totals) for the current date filter
 async function loadOrders() {
     const rollNumber = Auth.getRollNumber();
     const container = document.getElementById('ordersContainer');
@@ -52,30 +55,17 @@ async function loadOrders() {
     `;
     
     try {
-        const response = await fetch(`http://localhost:8083/order/history?rollNumber=${rollNumber}`);
+        const [page, summary] = await Promise.all([
+            OrderService.getHistory(rollNumber, dateRange),
+            OrderService.getHistorySummary(rollNumber, dateRange)
+        ]);
         
-        if (!response.ok) {
-            throw new Error('Failed to fetch orders');
-        }
-        
-        orders = await response.json();
-        
-        // Sort by date (newest first)
-        orders.sort((a, b) => new Date(b.orderTime) - new Date(a.orderTime));
-        
-        // Enhance orders with menu item details
-        orders = orders.map(order => ({
-            ...order,
-            itemDetails: menuItems[order.itemId] || {
-                name: order.itemName || `Item #${order.itemId}`,
-                category: 'Unknown',
-                type: 'Unknown',
-                imageUrl: null
-            }
-        }));
+        // Already newest first
+        orders = page.orders.map(withItemDetails);
+        nextCursor = page.nextCursor;
         
         renderOrders();
-        updateStatistics();
+        updateStatistics(summary);
         
     } catch (error) {
         console.error('Failed to load orders:', error);
@@ -90,6 +80,36 @@ async function loadOrders() {
     }
 }
 
+// === LOAD MORE ===
+async function loadMoreOrders() {
+    const button = document.getElementById('loadMoreBtn');
+    if (!nextCursor) return;
+    
+    UI.showLoading(button);
+    try {
+        const page = await OrderService.getHistory(Auth.getRollNumber(), { ...dateRange, cursor: nextCursor });
+        orders = orders.concat(page.orders.map(withItemDetails));
+        nextCursor = page.nextCursor;
+        renderOrders();
+    } catch (error) {
+        UI.showToast('Failed to load more orders.', 'error');
+        UI.showLoading(button, false);
+    }
+}
+
+// Enhance an order with menu item details
+function withItemDetails(order) {
+    return {
+        ...order,
+        itemDetails: menuItems[order.itemId] || {
+            name: order.itemName || `Item #${order.itemId}`,
+            category: 'Unknown',
+            type: 'Unknown',
+            imageUrl: null
+        }
+    };
+}
+
 // === RENDER ORDERS ===
 function renderOrders() {
     const container = document.getElementById('ordersContainer');
@@ -113,6 +133,13 @@ function renderOrders() {
         <div class="order-timeline">
             ${orders.map(createOrderCard).join('')}
         </div>
+        ${nextCursor ? `
+            <div style="text-align: center; margin-top: 24px;">
+                <button id="loadMoreBtn" class="btn btn-outline" onclick="loadMoreOrders()">
+                    Load More Orders
+                </button>
+            </div>
+        ` : ''}
     `;
 }
 
@@ -192,10 +219,11 @@ function createOrderCard(order) {
 }
 
 // === UPDATE STATISTICS ===
-function updateStatistics() {
-    const totalOrders = orders.length;
-    const totalSpent = orders.reduce((sum, order) => sum + order.amount, 0);
-    const confirmedOrders = orders.filter(o => o.status === 'CONFIRMED').length;
+// Totals come from the server, since only the loaded pages are on the client
+function updateStatistics(summary) {
+    const totalOrders = summary.totalOrders;
+    const totalSpent = summary.totalSpent;
+    const confirmedOrders = summary.confirmedOrders;
     
     // Update UI
     document.getElementById('totalOrders').textContent = totalOrders;
@@ -207,7 +235,7 @@ function updateStatistics() {
 function reorderItem(itemId) {
     if (confirm('Do you want to order this item again?')) {
         const rollNumber = Auth.getRollNumber();
-        window.location.href = `/order-ui/place?rollNumber=${rollNumber}&itemId=${itemId}`;
+        window.location.href = OrderService.placeOrderUrl(rollNumber, itemId);
     }
 }
 
@@ -219,9 +247,30 @@ function filterOrders(filter) {
     });
     event.target.classList.add('active');
     
-    // Filter logic (can be expanded)
-    // For now, just a placeholder
-    console.log('Filter:', filter);
+    // Date range (server-side); 'all' clears it
+    dateRange = dateRangeFor(filter);
+    loadOrders();
+}
+
+// 'today', 'week' (since Monday) or 'month' (since the 1st) as YYYY-MM-DD dates
+function dateRangeFor(filter) {
+    const today = new Date();
+    const start = new Date(today);
+    
+    if (filter === 'week') {
+        start.setDate(today.getDate() - ((today.getDay() + 6) % 7));
+    } else if (filter === 'month') {
+        start.setDate(1);
+    } else if (filter !== 'today') {
+        return {};
+    }
+    return { from: toIsoDate(start), to: toIsoDate(today) };
+}
+
+function toIsoDate(date) {
+    const month = String(date.getMonth() + 1).padStart(2, '0');
+    const day = String(date.getDate()).padStart(2, '0');
+    return `${date.getFullYear()}-${month}-${day}`;
 }
 
 // === NAVIGATION ===
@@ -242,6 +291,7 @@ function logout() {
 // === EXPORT FUNCTIONS ===
 window.reorderItem = reorderItem;
 window.filterOrders = filterOrders;
+window.loadMoreOrders = loadMoreOrders;
 window.goToHome = goToHome;
 window.goToWallet = goToWallet;
 window.logout = logout;
\ No newline at end of file
@@ -4,50 +4,95 @@
    ======================================== */
 
 // === STATE ===
+// Filtering, search, sorting and paging happen in menu-service (GET /menu/search);
+// menuItems is only what is on screen
+const MENU_PAGE_SIZE = 24;
 let menuItems = [];
-let filteredItems = [];
+let menuTotal = 0;
 let currentCategory = 'All';
 let currentSort = 'default';
+let currentQuery = '';
+let menuVersion = 0;
+let knownItemIds = null; // every item id in the last feed snapshot, to spot new items
+let menuRequest = 0;     // only the latest search gets rendered
 
 // === INITIALIZATION ===
 document.addEventListener('DOMContentLoaded', async () => {
     // Protect page
     Auth.requireAuth();
     
-    // Load user info
-    await loadUserInfo();
+    // Student and first menu page in one round trip
+    await loadHome();
     
-    // Load menu
-    await loadMenu();
+    // Keep stock counts live without refetching the menu
+    subscribeToStock();
+    
+    // An order that was just accepted: show its outcome once it's processed
+    watchPendingOrder();
     
     // Setup event listeners
     setupEventListeners();
 });
 
+// === LOAD HOME ===
+// GET /bff/home; a part that didn't come back is loaded on its own the old way
+async function loadHome() {
+    showMenuSkeletons();
+    const request = ++menuRequest;
+    
+    let page;
+    try {
+        page = await BffService.home(MENU_PAGE_SIZE);
+    } catch (error) {
+        loadUserInfo();
+        await loadMenu();
+        return;
+    }
+    
+    loadUserInfo(page.profile);
+    if (!page.menu) {
+        await loadMenu();
+        return;
+    }
+    if (request !== menuRequest) return; // a search started meanwhile
+    menuItems = page.menu.items;
+    menuTotal = page.menu.total;
+    renderMenu();
+    if (page.menuStale) {
+        UI.showToast('Menu Service is slow right now - showing the last known menu.', 'error');
+    }
+}
+
 // === LOAD USER INFO ===
-async function loadUserInfo() {
+// wallet is { studentName, balance } from /bff/home or WalletService; without it the name
+// comes from the session token and the balance stays as it is
+function loadUserInfo(wallet) {
     const rollNumber = Auth.getRollNumber();
     const rollElement = document.getElementById('userRoll');
     const nameElement = document.getElementById('userName');
+    const balanceElement = document.getElementById('userBalance');
     
     if (rollElement) rollElement.textContent = rollNumber;
     
+    if (nameElement) {
+        nameElement.textContent = wallet ? wallet.studentName : Auth.getStudentName();
+    }
+    if (balanceElement && wallet) {
+        balanceElement.textContent = UI.formatPrice(wallet.balance);
+    }
+}
+
+async function refreshBalance() {
     try {
-        const wallet = await WalletService.getWallet(rollNumber);
-        if (nameElement) {
-            nameElement.textContent = wallet.studentName;
-        }
+        loadUserInfo(await WalletService.getWallet(Auth.getRollNumber()));
     } catch (error) {
-        console.error('Failed to load user info:', error);
+        // keep showing the last balance
     }
 }
 
 // === LOAD MENU ===
-async function loadMenu() {
-    const grid = document.getElementById('foodGrid');
-    
-    // Show loading skeletons
-    grid.innerHTML = Array(6).fill(0).map(() => `
+function showMenuSkeletons() {
+    document.getElementById('foodGrid').innerHTML = Array(6).fill(0).map(() => `
         <div class="food-card skeleton">
             <div class="skeleton-image"></div>
             <div class="card-body">
@@ -57,10 +102,17 @@ async function loadMenu() {
             </div>
         </div>
     `).join('');
+}
+
+async function loadMenu() {
+    const grid = document.getElementById('foodGrid');
+    showMenuSkeletons();
     
     try {
-        menuItems = await MenuService.getAllItems();
-        filteredItems = menuItems;
+        const result = await fetchMenuPage(0);
+        if (!result) return; // a newer search has started
+        menuItems = result.items;
+        menuTotal = result.total;
         renderMenu();
     } catch (error) {
         console.error('Failed to load menu:', error);
@@ -75,11 +127,39 @@ async function loadMenu() {
     }
 }
 
+// One page for the current category, search and sort; null if another search started meanwhile
+async function fetchMenuPage(page) {
+    const request = ++menuRequest;
+    const result = await MenuService.search({
+        q: currentQuery,
+        category: currentCategory,
+        sort: currentSort,
+        page,
+        size: MENU_PAGE_SIZE
+    });
+    return request === menuRequest ? result : null;
+}
+
+async function loadMoreItems() {
+    const button = event.target;
+    UI.showLoading(button);
+    try {
+        const result = await fetchMenuPage(Math.floor(menuItems.length / MENU_PAGE_SIZE));
+        if (!result) return;
+        menuItems = menuItems.concat(result.items.filter(item => !menuItems.some(shown => shown.id === item.id)));
+        menuTotal = result.total;
+        renderMenu();
+    } catch (error) {
+        UI.showToast('Failed to load more items.', 'error');
+        UI.showLoading(button, false);
+    }
+}
+
 // === RENDER MENU ===
 function renderMenu() {
     const grid = document.getElementById('foodGrid');
     
-    if (filteredItems.length === 0) {
+    if (menuItems.length === 0) {
         grid.innerHTML = `
             <div class="empty-state" style="grid-column: 1/-1;">
                 <div class="empty-icon">🔍</div>
@@ -90,7 +170,17 @@ function renderMenu() {
         return;
     }
     
-    grid.innerHTML = filteredItems.map(item => createFoodCard(item)).join('');
+    grid.innerHTML = menuItems.map(item => createFoodCard(item)).join('');
+    
+    if (menuTotal > menuItems.length) {
+        grid.insertAdjacentHTML('beforeend', `
+            <div style="grid-column: 1/-1; text-align: center;">
+                <button class="btn btn-secondary" onclick="loadMoreItems()">
+                    Show more (${menuTotal - menuItems.length} left)
+                </button>
+            </div>
+        `);
+    }
 }
 
 // === CREATE FOOD CARD ===
@@ -99,7 +189,7 @@ function createFoodCard(item) {
     const isLowStock = item.quantity > 0 && item.quantity <= 5;
     
     return `
-        <div class="food-card ${isSoldOut ? 'sold-out' : ''}" data-category="${item.category}">
+        <div class="food-card ${isSoldOut ? 'sold-out' : ''}" data-category="${item.category}" data-item-id="${item.id}">
             <div class="food-image-container">
                 <img src="${item.imageUrl}" 
                      alt="${item.name}" 
@@ -155,6 +245,95 @@ function createFoodCard(item) {
     `;
 }
 
+// === LIVE STOCK UPDATES ===
+function subscribeToStock() {
+    MenuService.subscribe(applySnapshot, applyStockChanges);
+}
+
+// Sent on every (re)connect: only search again if items were added or removed
+function applySnapshot(snapshot) {
+    menuVersion = snapshot.version;
+    
+    const ids = new Set(snapshot.items.map(item => item.id));
+    const sameItems = knownItemIds === null ||
+        (ids.size === knownItemIds.size && [...ids].every(id => knownItemIds.has(id)));
+    knownItemIds = ids;
+    if (!sameItems) {
+        loadMenu();
+        return;
+    }
+    
+    snapshot.items.forEach(item => patchItem(item.id, item.quantity, item.available));
+}
+
+// Stock deltas after orders, releases and restocks
+function applyStockChanges(deltas) {
+    deltas.forEach(delta => {
+        if (delta.version <= menuVersion) return; // already on screen
+        
+        if (knownItemIds && !knownItemIds.has(delta.itemId)) {
+            // New item: deltas carry no name or price, and it may belong on this page, so search again
+            knownItemIds.add(delta.itemId);
+            loadMenu();
+            return;
+        }
+        patchItem(delta.itemId, delta.quantity, delta.available);
+    });
+    
+    deltas.forEach(delta => {
+        menuVersion = Math.max(menuVersion, delta.version);
+    });
+}
+
+// Update one item and swap only its card
+function patchItem(itemId, quantity, available) {
+    const item = menuItems.find(i => i.id === itemId);
+    if (!item || (item.quantity === quantity && item.available === available)) return;
+    
+    item.quantity = quantity;
+    item.available = available;
+    
+    const card = document.querySelector(`.food-card[data-item-id="${itemId}"]`);
+    if (card) {
+        card.outerHTML = createFoodCard(item);
+    }
+}
+
+// === PENDING ORDER ===
+const ORDER_STATUS_POLL_MS = 1000;
+const ORDER_STATUS_MAX_POLLS = 60;
+
+function watchPendingOrder() {
+    const banner = document.querySelector('[data-pending-order]');
+    if (!banner) return;
+    
+    const orderId = banner.dataset.pendingOrder;
+    const text = banner.querySelector('span');
+    let polls = 0;
+    
+    const poll = async () => {
+        try {
+            const order = await OrderService.getStatus(orderId);
+            if (order.status === 'CONFIRMED') {
+                text.textContent = `✅ Success! Ordered ${order.itemName}. Order ID: ${order.orderId}`;
+                refreshBalance();
+                return;
+            }
+            if (order.status === 'FAILED') {
+                text.textContent = `❌ Order Failed: ${order.failureReason}`;
+                banner.classList.replace('alert-success', 'alert-error');
+                return;
+            }
+        } catch (error) {
+            console.error('Error checking order status:', error);
+        }
+        if (++polls < ORDER_STATUS_MAX_POLLS) {
+            setTimeout(poll, ORDER_STATUS_POLL_MS);
+        }
+    };
+    setTimeout(poll, ORDER_STATUS_POLL_MS / 2);
+}
+
 // === ADD TO CART (PLACE ORDER) ===
 async function addToCart(itemId) {
     const rollNumber = Auth.getRollNumber();
@@ -165,7 +344,7 @@ async function addToCart(itemId) {
     
     try {
         // Redirect to order placement
-        window.location.href = `/order-ui/place?rollNumber=${rollNumber}&itemId=${itemId}`;
+        window.location.href = OrderService.placeOrderUrl(rollNumber, itemId);
     } catch (error) {
         console.error('Order failed:', error);
         UI.showToast('Failed to place order. Please try again.', 'error');
@@ -186,38 +365,9 @@ function filterByCategory(category) {
 }
 
 // === APPLY FILTERS ===
+// Category, search and sort all go to menu-service, which returns the first page
 function applyFilters() {
-    filteredItems = menuItems.filter(item => {
-        // Category filter
-        if (currentCategory !== 'All' && item.category !== currentCategory) {
-            return false;
-        }
-        return true;
-    });
-    
-    // Apply sorting
-    applySorting();
-    
-    // Render
-    renderMenu();
-}
-
-// === APPLY SORTING ===
-function applySorting() {
-    switch (currentSort) {
-        case 'price-low':
-            filteredItems.sort((a, b) => a.price - b.price);
-            break;
-        case 'price-high':
-            filteredItems.sort((a, b) => b.price - a.price);
-            break;
-        case 'name':
-            filteredItems.sort((a, b) => a.name.localeCompare(b.name));
-            break;
-        default:
-            // Keep original order
-            break;
-    }
+    loadMenu();
 }
 
 // === CHANGE SORT ===
@@ -228,15 +378,8 @@ function changeSort(sortType) {
 
 // === SEARCH ===
 const searchMenu = debounce(function(query) {
-    if (!query.trim()) {
-        filteredItems = menuItems;
-    } else {
-        filteredItems = menuItems.filter(item => 
-            item.name.toLowerCase().includes(query.toLowerCase()) ||
-            item.category.toLowerCase().includes(query.toLowerCase())
-        );
-    }
-    renderMenu();
+    currentQuery = query.trim();
+    applyFilters();
 }, 300);
 
 // === SETUP EVENT LISTENERS ===
@@ -276,6 +419,7 @@ function logout() {
 
 // === MAKE FUNCTIONS GLOBALLY AVAILABLE ===
 window.addToCart = addToCart;
+window.loadMoreItems = loadMoreItems;
 window.filterByCategory = filterByCategory;
 window.changeSort = changeSort;
 window.searchMenu = searchMenu;
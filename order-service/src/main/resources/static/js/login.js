@@ -40,10 +40,10 @@ async function login() {
     UI.showLoading(button);
     
     try {
-        const student = await WalletService.login(rollNumber, password);
+        const session = await WalletService.login(rollNumber, password);
         
-        // Save to localStorage
-        Auth.login(rollNumber);
+        // Save the session token (localStorage + cookie)
+        Auth.login(session);
         
         // Show success
         showSuccess('Login successful! Redirecting...');
@@ -4,6 +4,10 @@
 
 let transactions = [];
 let currentFilter = 'all';
+let historySummary = null;
+
+// Only the latest ledger entries are listed here; the full order list is on the history page
+const RECENT_TRANSACTIONS = 20;
 
 // === INITIALIZATION ===
 document.addEventListener('DOMContentLoaded', async () => {
@@ -44,36 +48,23 @@ async function loadTransactions() {
     `;
     
     try {
-        // Fetch order history
-        const response = await fetch(`http://localhost:8083/order/history?rollNumber=${rollNumber}`);
-        
-        if (!response.ok) {
-            throw new Error('Failed to fetch transactions');
-        }
-        
-        const orders = await response.json();
-        
-        // Fetch menu items to get names
-        const menuItems = await MenuService.getAllItems();
-        const menuMap = {};
-        menuItems.forEach(item => {
-            menuMap[item.id] = item.name;
-        });
+        // The wallet's own ledger (debits, refunds, top-ups) and the all-time order totals
+        const [page, summary] = await Promise.all([
+            WalletService.getTransactions(rollNumber, { size: RECENT_TRANSACTIONS }),
+            OrderService.getHistorySummary(rollNumber)
+        ]);
+        historySummary = summary;
         
-        // Transform orders to transactions
-        transactions = orders.map(order => ({
-            id: order.id,
-            type: 'debit',
-            name: order.itemName || menuMap[order.itemId] || `Item #${order.itemId}`,
-            amount: order.amount,
-            date: order.orderTime,
-            status: order.status,
-            itemId: order.itemId
+        transactions = page.transactions.map(entry => ({
+            id: entry.seq,
+            type: entry.amount < 0 ? 'debit' : 'credit',
+            name: describeEntry(entry),
+            amount: Math.abs(entry.amount),
+            date: entry.createdAt,
+            status: entry.type
         }));
         
-        // Sort by date (newest first)
-        transactions.sort((a, b) => new Date(b.date) - new Date(a.date));
-        
+        // Already newest first
         renderTransactions();
         
     } catch (error) {
@@ -89,6 +80,16 @@ async function loadTransactions() {
     }
 }
 
+// "order-42" -> "Order #42"; refunds carry "refund:order-42"
+function describeEntry(entry) {
+    const order = (entry.reference || '').match(/order-(\d+)$/);
+    switch (entry.type) {
+        case 'DEBIT': return order ? `Order #${order[1]}` : 'Payment';
+        case 'REFUND': return order ? `Refund for order #${order[1]}` : 'Refund';
+        default: return 'Wallet top-up';
+    }
+}
+
 // === RENDER TRANSACTIONS ===
 function renderTransactions() {
     const listContainer = document.getElementById('transactionList');
@@ -132,7 +133,7 @@ function createTransactionItem(transaction) {
                 <div class="transaction-meta">
                     <span>📅 ${UI.formatDate(transaction.date)}</span>
                     <span>🕐 ${UI.formatTime(transaction.date)}</span>
-                    ${transaction.itemId ? `<span>ID: #${transaction.id}</span>` : ''}
+                    <span>ID: #${transaction.id}</span>
                 </div>
             </div>
             
@@ -150,10 +151,10 @@ function createTransactionItem(transaction) {
 
 // === UPDATE STATISTICS ===
 function updateStats() {
-    const totalOrders = transactions.length;
-    const totalSpent = transactions
-        .filter(t => t.type === 'debit')
-        .reduce((sum, t) => sum + t.amount, 0);
+    // All-time totals from the server; the list itself only holds the latest orders
+    if (!historySummary) return;
+    const totalOrders = historySummary.totalOrders;
+    const totalSpent = historySummary.totalSpent;
     
     // Update UI if stats elements exist
     const ordersElement = document.getElementById('totalOrders');
@@ -0,0 +1,99 @@
+package com.example.orderservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.common.EventLog;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+// Saga mode off, so nothing reads the outbox (no Spring context)
+class AdmissionControlTests {
+
+	private AdmissionControl admission;
+
+	@BeforeEach
+	void setUp() {
+		admission = new AdmissionControl();
+		ReflectionTestUtils.setField(admission, "menuClient", client("menu"));
+		ReflectionTestUtils.setField(admission, "walletClient", client("wallet"));
+		ReflectionTestUtils.setField(admission, "eventLog", new EventLog(16));
+		ReflectionTestUtils.setField(admission, "enabled", true);
+		ReflectionTestUtils.setField(admission, "sagaEnabled", false);
+		ReflectionTestUtils.setField(admission, "ratePerSecond", 0.5);
+		ReflectionTestUtils.setField(admission, "burst", 3);
+		ReflectionTestUtils.setField(admission, "initialLimit", 4);
+		ReflectionTestUtils.setField(admission, "minLimit", 2);
+		ReflectionTestUtils.setField(admission, "maxLimit", 100);
+		ReflectionTestUtils.setField(admission, "latencyTolerance", 2.0);
+		ReflectionTestUtils.setField(admission, "windowMs", 1000L);
+		admission.init();
+	}
+
+	@Test
+	void eachStudentGetsABurstThenA429WithRetryAfter() {
+		for (int i = 0; i < 3; i++) {
+			admission.admit("101").close();
+		}
+		AdmissionRejectedException e = assertThrows(AdmissionRejectedException.class, () -> admission.admit("101"));
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, e.getStatusCode());
+		assertEquals("2", e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+		// Another student is unaffected
+		admission.admit("102").close();
+		assertEquals(4L, admission.stats().get("admitted"));
+		assertEquals(1L, admission.stats().get("rateLimited"));
+	}
+
+	@Test
+	void ordersInProgressOverTheLimitAreShedWith503() {
+		AdmissionControl.Permit[] held = new AdmissionControl.Permit[4];
+		for (int i = 0; i < held.length; i++) {
+			held[i] = admission.admit("s" + i);
+		}
+		AdmissionRejectedException e = assertThrows(AdmissionRejectedException.class, () -> admission.admit("s9"));
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+		assertEquals("1", e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+		held[0].close();
+		admission.admit("s9").close();
+		assertEquals(1L, admission.stats().get("overloaded"));
+	}
+
+	@Test
+	void limitGrowsWhileLatencyHoldsAndShrinksWhenItRises() {
+		AdmissionControl.Permit[] held = new AdmissionControl.Permit[4];
+		for (int i = 0; i < held.length; i++) {
+			held[i] = admission.admit("s" + i);
+		}
+		admission.recordCall(10_000_000);
+		admission.adjust();
+		assertEquals(6, admission.stats().get("limit"));
+
+		// 5x slower than the best window: cut to 6 * 2 / 5
+		admission.recordCall(50_000_000);
+		admission.adjust();
+		assertEquals(2, admission.stats().get("limit"));
+		assertTrue((double) admission.stats().get("baselineRttMs") < 11);
+	}
+
+	@Test
+	void idleStudentsAreForgottenOnceTheirBucketRefills() {
+		ReflectionTestUtils.setField(admission, "ratePerSecond", 1_000_000.0);
+		admission.init();
+		admission.admit("101").close();
+		assertEquals(1, admission.stats().get("trackedStudents"));
+		admission.evictIdleStudents();
+		assertEquals(0, admission.stats().get("trackedStudents"));
+	}
+
+	private static DownstreamClient client(String name) {
+		return new DownstreamClient(name, "http://127.0.0.1:1", new RestTemplate(), new CircuitBreaker(5, 1000), 1, 0);
+	}
+}
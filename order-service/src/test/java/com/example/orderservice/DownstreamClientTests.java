@@ -0,0 +1,126 @@
+package com.example.orderservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import com.sun.net.httpserver.HttpServer;
+
+// Runs DownstreamClient against a local stub server (no Spring context, no real services)
+class DownstreamClientTests {
+
+	private HttpServer stub;
+	private CloseableHttpClient httpClient;
+	private final AtomicInteger hits = new AtomicInteger();
+	private volatile int status = 200;
+	private volatile long delayMillis = 0;
+
+	@BeforeEach
+	void startStub() throws Exception {
+		stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		stub.createContext("/", exchange -> {
+			hits.incrementAndGet();
+			try {
+				Thread.sleep(delayMillis);
+			} catch (InterruptedException ignored) {
+			}
+			byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "text/plain");
+			exchange.sendResponseHeaders(status, body.length);
+			exchange.getResponseBody().write(body);
+			exchange.close();
+		});
+		stub.start();
+		httpClient = HttpClients.createDefault();
+	}
+
+	@AfterEach
+	void stopStub() throws Exception {
+		httpClient.close();
+		stub.stop(0);
+	}
+
+	@Test
+	void slowServiceTimesOutAndOpensTheBreaker() {
+		delayMillis = 500;
+		DownstreamClient client = client(100, 3, 60_000);
+
+		for (int i = 0; i < 3; i++) {
+			assertThrows(ResourceAccessException.class, () -> client.get("/menu", String.class));
+		}
+		assertEquals(CircuitBreaker.State.OPEN, client.getBreaker().getState());
+
+		int hitsBefore = hits.get();
+		assertThrows(ServiceUnavailableException.class, () -> client.get("/menu", String.class));
+		assertEquals(hitsBefore, hits.get(), "open breaker must not call the service");
+	}
+
+	@Test
+	void clientErrorsDoNotTripTheBreaker() {
+		status = 409;
+		DownstreamClient client = client(1000, 2, 60_000);
+
+		for (int i = 0; i < 5; i++) {
+			assertThrows(HttpClientErrorException.Conflict.class, () -> client.post("/menu/reserve/1", null, String.class));
+		}
+		assertEquals(CircuitBreaker.State.CLOSED, client.getBreaker().getState());
+	}
+
+	@Test
+	void halfOpenTrialClosesTheBreakerAgain() throws Exception {
+		status = 500;
+		DownstreamClient client = client(1000, 1, 50);
+
+		assertThrows(RuntimeException.class, () -> client.get("/menu", String.class));
+		assertEquals(CircuitBreaker.State.OPEN, client.getBreaker().getState());
+
+		status = 200;
+		Thread.sleep(80);
+		assertEquals("ok", client.get("/menu", String.class));
+		assertEquals(CircuitBreaker.State.CLOSED, client.getBreaker().getState());
+	}
+
+	@Test
+	void callsThatStartedBeforeTheTripCannotCloseTheBreaker() throws Exception {
+		CircuitBreaker breaker = new CircuitBreaker(1, 50);
+		CircuitBreaker.Permit early = breaker.tryAcquire();
+		breaker.onFailure(breaker.tryAcquire());
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+		// A late success while OPEN changes nothing
+		breaker.onSuccess(early);
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+		// Half-open: one trial, and only its outcome counts
+		Thread.sleep(80);
+		CircuitBreaker.Permit trial = breaker.tryAcquire();
+		assertEquals(CircuitBreaker.Permit.TRIAL, trial);
+		assertEquals(CircuitBreaker.Permit.REFUSED, breaker.tryAcquire());
+		breaker.onSuccess(early);
+		assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+		assertEquals(CircuitBreaker.Permit.REFUSED, breaker.tryAcquire());
+
+		breaker.onSuccess(trial);
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+	}
+
+	private DownstreamClient client(long readTimeoutMs, int failureThreshold, long openMs) {
+		DownstreamProperties.Target target = new DownstreamProperties.Target();
+		target.setUrl("http://127.0.0.1:" + stub.getAddress().getPort());
+		target.setReadTimeoutMs(readTimeoutMs);
+		target.setFailureThreshold(failureThreshold);
+		target.setOpenMs(openMs);
+		return AppConfig.downstreamClient("stub", httpClient, target);
+	}
+}
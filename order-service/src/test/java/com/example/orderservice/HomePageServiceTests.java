@@ -0,0 +1,120 @@
+package com.example.orderservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// Wallet and menu as one local stub server (no Spring context, no real services)
+class HomePageServiceTests {
+
+	private static final String WALLET = "{\"rollNumber\":\"101\",\"studentName\":\"Rahul Sharma\",\"balance\":100000}";
+	private static final String MENU = "{\"items\":[{\"id\":1,\"name\":\"Masala Chai\",\"price\":1500,\"available\":true,\"quantity\":40}],"
+			+ "\"total\":1,\"page\":0,\"size\":24,\"categories\":{\"Drinks\":1}}";
+
+	private HttpServer stub;
+	private CloseableHttpClient httpClient;
+	private ExecutorService executor;
+	private HomePageService homePage;
+	private final AtomicInteger walletHits = new AtomicInteger();
+	private final AtomicInteger menuHits = new AtomicInteger();
+	private volatile boolean walletDown;
+	private volatile boolean menuDown;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		stub.createContext("/wallet/", exchange -> {
+			walletHits.incrementAndGet();
+			respond(exchange, walletDown ? 500 : 200, WALLET);
+		});
+		stub.createContext("/menu/search", exchange -> {
+			menuHits.incrementAndGet();
+			respond(exchange, menuDown ? 500 : 200, MENU);
+		});
+		stub.start();
+		httpClient = HttpClients.createDefault();
+		executor = Executors.newVirtualThreadPerTaskExecutor();
+
+		homePage = new HomePageService(16);
+		ReflectionTestUtils.setField(homePage, "menuClient", client("menu"));
+		ReflectionTestUtils.setField(homePage, "walletClient", client("wallet"));
+		ReflectionTestUtils.setField(homePage, "executor", executor);
+		ReflectionTestUtils.setField(homePage, "menuTtlMs", 60_000L);
+		ReflectionTestUtils.setField(homePage, "timeoutMs", 2000L);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		executor.shutdownNow();
+		httpClient.close();
+		stub.stop(0);
+	}
+
+	@Test
+	void profileAndMenuComeBackTogetherAndTheMenuIsShared() throws Exception {
+		Map<String, Object> first = homePage.home("101", 24);
+		Map<String, Object> second = homePage.home("102", 24);
+
+		assertEquals("Rahul Sharma", ((DTOs.WalletDTO) first.get("profile")).studentName);
+		assertEquals("Masala Chai", ((DTOs.MenuPageDTO) second.get("menu")).items.get(0).name);
+		assertEquals(Set.of(), second.get("unavailable"));
+		assertEquals(2, walletHits.get());
+		assertEquals(1, menuHits.get(), "the second page within the TTL reuses the menu");
+	}
+
+	@Test
+	void lastMenuIsServedStaleWhileMenuServiceIsDown() throws Exception {
+		homePage.home("101", 24);
+		ReflectionTestUtils.setField(homePage, "menuTtlMs", 0L);
+		menuDown = true;
+
+		Map<String, Object> page = homePage.home("101", 24);
+		assertEquals(true, page.get("menuStale"));
+		assertEquals(1, ((DTOs.MenuPageDTO) page.get("menu")).total);
+		assertEquals(2, menuHits.get());
+	}
+
+	@Test
+	void aFailedPartIsLeftOutInsteadOfFailingThePage() throws Exception {
+		walletDown = true;
+
+		Map<String, Object> page = homePage.home("101", 24);
+		assertNull(page.get("profile"));
+		assertEquals(Set.of("profile"), page.get("unavailable"));
+		assertEquals(false, page.get("menuStale"));
+		assertEquals(1, ((DTOs.MenuPageDTO) page.get("menu")).items.size());
+	}
+
+	private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+		byte[] body = json.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, body.length);
+		exchange.getResponseBody().write(body);
+		exchange.close();
+	}
+
+	private DownstreamClient client(String name) {
+		DownstreamProperties.Target target = new DownstreamProperties.Target();
+		target.setUrl("http://127.0.0.1:" + stub.getAddress().getPort());
+		target.setFailureThreshold(100);
+		return AppConfig.downstreamClient(name, httpClient, target);
+	}
+}
@@ -0,0 +1,150 @@
+package com.example.orderservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// In-memory H2 with the relay thread off (order.saga.enabled=false): each test accepts an order
+// and runs one relay pass itself. Menu and wallet are one local stub server.
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:order_saga;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"order.saga.enabled=false",
+		"order.menu.replica.enabled=false",
+		"auth.token.secret=test-secret",
+		"logging.level.root=WARN"
+})
+class OrderSagaTests {
+
+	private static final String WALLET = "{\"rollNumber\":\"101\",\"studentName\":\"Rahul Sharma\",\"balance\":100000}";
+
+	@Autowired
+	private OrderSaga orderSaga;
+
+	@Autowired
+	private OutboxRelay outboxRelay;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	private HttpServer stub;
+	private CloseableHttpClient httpClient;
+	private final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+	private final AtomicLong reservationIds = new AtomicLong(100);
+	private volatile int deductStatus;
+	private volatile int commitStatus;
+	private volatile String refundQuery;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		deductStatus = 200;
+		commitStatus = 200;
+		stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		stub.createContext("/menu/reserve/", exchange -> respond(exchange, 200,
+				"{\"id\":" + reservationIds.incrementAndGet() + ",\"itemId\":1,\"quantity\":2,"
+						+ "\"itemName\":\"Masala Chai\",\"unitPrice\":1500,\"status\":\"HELD\"}"));
+		stub.createContext("/menu/reservations/commit", exchange -> respond(exchange, commitStatus,
+				commitStatus == 200 ? "[]" : "{\"message\":\"Reservation expired\"}"));
+		stub.createContext("/menu/reservations/release", exchange -> respond(exchange, 200, "[]"));
+		stub.createContext("/wallet/deduct", exchange -> respond(exchange, deductStatus,
+				deductStatus == 200 ? WALLET : "{\"message\":\"Insufficient Funds!\"}"));
+		stub.createContext("/wallet/refund", exchange -> {
+			refundQuery = exchange.getRequestURI().getQuery();
+			respond(exchange, 200, WALLET);
+		});
+		stub.start();
+		httpClient = HttpClients.createDefault();
+
+		ReflectionTestUtils.setField(orderSaga, "menuClient", client("menu"));
+		ReflectionTestUtils.setField(orderSaga, "walletClient", client("wallet"));
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		httpClient.close();
+		stub.stop(0);
+	}
+
+	@Test
+	void aPaidAndCommittedOrderIsConfirmed() {
+		Long orderId = placeAndRelay("101");
+
+		assertEquals(List.of("/menu/reserve/1", "/wallet/deduct", "/menu/reservations/commit"), calls);
+		assertEquals("CONFIRMED", status(orderId));
+		assertEquals(3000L, orderRepository.findById(orderId).orElseThrow().getAmount());
+	}
+
+	@Test
+	void aDeclinedDebitReleasesTheReservationAndFailsTheOrder() {
+		deductStatus = 409;
+
+		Long orderId = placeAndRelay("102");
+
+		assertEquals(List.of("/menu/reserve/1", "/wallet/deduct", "/menu/reservations/release"), calls);
+		assertEquals("FAILED", status(orderId));
+		assertEquals("Insufficient Funds!", orderRepository.findById(orderId).orElseThrow().getFailureReason());
+	}
+
+	@Test
+	void aCommitRefusedAfterTheDebitIsRefundedAndFailsTheOrder() {
+		commitStatus = 409;
+
+		Long orderId = placeAndRelay("103");
+
+		assertEquals(List.of("/menu/reserve/1", "/wallet/deduct", "/menu/reservations/commit",
+				"/wallet/refund", "/menu/reservations/release"), calls);
+		assertEquals("rollNumber=103&reference=order-" + orderId, refundQuery);
+		assertEquals("FAILED", status(orderId));
+		assertEquals("Reservation expired!", orderRepository.findById(orderId).orElseThrow().getFailureReason());
+	}
+
+	// What a POST /order does in saga mode, then one pass of the relay over the new outbox entry
+	private Long placeAndRelay(String rollNumber) {
+		OrderResult accepted = orderSaga.accept(rollNumber, List.of(new DTOs.CartLineDTO(1L, 2)), null);
+		assertEquals("PENDING", status(accepted.getOrder().getId()));
+
+		int relayed = ReflectionTestUtils.invokeMethod(outboxRelay, "relayOnce");
+		assertEquals(1, relayed);
+		return accepted.getOrder().getId();
+	}
+
+	private String status(Long orderId) {
+		return orderRepository.findById(orderId).orElseThrow().getStatus();
+	}
+
+	private void respond(HttpExchange exchange, int status, String json) throws IOException {
+		calls.add(exchange.getRequestURI().getPath());
+		byte[] body = json.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, body.length);
+		exchange.getResponseBody().write(body);
+		exchange.close();
+	}
+
+	private DownstreamClient client(String name) {
+		DownstreamProperties.Target target = new DownstreamProperties.Target();
+		target.setUrl("http://127.0.0.1:" + stub.getAddress().getPort());
+		target.setFailureThreshold(100);
+		return AppConfig.downstreamClient(name, httpClient, target);
+	}
+}
@@ -3,7 +3,7 @@ package com.example.orderservice;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "auth.token.secret=test-secret")
 class OrderServiceApplicationTests {
 
 	@Test
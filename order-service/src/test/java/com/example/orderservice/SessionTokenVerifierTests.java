@@ -0,0 +1,100 @@
+package com.example.orderservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import jakarta.servlet.http.Cookie;
+
+import com.example.common.ReadYourWrites;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import tools.jackson.databind.json.JsonMapper;
+
+// Tokens are signed here the way wallet-service's SessionTokenIssuer signs them (no Spring context)
+class SessionTokenVerifierTests {
+
+	private static final String SECRET = "test-secret";
+
+	private SessionTokenVerifier verifier;
+
+	@BeforeEach
+	void setUp() {
+		verifier = new SessionTokenVerifier();
+		ReflectionTestUtils.setField(verifier, "objectMapper", JsonMapper.builder().build());
+		ReflectionTestUtils.setField(verifier, "secret", SECRET);
+		ReflectionTestUtils.setField(verifier, "required", true);
+		ReflectionTestUtils.setField(verifier, "cacheSize", 2);
+		ReflectionTestUtils.setField(verifier, "readYourWrites", new ReadYourWrites());
+	}
+
+	@Test
+	void bearerTokenOrCookieIdentifiesTheStudent() throws Exception {
+		String token = token("101", "Rahul Sharma", 3600, SECRET);
+
+		MockHttpServletRequest header = new MockHttpServletRequest();
+		header.addHeader("Authorization", "Bearer " + token);
+		assertEquals("101", verifier.requireStudent(header, null));
+
+		MockHttpServletRequest cookie = new MockHttpServletRequest();
+		cookie.setCookies(new Cookie(SessionTokenVerifier.COOKIE, token));
+		assertEquals("101", verifier.requireStudent(cookie, "101"));
+
+		assertEquals(1L, verifier.stats().get("verified"));
+		assertEquals(1L, verifier.stats().get("cacheHits"));
+	}
+
+	@Test
+	void forgedExpiredOrMissingTokensAreRefused() throws Exception {
+		assertStatus(HttpStatus.UNAUTHORIZED, request(token("101", "Rahul", 3600, "some-other-secret")), null);
+		assertStatus(HttpStatus.UNAUTHORIZED, request(token("101", "Rahul", -60, SECRET)), null);
+		assertStatus(HttpStatus.UNAUTHORIZED, request("not-a-token"), null);
+		assertStatus(HttpStatus.UNAUTHORIZED, new MockHttpServletRequest(), "101");
+	}
+
+	@Test
+	void claimingAnotherStudentIsForbidden() throws Exception {
+		assertStatus(HttpStatus.FORBIDDEN, request(token("101", "Rahul", 3600, SECRET)), "102");
+	}
+
+	@Test
+	void rollNumberIsTrustedOnlyWhenTokensAreOptional() {
+		ReflectionTestUtils.setField(verifier, "required", false);
+		assertEquals("102", verifier.requireStudent(new MockHttpServletRequest(), "102"));
+	}
+
+	private void assertStatus(HttpStatus expected, MockHttpServletRequest request, String rollNumber) {
+		ResponseStatusException e = assertThrows(ResponseStatusException.class,
+				() -> verifier.requireStudent(request, rollNumber));
+		assertEquals(expected, e.getStatusCode());
+	}
+
+	private static MockHttpServletRequest request(String token) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Authorization", "Bearer " + token);
+		return request;
+	}
+
+	private static String token(String rollNumber, String name, long ttlSeconds, String secret) throws Exception {
+		Base64.Encoder base64 = Base64.getUrlEncoder().withoutPadding();
+		String header = base64.encodeToString("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+		String claims = base64.encodeToString(("{\"sub\":\"" + rollNumber + "\",\"name\":\"" + name
+				+ "\",\"exp\":" + (Instant.now().getEpochSecond() + ttlSeconds) + "}").getBytes(StandardCharsets.UTF_8));
+		Mac mac = Mac.getInstance("HmacSHA256");
+		mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+		String unsigned = header + "." + claims;
+		return unsigned + "." + base64.encodeToString(mac.doFinal(unsigned.getBytes(StandardCharsets.US_ASCII)));
+	}
+}
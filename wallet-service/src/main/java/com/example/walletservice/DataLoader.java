@@ -1,20 +1,23 @@
 package com.example.walletservice;
 
+import com.example.common.Money;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Component
 public class DataLoader {
 
     @Bean
-    CommandLineRunner loadData(WalletRepository repository) {
-        return args -> {
+    CommandLineRunner loadData(WalletRepository repository, PasswordHasher passwordHasher, TransactionTemplate transactionTemplate) {
+        // One write transaction, so the emptiness check is made on the primary and not a replica
+        return args -> transactionTemplate.executeWithoutResult(status -> {
         	// ONLY load if empty
             if (repository.count() == 0) {
-                repository.save(new StudentWallet("Rahul Sharma", "101", 1000.00, "1234"));
-                repository.save(new StudentWallet("Priya Singh", "102", 10.00, "1234")); 
+                repository.save(new StudentWallet("Rahul Sharma", "101", Money.ofRupees(1000), passwordHasher.hash("1234")));
+                repository.save(new StudentWallet("Priya Singh", "102", Money.ofRupees(10), passwordHasher.hash("1234"))); 
             }
-        };
+        });
     }
 }
\ No newline at end of file
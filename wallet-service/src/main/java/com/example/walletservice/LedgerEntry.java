@@ -0,0 +1,51 @@
+package com.example.walletservice;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// One credit or debit, never updated or deleted once written. seq numbers a student's entries
+// 1, 2, 3...; the unique (rollNumber, seq) pair is what stops two writers appending the same
+// position. reference is unique too, so a debit under "order-42" can only ever happen once.
+@Entity
+@Table(name = "wallet_ledger",
+       uniqueConstraints = {
+           @UniqueConstraint(name = "uk_ledger_roll_seq", columnNames = {"rollNumber", "seq"}),
+           @UniqueConstraint(name = "uk_ledger_reference", columnNames = "reference")
+       })
+public class LedgerEntry {
+
+    // Sequence rather than IDENTITY so Hibernate can batch the inserts of one group commit
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "wallet_ledger_seq")
+    @SequenceGenerator(name = "wallet_ledger_seq", sequenceName = "wallet_ledger_seq", allocationSize = 50)
+    private Long id;
+
+    private String rollNumber;
+    private long seq;
+    private String type; // "DEBIT", "REFUND" or "TOPUP"
+    @Column(name = "amount_paise", columnDefinition = "bigint default 0 not null")
+    private long amount; // paise, signed: negative for debits
+    private String reference;
+    private LocalDateTime createdAt;
+
+    // --- CONSTRUCTORS ---
+    public LedgerEntry() { }
+
+    public LedgerEntry(String rollNumber, long seq, String type, long amount, String reference) {
+        this.rollNumber = rollNumber;
+        this.seq = seq;
+        this.type = type;
+        this.amount = amount;
+        this.reference = reference;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // --- GETTERS ---
+    public Long getId() { return id; }
+    public String getRollNumber() { return rollNumber; }
+    public long getSeq() { return seq; }
+    public String getType() { return type; }
+    public long getAmount() { return amount; }
+    public String getReference() { return reference; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
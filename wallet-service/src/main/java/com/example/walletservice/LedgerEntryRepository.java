@@ -0,0 +1,31 @@
+package com.example.walletservice;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+    // What the entries after a snapshot add up to
+    interface Tail {
+        long getEntries();
+        long getTotal();
+        Long getLastSeq(); // null when there are none
+    }
+
+    @Query("select count(e) as entries, coalesce(sum(e.amount), 0) as total, max(e.seq) as lastSeq "
+         + "from LedgerEntry e where e.rollNumber = :rollNumber and e.seq > :afterSeq")
+    Tail tailAfter(@Param("rollNumber") String rollNumber, @Param("afterSeq") long afterSeq);
+
+    // One lookup for all the references in a write batch
+    List<LedgerEntry> findByReferenceIn(Collection<String> references);
+
+    // Newest first; a Slice skips the count query a Page would need
+    Slice<LedgerEntry> findByRollNumberOrderBySeqDesc(String rollNumber, Pageable pageable);
+}
@@ -0,0 +1,69 @@
+package com.example.walletservice;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectMapper;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Issues the session token handed out at login: a JWT signed with HMAC-SHA256 carrying the
+ * roll number (sub) and student name, valid for auth.token.ttl-minutes.
+ *
+ * order-service holds the same auth.token.secret and checks the signature itself, and the
+ * pages read the name out of the token, so nothing has to ask wallet-service who is logged in.
+ */
+@Component
+public class SessionTokenIssuer {
+
+    private static final String HEADER = base64("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${auth.token.secret}")
+    private String secret;
+
+    @Value("${auth.token.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    public Map<String, Object> issue(StudentWallet student) {
+        Instant now = Instant.now();
+        Instant expires = now.plusSeconds(ttlMinutes * 60);
+
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("sub", student.getRollNumber());
+        claims.put("name", student.getStudentName());
+        claims.put("iat", now.getEpochSecond());
+        claims.put("exp", expires.getEpochSecond());
+
+        String unsigned = HEADER + "." + base64(objectMapper.writeValueAsBytes(claims));
+        Map<String, Object> session = new LinkedHashMap<>();
+        session.put("token", unsigned + "." + base64(sign(unsigned)));
+        session.put("rollNumber", student.getRollNumber());
+        session.put("studentName", student.getStudentName());
+        session.put("expiresAt", expires.toString());
+        return session;
+    }
+
+    private byte[] sign(String unsigned) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return mac.doFinal(unsigned.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot sign session token", e);
+        }
+    }
+
+    private static String base64(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -1,9 +1,12 @@
 package com.example.walletservice;
 
+import com.example.common.Money;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "student_wallets")
+@Table(name = "student_wallets",
+       indexes = @Index(name = "idx_wallet_roll_number", columnList = "rollNumber"))
 public class StudentWallet {
 
     @Id
@@ -12,16 +15,29 @@ public class StudentWallet {
 
     private String studentName;
     private String rollNumber; // Unique ID like "101"
-    private double balance;
+
+    // Balance when the student joined the ledger (at registration, or the old mutable balance
+    // for wallets created before it). Never changes; WalletLedger has everything since.
+    // In paise, like every amount here (see Money).
+    @JsonIgnore
+    @Column(name = "opening_balance_paise", columnDefinition = "bigint default 0 not null")
+    private long openingBalance;
+
+    // Current balance, filled in from WalletLedger for responses
+    @Transient
+    private long balance;
     
+    // PasswordHasher output; never sent back in responses
+    @JsonIgnore
     private String password;
 
     // --- CONSTRUCTORS ---
     public StudentWallet() { }
 
-    public StudentWallet(String studentName, String rollNumber, double balance, String password) {
+    public StudentWallet(String studentName, String rollNumber, long balance, String password) {
         this.studentName = studentName;
         this.rollNumber = rollNumber;
+        this.openingBalance = balance;
         this.balance = balance;
         this.password = password;
     }
@@ -33,8 +49,9 @@ public class StudentWallet {
     public void setStudentName(String studentName) { this.studentName = studentName; }
     public String getRollNumber() { return rollNumber; }
     public void setRollNumber(String rollNumber) { this.rollNumber = rollNumber; }
-    public double getBalance() { return balance; }
-    public void setBalance(double balance) { this.balance = balance; }
+    public long getOpeningBalance() { return openingBalance; }
+    public long getBalance() { return balance; }
+    public void setBalance(long balance) { this.balance = balance; }
     public String getPassword() { return password; }
     public void setPassword(String password) { this.password = password; }
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.example.walletservice;
+
+// Lightweight response for balance changes (no name/password, no entity load)
+public class WalletBalance {
+
+    private final String rollNumber;
+    private final long balance; // paise
+
+    public WalletBalance(String rollNumber, long balance) {
+        this.rollNumber = rollNumber;
+        this.balance = balance;
+    }
+
+    public String getRollNumber() { return rollNumber; }
+    public long getBalance() { return balance; }
+}
@@ -1,7 +1,14 @@
 package com.example.walletservice;
 
+import com.example.common.Money;
+import com.example.common.ReadYourWrites;
+import com.example.common.ReplicaRoutingDataSource;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
@@ -14,31 +21,82 @@ public class WalletController {
     @Autowired
     private WalletRepository repository;
     
+    @Autowired
+    private WalletLedger ledger;
+    
+    @Autowired
+    private PasswordHasher passwordHasher;
+    
+    @Autowired
+    private SessionTokenIssuer tokenIssuer;
+    
+    @Autowired
+    private ReadYourWrites readYourWrites;
+    
+    @Autowired(required = false)
+    private ReplicaRoutingDataSource replicas;
+    
     // 1. Get all wallets (For debugging)
     @GetMapping
     public List<StudentWallet> getAllWallets() {
-        return repository.findAll();
+        List<StudentWallet> wallets = repository.findAll();
+        wallets.forEach(this::withBalance);
+        return wallets;
     }
     
-    // 2. Get Balance by Roll Number
+    // 2. Get Balance by Roll Number (balance comes from the ledger: last snapshot + newer entries)
     @GetMapping("/{rollNumber}")
     public StudentWallet getWallet(@PathVariable String rollNumber) {
-        return repository.findByRollNumber(rollNumber)
-                .orElseThrow(() -> new RuntimeException("Student not found"));
+        return withBalance(repository.findByRollNumber(rollNumber)
+                .orElseThrow(() -> new RuntimeException("Student not found")));
     }
     
-    // 3. Deduct Money
-    @PostMapping("/deduct")
-    public StudentWallet deductBalance(@RequestParam String rollNumber, @RequestParam double amount) {
-        StudentWallet student = repository.findByRollNumber(rollNumber)
-                .orElseThrow(() -> new RuntimeException("Student not found"));
-        
-        if (student.getBalance() < amount) {
-            throw new RuntimeException("Insufficient Funds!");
+    // 2b. Ledger entries, newest first: ?page=0&size=20 (size capped at 100)
+    @GetMapping("/{rollNumber}/transactions")
+    public Map<String, Object> getTransactions(@PathVariable String rollNumber,
+                                               @RequestParam(defaultValue = "0") int page,
+                                               @RequestParam(defaultValue = "20") int size) {
+        if (page < 0 || size < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "page must be >= 0 and size >= 1");
+        }
+        Slice<LedgerEntry> entries = ledger.entries(rollNumber, page, Math.min(size, 100));
+        if (page == 0 && !entries.hasContent() && repository.findOpeningBalanceByRollNumber(rollNumber).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Student not found");
         }
         
-        student.setBalance(student.getBalance() - amount);
-        return repository.save(student);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("rollNumber", rollNumber);
+        response.put("page", page);
+        response.put("size", entries.getSize());
+        response.put("hasMore", entries.hasNext());
+        response.put("transactions", entries.getContent());
+        return response;
+    }
+    
+    // 3. Deduct Money (appended to the ledger, see WalletLedger); amount in paise
+    // Pass a reference to make retries safe: the same reference is only ever debited once
+    @PostMapping("/deduct")
+    public WalletBalance deductBalance(@RequestParam String rollNumber, @RequestParam long amount,
+                                       @RequestParam(required = false) String reference) {
+        return ledger.debit(rollNumber, amount, reference);
+    }
+    
+    // 3b. Refund the debit made under a reference (order compensation); safe to repeat
+    @PostMapping("/refund")
+    public WalletBalance refund(@RequestParam String rollNumber, @RequestParam String reference) {
+        return ledger.refund(rollNumber, reference);
+    }
+    
+    // 3c. Ledger writer: queue depth, group-commit batch sizes, conflicts, snapshots taken
+    @GetMapping("/ledger-stats")
+    public Map<String, Object> getLedgerStats() {
+        return ledger.stats();
+    }
+    
+    // 3d. Read replicas: reads per replica, reads kept on the primary (read-your-writes, failover)
+    @GetMapping("/db-stats")
+    public Map<String, Object> getDbStats() {
+        return replicas != null ? replicas.stats() : Map.of("replicas", List.of());
     }
     
     // 4. Register
@@ -47,49 +105,56 @@ public class WalletController {
         String name = payload.get("studentName");
         String roll = payload.get("rollNumber");
         String pass = payload.get("password");
+        readYourWrites.use(roll);
         
         if (repository.findByRollNumber(roll).isPresent()) {
             throw new RuntimeException("Student already registered!");
         }
         
-        StudentWallet newStudent = new StudentWallet(name, roll, 500.00, pass);
+        StudentWallet newStudent = new StudentWallet(name, roll, Money.ofRupees(500), passwordHasher.hash(pass));
         return repository.save(newStudent);
     }
     
-    // 5. Login
+    // 5. Login: checks the password hash and returns a signed session token
+    // ({ token, rollNumber, studentName, expiresAt }) that order-service and the pages verify themselves
     @PostMapping("/login")
-    public StudentWallet login(@RequestBody Map<String, String> payload) {
+    public Map<String, Object> login(@RequestBody Map<String, String> payload) {
         String roll = payload.get("rollNumber");
         String pass = payload.get("password");
+        readYourWrites.use(roll);
         
         StudentWallet student = repository.findByRollNumber(roll)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+                .filter(s -> passwordHasher.matches(pass, s.getPassword()))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid credentials"));
         
-        if (student.getPassword() == null || !student.getPassword().equals(pass)) {
-            throw new RuntimeException("Wrong Password");
+        // Plain text (pre-hashing) or weaker hash: upgrade it now that we know the password
+        if (passwordHasher.needsRehash(student.getPassword())) {
+            student.setPassword(passwordHasher.hash(pass));
+            repository.save(student);
         }
         
-        return student;
+        return tokenIssuer.issue(student);
     }
     
-    // 6. Add Money (Top-up)
+    // 6. Add Money (Top-up): { "rollNumber": "101", "amount": 5000 } adds ₹50.00
     @PostMapping("/add")
-    public StudentWallet addMoney(@RequestBody Map<String, Object> payload) {
-        String rollNumber = (String) payload.get("rollNumber");
-        Double amount = Double.valueOf(payload.get("amount").toString());
-        
-        StudentWallet student = repository.findByRollNumber(rollNumber)
+    public StudentWallet addMoney(@RequestBody TopUpRequest payload) {
+        readYourWrites.use(payload.rollNumber());
+        StudentWallet student = repository.findByRollNumber(payload.rollNumber())
                 .orElseThrow(() -> new RuntimeException("Student not found"));
         
-        student.setBalance(student.getBalance() + amount);
-        return repository.save(student);
+        student.setBalance(ledger.topUp(payload.rollNumber(), payload.amount()).getBalance());
+        return student;
     }
     
+    public record TopUpRequest(String rollNumber, long amount) { }
+    
     // ✅ 7. NEW: Verify Student Exists (For Password Reset)
     @PostMapping("/verify")
     public Map<String, Object> verifyStudent(@RequestBody Map<String, String> payload) {
         String rollNumber = payload.get("rollNumber");
         String studentName = payload.get("studentName");
+        readYourWrites.use(rollNumber);
         
         Map<String, Object> response = new HashMap<>();
         
@@ -118,6 +183,7 @@ public class WalletController {
     public Map<String, Object> resetPassword(@RequestBody Map<String, String> payload) {
         String rollNumber = payload.get("rollNumber");
         String newPassword = payload.get("newPassword");
+        readYourWrites.use(rollNumber);
         
         Map<String, Object> response = new HashMap<>();
         
@@ -125,7 +191,7 @@ public class WalletController {
             StudentWallet student = repository.findByRollNumber(rollNumber)
                     .orElseThrow(() -> new RuntimeException("Student not found"));
             
-            student.setPassword(newPassword);
+            student.setPassword(passwordHasher.hash(newPassword));
             repository.save(student);
             
             response.put("success", true);
@@ -137,4 +203,9 @@ public class WalletController {
         
         return response;
     }
+    
+    private StudentWallet withBalance(StudentWallet student) {
+        student.setBalance(ledger.balance(student.getRollNumber()));
+        return student;
+    }
 }
@@ -0,0 +1,411 @@
+package com.example.walletservice;
+
+import com.example.common.ReadYourWrites;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The wallets' append-only ledger. Every top-up, debit and refund is a LedgerEntry, and a
+ * balance is the student's latest WalletSnapshot plus the entries written after it. Nothing
+ * on the request path rewrites a row, so there is no balance row for requests to queue on.
+ *
+ * Writes are group-committed by one writer thread. Callers queue a command and wait; the
+ * writer takes everything that has queued up (up to ledger.batch-size) and applies it in one
+ * transaction - one reference lookup, one batched insert, one commit - then answers all of
+ * them. Since only that thread writes, it checks balances against the positions (balance and
+ * last seq per student) it keeps in memory instead of reading them again for every debit.
+ *
+ * If another instance appends for the same student first, one of the inserts hits the unique
+ * (rollNumber, seq) key and the batch rolls back; the writer re-reads the positions it used
+ * and retries those commands one at a time. So a wallet still can't go negative however many
+ * instances are running. References are unique as well: a retried debit is applied only once,
+ * and refund(reference) gives exactly that amount back, also only once.
+ *
+ * Every ledger.snapshot-every entries a student is queued for compaction, and a scheduled job
+ * writes them a new snapshot, which keeps the tail that has to be added up short.
+ *
+ * Metrics: wallet.debits counts outcomes (ok, duplicate, insufficient_funds, not_found);
+ * wallet.ledger.batch.size is commands per commit, wallet.ledger.conflicts the batches that had
+ * to be retried one by one, wallet.ledger.queued the commands waiting for the writer.
+ */
+@Service
+public class WalletLedger {
+
+    private enum Kind { DEBIT, REFUND, TOPUP }
+
+    private record Command(Kind kind, String rollNumber, long amount, String reference,
+                           CompletableFuture<WalletBalance> result) {}
+
+    // A student's balance right after their entry number seq
+    private record Position(long balance, long seq, long snapshotSeq) {}
+
+    private static final String REFUND_PREFIX = "refund:";
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private LedgerEntryRepository entryRepository;
+
+    @Autowired
+    private WalletSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ReadYourWrites readYourWrites;
+
+    @Value("${ledger.batch-size:64}")
+    private int batchSize;
+
+    @Value("${ledger.snapshot-every:50}")
+    private long snapshotEvery;
+
+    @Value("${ledger.positions-cached:10000}")
+    private int positionsCached;
+
+    @Value("${ledger.submit-timeout-ms:2000}")
+    private long submitTimeoutMs;
+
+    private final BlockingQueue<Command> queue = new LinkedBlockingQueue<>();
+    private final Set<String> dueForSnapshot = ConcurrentHashMap.newKeySet();
+
+    // Only the writer thread touches this
+    private Map<String, Position> positions;
+
+    private Thread writer;
+    private volatile boolean running = true;
+    private DistributionSummary batchSizes;
+    private Counter conflicts;
+    private Counter snapshots;
+
+    @PostConstruct
+    void start() {
+        positions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Position> eldest) {
+                return size() > positionsCached;
+            }
+        };
+        batchSizes = DistributionSummary.builder("wallet.ledger.batch.size").register(meterRegistry);
+        conflicts = meterRegistry.counter("wallet.ledger.conflicts");
+        snapshots = meterRegistry.counter("wallet.ledger.snapshots");
+        Gauge.builder("wallet.ledger.queued", queue, BlockingQueue::size).register(meterRegistry);
+
+        writer = new Thread(this::writeLoop, "wallet-ledger-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        writer.join(5000);
+        Command left;
+        while ((left = queue.poll()) != null) {
+            left.result().completeExceptionally(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Shutting down"));
+        }
+    }
+
+    // --- WRITES (any thread; they wait for the group commit) ---
+
+    public WalletBalance debit(String rollNumber, long amount) {
+        return debit(rollNumber, amount, null);
+    }
+
+    public WalletBalance debit(String rollNumber, long amount, String reference) {
+        requirePositive(amount);
+        return submit(Kind.DEBIT, rollNumber, amount, reference);
+    }
+
+    // Gives back what was debited under the reference. No-op if that debit never happened
+    // or was already refunded, so it's safe to call as a compensation and to retry.
+    public WalletBalance refund(String rollNumber, String reference) {
+        return submit(Kind.REFUND, rollNumber, 0, reference);
+    }
+
+    public WalletBalance topUp(String rollNumber, long amount) {
+        requirePositive(amount);
+        return submit(Kind.TOPUP, rollNumber, amount, null);
+    }
+
+    // --- READS (straight from the database, so they see what any instance wrote) ---
+
+    public long balance(String rollNumber) {
+        return load(rollNumber).balance();
+    }
+
+    public Slice<LedgerEntry> entries(String rollNumber, int page, int size) {
+        return entryRepository.findByRollNumberOrderBySeqDesc(rollNumber, PageRequest.of(page, size));
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", queue.size());
+        stats.put("batches", batchSizes.count());
+        stats.put("averageBatch", batchSizes.count() == 0 ? 0 : batchSizes.totalAmount() / batchSizes.count());
+        stats.put("largestBatch", batchSizes.max());
+        stats.put("conflicts", (long) conflicts.count());
+        stats.put("snapshots", (long) snapshots.count());
+        stats.put("dueForSnapshot", dueForSnapshot.size());
+        return stats;
+    }
+
+    // Snapshot of the opening balance (or the last snapshot) plus everything after it
+    private Position load(String rollNumber) {
+        Optional<WalletSnapshot> snapshot = snapshotRepository.findById(rollNumber);
+        long base;
+        long baseSeq;
+        if (snapshot.isPresent()) {
+            base = snapshot.get().getBalance();
+            baseSeq = snapshot.get().getLastSeq();
+        } else {
+            base = walletRepository.findOpeningBalanceByRollNumber(rollNumber)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Student not found"));
+            baseSeq = 0;
+        }
+        LedgerEntryRepository.Tail tail = entryRepository.tailAfter(rollNumber, baseSeq);
+        if (tail.getEntries() >= snapshotEvery) {
+            dueForSnapshot.add(rollNumber);
+        }
+        long seq = tail.getLastSeq() == null ? baseSeq : tail.getLastSeq();
+        return new Position(base + tail.getTotal(), seq, baseSeq);
+    }
+
+    private WalletBalance submit(Kind kind, String rollNumber, long amount, String reference) {
+        if (!running) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Shutting down");
+        }
+        Command command = new Command(kind, rollNumber, amount, reference, new CompletableFuture<>());
+        queue.add(command);
+        try {
+            WalletBalance balance = command.result().get(submitTimeoutMs, TimeUnit.MILLISECONDS);
+            // The writer thread wrote it, so the student's next reads must still see it
+            readYourWrites.wrote(rollNumber);
+            return balance;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CompletionException(e.getCause());
+        } catch (TimeoutException e) {
+            // The writer is stuck or gone. The command may still be written later, so callers
+            // retry with the same reference and a debit is not applied twice.
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Ledger is not keeping up");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted");
+        }
+    }
+
+    private static void requirePositive(long amount) {
+        if (amount <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Amount must be positive");
+        }
+    }
+
+    // --- WRITER (one thread) ---
+
+    private void writeLoop() {
+        List<Command> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                Command first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException | Error e) {
+                // Never leave a caller waiting forever
+                batch.forEach(command -> command.result().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Command> batch) {
+        batchSizes.record(batch.size());
+        try {
+            commit(batch);
+        } catch (RuntimeException conflict) {
+            // Usually another instance appended for one of these students first: the positions
+            // used are stale. Re-read them and give each command a transaction of its own.
+            conflicts.increment();
+            for (Command command : batch) {
+                positions.remove(command.rollNumber());
+                try {
+                    commit(List.of(command));
+                } catch (RuntimeException e) {
+                    positions.remove(command.rollNumber());
+                    command.result().completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    // Applies the commands in order in one transaction and answers them once it has committed
+    private void commit(List<Command> batch) {
+        Object[] outcomes = new Object[batch.size()]; // WalletBalance or ResponseStatusException
+        String[] debitOutcomes = new String[batch.size()];
+        Map<String, Position> touched = new HashMap<>();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<String, LedgerEntry> byReference = new HashMap<>();
+            for (LedgerEntry entry : entryRepository.findByReferenceIn(referencesOf(batch))) {
+                byReference.put(entry.getReference(), entry);
+            }
+
+            List<LedgerEntry> entries = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                Command command = batch.get(i);
+                try {
+                    Position at = touched.get(command.rollNumber());
+                    if (at == null) {
+                        at = positions.get(command.rollNumber());
+                    }
+                    if (at == null) {
+                        at = load(command.rollNumber());
+                    }
+                    LedgerEntry entry = entryFor(command, at, byReference);
+                    if (entry != null) {
+                        entries.add(entry);
+                        if (entry.getReference() != null) {
+                            byReference.put(entry.getReference(), entry);
+                        }
+                        at = new Position(Math.addExact(at.balance(), entry.getAmount()), entry.getSeq(), at.snapshotSeq());
+                    }
+                    touched.put(command.rollNumber(), at);
+                    outcomes[i] = new WalletBalance(command.rollNumber(), at.balance());
+                    debitOutcomes[i] = entry != null ? "ok" : "duplicate";
+                } catch (ResponseStatusException e) {
+                    outcomes[i] = e;
+                    debitOutcomes[i] = e.getStatusCode() == HttpStatus.NOT_FOUND ? "not_found" : "insufficient_funds";
+                }
+            }
+            entryRepository.saveAll(entries);
+        });
+
+        positions.putAll(touched);
+        for (Map.Entry<String, Position> position : touched.entrySet()) {
+            long sinceSnapshot = position.getValue().seq() - position.getValue().snapshotSeq();
+            if (sinceSnapshot > 0 && sinceSnapshot % snapshotEvery == 0) {
+                dueForSnapshot.add(position.getKey());
+            }
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            Command command = batch.get(i);
+            if (command.kind() == Kind.DEBIT) {
+                meterRegistry.counter("wallet.debits", "outcome", debitOutcomes[i]).increment();
+            }
+            if (outcomes[i] instanceof WalletBalance balance) {
+                command.result().complete(balance);
+            } else {
+                command.result().completeExceptionally((ResponseStatusException) outcomes[i]);
+            }
+        }
+    }
+
+    // The entry a command appends after position at, or null if it changes nothing.
+    // Throws for the refusals the caller should see (404, 409).
+    private static LedgerEntry entryFor(Command command, Position at, Map<String, LedgerEntry> byReference) {
+        String rollNumber = command.rollNumber();
+        switch (command.kind()) {
+            case DEBIT -> {
+                // Already applied under this reference: answer like the first time did
+                if (command.reference() != null && byReference.containsKey(command.reference())) {
+                    return null;
+                }
+                if (at.balance() < command.amount()) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT, "Insufficient Funds!");
+                }
+                return new LedgerEntry(rollNumber, at.seq() + 1, "DEBIT", -command.amount(), command.reference());
+            }
+            case REFUND -> {
+                LedgerEntry debit = byReference.get(command.reference());
+                String refundReference = REFUND_PREFIX + command.reference();
+                if (debit == null || !"DEBIT".equals(debit.getType()) || !debit.getRollNumber().equals(rollNumber)
+                        || byReference.containsKey(refundReference)) {
+                    return null;
+                }
+                return new LedgerEntry(rollNumber, at.seq() + 1, "REFUND", -debit.getAmount(), refundReference);
+            }
+            default -> {
+                return new LedgerEntry(rollNumber, at.seq() + 1, "TOPUP", command.amount(), null);
+            }
+        }
+    }
+
+    private static List<String> referencesOf(List<Command> batch) {
+        List<String> references = new ArrayList<>();
+        for (Command command : batch) {
+            if (command.reference() != null) {
+                references.add(command.reference());
+                if (command.kind() == Kind.REFUND) {
+                    references.add(REFUND_PREFIX + command.reference());
+                }
+            }
+        }
+        return references;
+    }
+
+    // --- COMPACTION ---
+
+    @Scheduled(fixedDelayString = "${ledger.compaction-interval-ms:10000}")
+    public void compact() {
+        for (String rollNumber : List.copyOf(dueForSnapshot)) {
+            dueForSnapshot.remove(rollNumber);
+            try {
+                Position position = load(rollNumber);
+                // Any snapshot is a correct balance at its seq, so racing another instance here is harmless
+                transactionTemplate.executeWithoutResult(status -> {
+                    Optional<WalletSnapshot> current = snapshotRepository.findById(rollNumber);
+                    if (current.isEmpty() || current.get().getLastSeq() < position.seq()) {
+                        snapshotRepository.save(new WalletSnapshot(rollNumber, position.balance(), position.seq()));
+                    }
+                });
+                dueForSnapshot.remove(rollNumber); // load() re-queued it while the tail was still long
+                snapshots.increment();
+            } catch (RuntimeException e) {
+                // Left for the next time the tail grows; reads stay correct, only slower
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.walletservice;
+
+import com.example.common.MoneyColumnsMigration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+// Wallet-service's money columns, moved from double rupees to BIGINT paise (see MoneyColumnsMigration)
+@Component
+@DependsOn("entityManagerFactory")
+public class WalletMoneyColumns extends MoneyColumnsMigration {
+
+    // { table, old rupee column, new paise column }
+    private static final String[][] COLUMNS = {
+            { "student_wallets", "balance", "opening_balance_paise" },
+            { "wallet_ledger", "amount", "amount_paise" },
+            { "wallet_snapshots", "balance", "balance_paise" }
+    };
+
+    public WalletMoneyColumns() {
+        super(COLUMNS);
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.walletservice;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.Optional;
 
@@ -8,4 +10,8 @@ import java.util.Optional;
 public interface WalletRepository extends JpaRepository<StudentWallet, Long> {
     // Custom query method: Spring automatically figures out the SQL for this!
     Optional<StudentWallet> findByRollNumber(String rollNumber);
-}
\ No newline at end of file
+
+    // Reads just the opening balance instead of loading the whole entity (see WalletLedger)
+    @Query("select w.openingBalance from StudentWallet w where w.rollNumber = :rollNumber")
+    Optional<Long> findOpeningBalanceByRollNumber(@Param("rollNumber") String rollNumber);
+}
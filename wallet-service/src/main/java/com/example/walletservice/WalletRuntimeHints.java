@@ -0,0 +1,23 @@
+package com.example.walletservice;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Reflection hints for the native image (see the native profile in pom.xml): the entities and the
+ * ledger's result types, so Jackson can still bind and write them when Spring AOT can't trace
+ * them from a controller signature - the Map-returning endpoints and the token claims included.
+ */
+public class WalletRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                StudentWallet.class,
+                LedgerEntry.class,
+                WalletSnapshot.class,
+                WalletBalance.class,
+                WalletController.TopUpRequest.class);
+    }
+}
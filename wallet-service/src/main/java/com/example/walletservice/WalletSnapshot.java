@@ -0,0 +1,35 @@
+package com.example.walletservice;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// A student's balance as of ledger entry lastSeq. Written only by WalletLedger's compaction,
+// so reading a balance means this row plus the entries after lastSeq.
+@Entity
+@Table(name = "wallet_snapshots")
+public class WalletSnapshot {
+
+    @Id
+    private String rollNumber;
+
+    @Column(name = "balance_paise", columnDefinition = "bigint default 0 not null")
+    private long balance; // paise
+    private long lastSeq;
+    private LocalDateTime takenAt;
+
+    // --- CONSTRUCTORS ---
+    public WalletSnapshot() { }
+
+    public WalletSnapshot(String rollNumber, long balance, long lastSeq) {
+        this.rollNumber = rollNumber;
+        this.balance = balance;
+        this.lastSeq = lastSeq;
+        this.takenAt = LocalDateTime.now();
+    }
+
+    // --- GETTERS ---
+    public String getRollNumber() { return rollNumber; }
+    public long getBalance() { return balance; }
+    public long getLastSeq() { return lastSeq; }
+    public LocalDateTime getTakenAt() { return takenAt; }
+}
@@ -0,0 +1,8 @@
+package com.example.walletservice;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface WalletSnapshotRepository extends JpaRepository<WalletSnapshot, String> {
+}
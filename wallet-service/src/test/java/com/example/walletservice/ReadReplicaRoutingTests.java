@@ -0,0 +1,139 @@
+package com.example.walletservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.ServerSocket;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+import com.example.common.ReadYourWrites;
+import com.example.common.ReplicaRoutingDataSource;
+
+import org.h2.tools.Server;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Two separate in-memory H2 databases: the primary, and one replica served over TCP so it can be
+ * taken down and brought back. Each holds a row saying which one it is, so every read shows
+ * where it was routed.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=" + ReadReplicaRoutingTests.PRIMARY_URL,
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"datasource.replica.check-interval-ms=600000",
+		"datasource.read-your-writes-ms=60000",
+		"auth.token.secret=test-secret",
+		"logging.level.root=WARN"
+})
+class ReadReplicaRoutingTests {
+
+	static final String PRIMARY_URL = "jdbc:h2:mem:wallet_primary;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+
+	private static int replicaPort;
+	private static Server replicaServer;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private ReadYourWrites readYourWrites;
+
+	@Autowired
+	private ReplicaRoutingDataSource replicas;
+
+	// Runs before the context starts, so the replica is up and has its schema when the pools open
+	@DynamicPropertySource
+	static void replica(DynamicPropertyRegistry registry) throws Exception {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			replicaPort = socket.getLocalPort();
+		}
+		startReplica();
+		for (String url : List.of(PRIMARY_URL, replicaUrl())) {
+			try (Connection connection = DriverManager.getConnection(url, "sa", "");
+				 Statement statement = connection.createStatement()) {
+				statement.execute("CREATE TABLE IF NOT EXISTS whoami (name VARCHAR(16))");
+				statement.execute("INSERT INTO whoami VALUES ('" + (url.equals(PRIMARY_URL) ? "primary" : "replica") + "')");
+			}
+		}
+		registry.add("datasource.replica.urls", ReadReplicaRoutingTests::replicaUrl);
+	}
+
+	@AfterAll
+	static void stopReplica() {
+		replicaServer.stop();
+	}
+
+	@Test
+	void readOnlyTransactionsUseTheReplicaAndWritesThePrimary() {
+		assertEquals("replica", whoami(true));
+		assertEquals("primary", whoami(false));
+	}
+
+	@Test
+	void aStudentReadsTheirOwnWritesFromThePrimary() {
+		TransactionTemplate write = new TransactionTemplate(transactionManager);
+		onRequestFor("201", () -> write.executeWithoutResult(status ->
+				jdbcTemplate.update("UPDATE whoami SET name = name")));
+
+		onRequestFor("201", () -> assertEquals("primary", whoami(true)));
+		onRequestFor("202", () -> assertEquals("replica", whoami(true)));
+	}
+
+	@Test
+	void readsFailOverToThePrimaryWhileTheReplicaIsDown() throws Exception {
+		replicaServer.stop();
+		try {
+			assertEquals("primary", whoami(true));
+			assertEquals(false, replicaStats().get("up"));
+		} finally {
+			startReplica();
+		}
+		replicas.check();
+		assertEquals(true, replicaStats().get("up"));
+		assertEquals("replica", whoami(true));
+	}
+
+	private String whoami(boolean readOnly) {
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		transaction.setReadOnly(readOnly);
+		return transaction.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM whoami", String.class));
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<String, Object> replicaStats() {
+		return ((List<Map<String, Object>>) replicas.stats().get("replicas")).get(0);
+	}
+
+	private static String replicaUrl() {
+		return "jdbc:h2:tcp://localhost:" + replicaPort + "/mem:wallet_replica;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+	}
+
+	private static void startReplica() throws Exception {
+		replicaServer = Server.createTcpServer("-tcpPort", Integer.toString(replicaPort), "-ifNotExists").start();
+	}
+
+	private void onRequestFor(String rollNumber, Runnable work) {
+		readYourWrites.use(rollNumber);
+		try {
+			work.run();
+		} finally {
+			readYourWrites.afterCompletion(null, null, null, null);
+		}
+	}
+}
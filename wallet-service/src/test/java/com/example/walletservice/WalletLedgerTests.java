@@ -0,0 +1,206 @@
+package com.example.walletservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.example.common.Money;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+// In-memory H2; compaction is only run by hand, and a snapshot is due every 5 entries.
+// Each test uses its own students, so they don't depend on each other's ledger.
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:wallet_ledger;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"ledger.snapshot-every=5",
+		"ledger.compaction-interval-ms=600000",
+		"auth.token.secret=test-secret",
+		"logging.level.root=WARN"
+})
+class WalletLedgerTests {
+
+	private static final AtomicInteger students = new AtomicInteger();
+
+	@Autowired
+	private WalletLedger ledger;
+
+	@Autowired
+	private WalletRepository walletRepository;
+
+	@Autowired
+	private LedgerEntryRepository entryRepository;
+
+	@Autowired
+	private WalletSnapshotRepository snapshotRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void debitsTopUpsAndRefundsAddUp() {
+		String student = newStudent(100);
+
+		assertEquals(Money.ofRupees(70), ledger.debit(student, Money.ofRupees(30), "order-a1").getBalance());
+		assertEquals(Money.ofRupees(120), ledger.topUp(student, Money.ofRupees(50)).getBalance());
+		assertEquals(Money.ofRupees(150), ledger.refund(student, "order-a1").getBalance());
+		assertEquals(Money.ofRupees(150), ledger.balance(student));
+		assertEquals(3, entriesOf(student).size());
+	}
+
+	@Test
+	void aDuplicateDeductReferenceIsChargedOnce() {
+		String student = newStudent(100);
+
+		long first = ledger.debit(student, Money.ofRupees(40), "order-b1").getBalance();
+		long retry = ledger.debit(student, Money.ofRupees(40), "order-b1").getBalance();
+
+		assertEquals(Money.ofRupees(60), first);
+		assertEquals(first, retry);
+		assertEquals(Money.ofRupees(60), ledger.balance(student));
+		assertEquals(1, entriesOf(student).size());
+	}
+
+	@Test
+	void concurrentRetriesOfOneReferenceAreChargedOnce() throws Exception {
+		String student = newStudent(100);
+
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		for (int i = 0; i < 16; i++) {
+			pool.submit(() -> ledger.debit(student, Money.ofRupees(10), "order-c1"));
+		}
+		pool.shutdown();
+		pool.awaitTermination(30, TimeUnit.SECONDS);
+
+		assertEquals(Money.ofRupees(90), ledger.balance(student));
+		assertEquals(1, entriesOf(student).size());
+	}
+
+	@Test
+	void aRefundWithNoMatchingDebitChangesNothing() {
+		String student = newStudent(100);
+		String other = newStudent(100);
+		ledger.debit(other, Money.ofRupees(25), "order-d1");
+
+		assertEquals(Money.ofRupees(100), ledger.refund(student, "order-never-debited").getBalance());
+		// Someone else's debit can't be refunded to this student either
+		assertEquals(Money.ofRupees(100), ledger.refund(student, "order-d1").getBalance());
+
+		assertEquals(0, entriesOf(student).size());
+		assertEquals(Money.ofRupees(75), ledger.balance(other));
+	}
+
+	@Test
+	void aDebitIsRefundedOnlyOnce() {
+		String student = newStudent(100);
+		ledger.debit(student, Money.ofRupees(30), "order-e1");
+
+		ledger.refund(student, "order-e1");
+		ledger.refund(student, "order-e1");
+
+		assertEquals(Money.ofRupees(100), ledger.balance(student));
+		assertEquals(2, entriesOf(student).size());
+	}
+
+	@Test
+	void declinedDebitsWriteNothing() {
+		String student = newStudent(10);
+
+		ResponseStatusException broke = assertThrows(ResponseStatusException.class,
+				() -> ledger.debit(student, Money.ofRupees(11), "order-f1"));
+		assertEquals(HttpStatus.CONFLICT, broke.getStatusCode());
+
+		ResponseStatusException unknown = assertThrows(ResponseStatusException.class,
+				() -> ledger.debit("nobody-" + student, Money.ofRupees(1)));
+		assertEquals(HttpStatus.NOT_FOUND, unknown.getStatusCode());
+
+		assertEquals(0, entriesOf(student).size());
+		// The declined reference is still free to use
+		assertEquals(Money.ofRupees(5), ledger.debit(student, Money.ofRupees(5), "order-f1").getBalance());
+	}
+
+	@Test
+	void concurrentDebitsNeverOverdraw() throws Exception {
+		String student = newStudent(100);
+
+		AtomicLong succeeded = new AtomicLong();
+		ExecutorService pool = Executors.newFixedThreadPool(16);
+		for (int i = 0; i < 300; i++) {
+			pool.submit(() -> {
+				try {
+					ledger.debit(student, Money.ofRupees(1));
+					succeeded.incrementAndGet();
+				} catch (ResponseStatusException insufficient) {
+					// expected once the money runs out
+				}
+			});
+		}
+		pool.shutdown();
+		pool.awaitTermination(1, TimeUnit.MINUTES);
+
+		assertEquals(100, succeeded.get());
+		assertEquals(0L, ledger.balance(student));
+		List<LedgerEntry> entries = entriesOf(student);
+		assertEquals(100, entries.size());
+		assertEquals(100, entries.get(0).getSeq()); // 1..100 with no gaps or repeats
+	}
+
+	@Test
+	void anAppendByAnotherWriterIsRetriedOnTheNewPosition() {
+		String student = newStudent(100);
+		ledger.debit(student, Money.ofRupees(10));
+
+		// Another instance appends seq 2 behind this writer's back; its cached position is now stale
+		entryRepository.save(new LedgerEntry(student, 2, "DEBIT", -Money.ofRupees(20), null));
+		long conflictsBefore = (long) ledger.stats().get("conflicts");
+
+		assertEquals(Money.ofRupees(65), ledger.debit(student, Money.ofRupees(5)).getBalance());
+		assertTrue((long) ledger.stats().get("conflicts") > conflictsBefore);
+		assertEquals(3, entriesOf(student).get(0).getSeq());
+	}
+
+	@Test
+	void balancesAreReplayedFromTheSnapshot() {
+		String student = newStudent(100);
+		for (int i = 0; i < 5; i++) {
+			ledger.debit(student, Money.ofRupees(2));
+		}
+		ledger.compact();
+
+		WalletSnapshot snapshot = snapshotRepository.findById(student).orElseThrow();
+		assertEquals(5, snapshot.getLastSeq());
+		assertEquals(Money.ofRupees(90), snapshot.getBalance());
+
+		ledger.debit(student, Money.ofRupees(3));
+		ledger.topUp(student, Money.ofRupees(1));
+
+		// Once there's a snapshot the opening balance is no longer read: wipe it to prove it
+		jdbcTemplate.update("UPDATE student_wallets SET opening_balance_paise = 0 WHERE roll_number = ?", student);
+		assertEquals(Money.ofRupees(88), ledger.balance(student));
+	}
+
+	private String newStudent(long rupees) {
+		String rollNumber = "L" + students.incrementAndGet();
+		walletRepository.save(new StudentWallet("Ledger " + rollNumber, rollNumber, Money.ofRupees(rupees), "x"));
+		return rollNumber;
+	}
+
+	// Newest first
+	private List<LedgerEntry> entriesOf(String rollNumber) {
+		return ledger.entries(rollNumber, 0, 1000).getContent();
+	}
+}
@@ -3,7 +3,7 @@ package com.example.walletservice;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "auth.token.secret=test-secret")
 class WalletServiceApplicationTests {
 
 	@Test